@@ -0,0 +1,60 @@
+package org.dbtools.query.benchmarks;
+
+import org.dbtools.query.shared.Bindings;
+import org.dbtools.query.shared.QueryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collecting bind values for a bulk lookup by id: String selection args vs typed Bindings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindingsBenchmark {
+
+    @Param({"100", "10000"})
+    public int size;
+
+    private long[] ids;
+    private List<Long> boxedIds;
+
+    @Setup
+    public void setUp() {
+        boxedIds = Queries.ids(size);
+        ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = boxedIds.get(i);
+        }
+    }
+
+    @Benchmark
+    public String[] selectionArgs() {
+        return QueryBuilder.toSelectionArgs(boxedIds);
+    }
+
+    @Benchmark
+    public Bindings bindingsFromBoxed() {
+        return Bindings.of(boxedIds);
+    }
+
+    @Benchmark
+    public Bindings bindingsFromLongs() {
+        return new Bindings(ids.length).addLongs(ids);
+    }
+}
@@ -0,0 +1,68 @@
+package org.dbtools.query.benchmarks;
+
+import org.dbtools.query.sql.ImmutableSQLQueryBuilder;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * clone(), apply() and union() of SQLQueryBuilder, compared with deriving a variant from an ImmutableSQLQueryBuilder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopyBenchmark {
+
+    @Param({Queries.SMALL, Queries.MEDIUM, Queries.JOINS_50})
+    public String shape;
+
+    private SQLQueryBuilder sql;
+    private SQLQueryBuilder other;
+    private ImmutableSQLQueryBuilder immutable;
+
+    @Setup
+    public void setUp() {
+        sql = Queries.create(shape, new SQLQueryBuilder());
+        other = Queries.small(new SQLQueryBuilder());
+        immutable = ImmutableSQLQueryBuilder.create(sql);
+    }
+
+    @Benchmark
+    public SQLQueryBuilder cloneQuery() {
+        return sql.clone();
+    }
+
+    @Benchmark
+    public SQLQueryBuilder apply() {
+        return new SQLQueryBuilder().apply(sql);
+    }
+
+    @Benchmark
+    public String union() {
+        return SQLQueryBuilder.union(sql, other);
+    }
+
+    @Benchmark
+    public ImmutableSQLQueryBuilder deriveImmutable() {
+        return immutable.filter("Car.MAKE", "?");
+    }
+
+    @Benchmark
+    public String deriveImmutableAndBuild() {
+        return immutable.filter("Car.MAKE", "?").buildQuery();
+    }
+}
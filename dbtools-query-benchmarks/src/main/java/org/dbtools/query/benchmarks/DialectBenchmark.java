@@ -0,0 +1,68 @@
+package org.dbtools.query.benchmarks;
+
+import org.dbtools.query.sql.DerbyQueryBuilder;
+import org.dbtools.query.sql.FirebirdQueryBuilder;
+import org.dbtools.query.sql.MysqlQueryBuilder;
+import org.dbtools.query.sql.OracleQueryBuilder;
+import org.dbtools.query.sql.PostgresqlQueryBuilder;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The medium query rendered by each dialect subclass.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DialectBenchmark {
+
+    @Param({"sql", "derby", "firebird", "mysql", "oracle", "postgresql"})
+    public String dialect;
+
+    private SQLQueryBuilder sql;
+
+    @Setup
+    public void setUp() {
+        sql = Queries.medium(newDialect(dialect));
+    }
+
+    static SQLQueryBuilder newDialect(String dialect) {
+        if ("derby".equals(dialect)) {
+            return new DerbyQueryBuilder();
+        } else if ("firebird".equals(dialect)) {
+            return new FirebirdQueryBuilder();
+        } else if ("mysql".equals(dialect)) {
+            return new MysqlQueryBuilder();
+        } else if ("oracle".equals(dialect)) {
+            return new OracleQueryBuilder();
+        } else if ("postgresql".equals(dialect)) {
+            return new PostgresqlQueryBuilder();
+        }
+        return new SQLQueryBuilder();
+    }
+
+    @Benchmark
+    public String buildQuery() {
+        return sql.buildQuery();
+    }
+
+    @Benchmark
+    public String buildCountQuery() {
+        return sql.buildQuery(true);
+    }
+}
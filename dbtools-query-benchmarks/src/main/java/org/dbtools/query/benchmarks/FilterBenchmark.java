@@ -0,0 +1,74 @@
+package org.dbtools.query.benchmarks;
+
+import org.dbtools.query.shared.filter.Filter;
+import org.dbtools.query.shared.filter.InFilter;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter tree rendering: a 10k value InFilter (List, long[] and Set values) and deep AND/OR trees.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({"10", "100"})
+    public int depth;
+
+    private SQLQueryBuilder queryBuilder;
+    private Filter inFilter;
+    private Filter longArrayInFilter;
+    private Filter setInFilter;
+    private Filter deepFilter;
+
+    @Setup
+    public void setUp() {
+        queryBuilder = new SQLQueryBuilder();
+        inFilter = Queries.inFilter(10000);
+        longArrayInFilter = InFilter.create("Car.ID", Queries.idArray(10000));
+        setInFilter = InFilter.create("Car.ID", new LinkedHashSet<Long>(Queries.ids(10000)));
+        deepFilter = Queries.deepFilter(depth);
+    }
+
+    @Benchmark
+    public String inFilter10k() {
+        return inFilter.buildFilter(queryBuilder);
+    }
+
+    @Benchmark
+    public String inFilter10kLongArray() {
+        return longArrayInFilter.buildFilter(queryBuilder);
+    }
+
+    @Benchmark
+    public String inFilter10kSet() {
+        return setInFilter.buildFilter(queryBuilder);
+    }
+
+    @Benchmark
+    public String deepAndOr() {
+        return deepFilter.buildFilter(queryBuilder);
+    }
+
+    @Benchmark
+    public Filter cloneDeepAndOr() {
+        return deepFilter.clone();
+    }
+}
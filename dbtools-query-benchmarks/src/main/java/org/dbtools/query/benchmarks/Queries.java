@@ -0,0 +1,125 @@
+package org.dbtools.query.benchmarks;
+
+import org.dbtools.query.shared.CompareType;
+import org.dbtools.query.shared.JoinType;
+import org.dbtools.query.shared.filter.AndFilter;
+import org.dbtools.query.shared.filter.CompareFilter;
+import org.dbtools.query.shared.filter.Filter;
+import org.dbtools.query.shared.filter.InFilter;
+import org.dbtools.query.shared.filter.OrFilter;
+import org.dbtools.query.sql.SQLQueryBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Query shapes shared by the benchmarks.
+ */
+public final class Queries {
+
+    public static final String SMALL = "small";
+    public static final String MEDIUM = "medium";
+    public static final String JOINS_50 = "joins50";
+
+    private Queries() {
+    }
+
+    public static SQLQueryBuilder create(String shape, SQLQueryBuilder sql) {
+        if (SMALL.equals(shape)) {
+            return small(sql);
+        } else if (MEDIUM.equals(shape)) {
+            return medium(sql);
+        } else if (JOINS_50.equals(shape)) {
+            return joins(sql, 50);
+        }
+        throw new IllegalArgumentException("Unknown query shape: " + shape);
+    }
+
+    /**
+     * SELECT Name, Color FROM Car WHERE Car.ID = ?
+     */
+    public static SQLQueryBuilder small(SQLQueryBuilder sql) {
+        sql.table("Car");
+        sql.field("Name");
+        sql.field("Color");
+        sql.filter("Car.ID", "?");
+        return sql;
+    }
+
+    /**
+     * A typical list screen query: a few joins, mixed filters, group by and order by.
+     */
+    public static SQLQueryBuilder medium(SQLQueryBuilder sql) {
+        sql.table("Car", "c");
+        sql.field("c.ID");
+        sql.field("c.NAME", "car_name");
+        sql.field("m.NAME", "make_name");
+        sql.field("o.NAME", "owner_name");
+        sql.field("count(*)", "total");
+        sql.join("Make m", "m.ID", "c.MAKE_ID");
+        sql.join(JoinType.LEFT_JOIN, "Owner o", "o.ID", "c.OWNER_ID");
+        sql.join("Color col", CompareFilter.create("col.ID", "c.COLOR_ID"), CompareFilter.create("col.COOL", true));
+        sql.filter("c.WHEELS", CompareType.GREATERTHAN, 2);
+        sql.filter("c.NAME", CompareType.LIKE, "'F%'");
+        sql.filter("o.ID", CompareType.NOT_NULL);
+        sql.filter(CompareFilter.create("c.YEAR", CompareType.GREATERTHAN_EQUAL, 2010).or("c.CLASSIC", true));
+        sql.groupBy("c.ID");
+        sql.groupBy("c.NAME");
+        sql.groupBy("m.NAME");
+        sql.groupBy("o.NAME");
+        sql.having("count(*)", CompareType.GREATERTHAN, 1);
+        sql.orderBy("c.NAME");
+        sql.orderBy("m.NAME", false);
+        return sql;
+    }
+
+    public static SQLQueryBuilder joins(SQLQueryBuilder sql, int joinCount) {
+        sql.table("Fact", "f");
+        sql.field("f.ID");
+        for (int i = 0; i < joinCount; i++) {
+            String alias = "d" + i;
+            sql.field(alias + ".NAME", "name" + i);
+            sql.join(i % 2 == 0 ? JoinType.JOIN : JoinType.LEFT_JOIN, "Dimension" + i + " " + alias, alias + ".ID", "f.DIM" + i + "_ID");
+        }
+        sql.filter("f.ID", CompareType.GREATERTHAN, "?");
+        sql.orderBy("f.ID");
+        return sql;
+    }
+
+    public static List<Long> ids(int count) {
+        List<Long> ids = new ArrayList<Long>(count);
+        for (long i = 0; i < count; i++) {
+            ids.add(i * 7);
+        }
+        return ids;
+    }
+
+    public static long[] idArray(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = i * 7L;
+        }
+        return ids;
+    }
+
+    public static Filter inFilter(int valueCount) {
+        return InFilter.create("Car.ID", ids(valueCount));
+    }
+
+    /**
+     * Alternating AND/OR tree of the given depth with two leaf predicates per level.
+     */
+    public static Filter deepFilter(int depth) {
+        Filter filter = CompareFilter.create("f0", 0);
+        for (int i = 1; i <= depth; i++) {
+            Filter leaf = CompareFilter.create("f" + i, CompareType.GREATERTHAN, i);
+            Filter other = CompareFilter.create("g" + i, CompareType.LESSTHAN, i);
+            if (i % 2 == 0) {
+                filter = AndFilter.create(filter, leaf, other);
+            } else {
+                filter = OrFilter.create(filter, leaf, other);
+            }
+        }
+        return filter;
+    }
+}
@@ -0,0 +1,48 @@
+package org.dbtools.query.benchmarks;
+
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQLQueryBuilder.buildQuery() for small, medium and 50 join queries.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBuilderBenchmark {
+
+    @Param({Queries.SMALL, Queries.MEDIUM, Queries.JOINS_50})
+    public String shape;
+
+    private SQLQueryBuilder sql;
+
+    @Setup
+    public void setUp() {
+        sql = Queries.create(shape, new SQLQueryBuilder());
+    }
+
+    @Benchmark
+    public String buildQuery() {
+        return sql.buildQuery();
+    }
+
+    @Benchmark
+    public String buildCountQuery() {
+        return sql.buildQuery(true);
+    }
+}
@@ -0,0 +1,272 @@
+package org.dbtools.query.jdbc;
+
+import org.dbtools.query.shared.CompiledBatch;
+import org.dbtools.query.shared.CompiledQuery;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.dbtools.query.sql.SQLWriteBuilder;
+
+import javax.annotation.Nonnull;
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the queries of a QueryExecutor (one DataSource) asynchronously, so independent queries can run at the same
+ * time.  The blocking JDBC calls run on virtual threads (Java 21+), or on platform threads on older JVMs, and at most
+ * maxConcurrentQueries run at once (set it to the size of the connection pool so queries wait for a permit instead
+ * of for a connection).  Queries waiting for a permit wait in a queue, not on a thread.  A RowPublisher (see
+ * publish()) holds a permit while its query is open.
+ * <p/>
+ * Queries given as a builder are compiled on the calling thread, so the builder can be changed once the call returns.
+ * A failed query completes its future exceptionally with the SQLException.  Use one AsyncQueryExecutor per DataSource.
+ */
+public class AsyncQueryExecutor implements AutoCloseable {
+    private final QueryExecutor queryExecutor;
+    private final int maxConcurrentQueries;
+    private final QueryScheduler scheduler;
+
+    /**
+     * @param maxConcurrentQueries max number of queries running at once (such as the size of the connection pool)
+     */
+    public AsyncQueryExecutor(@Nonnull QueryExecutor queryExecutor, int maxConcurrentQueries) {
+        this(queryExecutor, maxConcurrentQueries, null);
+    }
+
+    /**
+     * @param threads runs the queries (null to use virtual threads, or platform threads before Java 21)
+     */
+    public AsyncQueryExecutor(@Nonnull QueryExecutor queryExecutor, int maxConcurrentQueries, Executor threads) {
+        if (maxConcurrentQueries < 1) {
+            throw new IllegalArgumentException("maxConcurrentQueries must be at least 1 (was " + maxConcurrentQueries + ")");
+        }
+        this.queryExecutor = queryExecutor;
+        this.maxConcurrentQueries = maxConcurrentQueries;
+        if (threads != null) {
+            this.scheduler = new QueryScheduler(maxConcurrentQueries, threads, null);
+        } else {
+            ExecutorService ownedThreads = newThreadPerTaskExecutor();
+            this.scheduler = new QueryScheduler(maxConcurrentQueries, ownedThreads, ownedThreads);
+        }
+    }
+
+    /**
+     * @return Executors.newVirtualThreadPerTaskExecutor() (found by reflection, this module targets Java 9), else a
+     * cached pool of daemon threads (not a fixed pool: a RowPublisher holding a permit must get a thread for each batch
+     * of rows... queries waiting for a permit do not hold a thread, so it does not grow past maxConcurrentQueries plus
+     * the publishers)
+     */
+    static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // before Java 21
+        }
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        return Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "dbtools-query-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public QueryExecutor getQueryExecutor() {
+        return queryExecutor;
+    }
+
+    public int getMaxConcurrentQueries() {
+        return maxConcurrentQueries;
+    }
+
+    /**
+     * @return number of queries that can start without waiting for a permit
+     */
+    public int getAvailablePermits() {
+        return scheduler.getAvailablePermits();
+    }
+
+    // ********** reads **********
+
+    /**
+     * @return the mapped rows of the query
+     */
+    public <T> CompletableFuture<List<T>> list(@Nonnull SQLQueryBuilder query, @Nonnull RowMapper<? extends T> rowMapper) {
+        return list(query, query.compile(), Collections.<String, Object>emptyMap(), null, QueryExecutor.factory(rowMapper));
+    }
+
+    /**
+     * @return the rows of the query, mapped by index (see QueryExecutor.iterate(SQLQueryBuilder, RowMapperFactory))
+     */
+    public <T> CompletableFuture<List<T>> list(@Nonnull SQLQueryBuilder query, @Nonnull RowMapperFactory<? extends T> rowMapperFactory) {
+        return list(query, query.compile(), Collections.<String, Object>emptyMap(), ColumnIndexes.of(query), rowMapperFactory);
+    }
+
+    public <T> CompletableFuture<List<T>> list(@Nonnull CompiledQuery query, @Nonnull Map<String, ?> namedValues,
+                                               @Nonnull RowMapper<? extends T> rowMapper) {
+        return list(queryExecutor.getDialect(), query, namedValues, null, QueryExecutor.factory(rowMapper));
+    }
+
+    private <T> CompletableFuture<List<T>> list(final SQLQueryBuilder queryDialect, final CompiledQuery query, final Map<String, ?> namedValues,
+                                                final ColumnIndexes columns, final RowMapperFactory<? extends T> rowMapperFactory) {
+        return submit(new Callable<List<T>>() {
+            @Override
+            public List<T> call() throws SQLException {
+                List<T> rows = new ArrayList<T>();
+                try (RowIterator<T> iterator = queryExecutor.iterate(queryDialect, query, namedValues, columns, rowMapperFactory)) {
+                    while (iterator.hasNext()) {
+                        rows.add(iterator.next());
+                    }
+                } catch (JdbcException e) {
+                    throw e.getCause();
+                }
+                return rows;
+            }
+        });
+    }
+
+    /**
+     * @return the first row of the query, mapped (null if there are no rows)
+     */
+    public <T> CompletableFuture<T> first(@Nonnull SQLQueryBuilder query, @Nonnull final RowMapper<? extends T> rowMapper) {
+        final SQLQueryBuilder queryDialect = query;
+        final CompiledQuery compiled = query.compile();
+        return submit(new Callable<T>() {
+            @Override
+            public T call() throws SQLException {
+                try (RowIterator<T> iterator = queryExecutor.iterate(queryDialect, compiled, Collections.<String, Object>emptyMap(), rowMapper)) {
+                    return iterator.hasNext() ? iterator.next() : null;
+                } catch (JdbcException e) {
+                    throw e.getCause();
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs the query, calling the callback for each row (on the thread running the query)
+     *
+     * @return number of rows
+     */
+    public CompletableFuture<Integer> query(@Nonnull SQLQueryBuilder query, @Nonnull final RowCallback callback) {
+        final SQLQueryBuilder queryDialect = query;
+        final CompiledQuery compiled = query.compile();
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws SQLException {
+                return queryExecutor.query(queryDialect, compiled, Collections.<String, Object>emptyMap(), callback);
+            }
+        });
+    }
+
+    /**
+     * @return publisher of the mapped rows of the query, read as they are requested (see RowPublisher)
+     */
+    public <T> RowPublisher<T> publish(@Nonnull SQLQueryBuilder query, @Nonnull RowMapper<? extends T> rowMapper) {
+        return new RowPublisher<T>(queryExecutor, scheduler, query, query.compile(), Collections.<String, Object>emptyMap(),
+                null, QueryExecutor.factory(rowMapper));
+    }
+
+    /**
+     * @return publisher of the rows of the query, mapped by index (see QueryExecutor.iterate(SQLQueryBuilder, RowMapperFactory))
+     */
+    public <T> RowPublisher<T> publish(@Nonnull SQLQueryBuilder query, @Nonnull RowMapperFactory<? extends T> rowMapperFactory) {
+        return new RowPublisher<T>(queryExecutor, scheduler, query, query.compile(), Collections.<String, Object>emptyMap(),
+                ColumnIndexes.of(query), rowMapperFactory);
+    }
+
+    public <T> RowPublisher<T> publish(@Nonnull CompiledQuery query, @Nonnull Map<String, ?> namedValues,
+                                       @Nonnull RowMapper<? extends T> rowMapper) {
+        return new RowPublisher<T>(queryExecutor, scheduler, queryExecutor.getDialect(), query, namedValues,
+                null, QueryExecutor.factory(rowMapper));
+    }
+
+    // ********** writes **********
+
+    /**
+     * @return number of rows changed
+     */
+    public CompletableFuture<Integer> update(@Nonnull SQLWriteBuilder statement) {
+        final CompiledQuery compiled = statement.compile();
+        return submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws SQLException {
+                return queryExecutor.update(compiled);
+            }
+        });
+    }
+
+    /**
+     * @return update count of each execution of each batch, in order (see QueryExecutor.executeBatches())
+     */
+    public CompletableFuture<int[]> executeBatches(@Nonnull final Iterable<CompiledBatch> batches) {
+        return submit(new Callable<int[]>() {
+            @Override
+            public int[] call() throws SQLException {
+                return queryExecutor.executeBatches(batches);
+            }
+        });
+    }
+
+    // ********** tasks **********
+
+    /**
+     * Runs blocking work, such as a JPA query built with JPAQueryBuilder (see applyLimit()), on the query threads
+     * once a permit is available
+     */
+    public <T> CompletableFuture<T> submit(@Nonnull final Callable<T> work) {
+        final CompletableFuture<T> future = new CompletableFuture<T>();
+        scheduler.submit(new QueryScheduler.Task() {
+            private T result;
+            private Throwable failure;
+
+            @Override
+            public void run() {
+                try {
+                    if (!future.isDone()) { // not cancelled while waiting for a permit
+                        result = work.call();
+                    }
+                } catch (Throwable e) {
+                    failure = e;
+                }
+            }
+
+            @Override
+            void complete() {
+                if (failure != null) {
+                    future.completeExceptionally(failure);
+                } else {
+                    future.complete(result);
+                }
+            }
+
+            @Override
+            void rejected(RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Shuts down the threads created by this executor once the queries already submitted (and open RowPublisher
+     * queries) are done
+     */
+    @Override
+    public void close() {
+        scheduler.close();
+    }
+}
@@ -0,0 +1,100 @@
+package org.dbtools.query.jdbc;
+
+import org.dbtools.query.sql.SQLQueryBuilder;
+
+import javax.annotation.Nonnull;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * JDBC column index of each column label of a query, resolved once so rows can be read with getXxx(int) instead of
+ * getXxx(String) (which several drivers resolve with a case-insensitive scan of the columns for every call).
+ * Labels are matched ignoring case; if a label is used more than once the first column wins, like ResultSet.findColumn().
+ * Immutable.
+ */
+public final class ColumnIndexes {
+    private final List<String> labels;
+    private final Map<String, Integer> indexes;
+
+    private ColumnIndexes(List<String> labels) {
+        this.labels = labels;
+        this.indexes = new HashMap<String, Integer>(labels.size() * 2);
+        for (int i = labels.size() - 1; i >= 0; i--) {
+            indexes.put(key(labels.get(i)), i + 1);
+        }
+    }
+
+    /**
+     * @return the indexes of the fields of the query (see SQLQueryBuilder.getColumnLabels()), empty if the query
+     * selects * (use of(ResultSetMetaData))
+     */
+    public static ColumnIndexes of(@Nonnull SQLQueryBuilder query) {
+        return of(query.getColumnLabels());
+    }
+
+    /**
+     * @param labels label of each column, in order
+     */
+    public static ColumnIndexes of(@Nonnull List<String> labels) {
+        return new ColumnIndexes(new ArrayList<String>(labels));
+    }
+
+    public static ColumnIndexes of(@Nonnull String... labels) {
+        return of(Arrays.asList(labels));
+    }
+
+    public static ColumnIndexes of(@Nonnull ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        List<String> labels = new ArrayList<String>(columnCount);
+        for (int i = 1; i <= columnCount; i++) {
+            labels.add(metaData.getColumnLabel(i));
+        }
+        return new ColumnIndexes(labels);
+    }
+
+    private static String key(String label) {
+        return label.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * @return 1 based JDBC index of the column
+     * @throws IllegalArgumentException if the query has no column with the label
+     */
+    public int indexOf(@Nonnull String label) {
+        Integer index = indexes.get(key(label));
+        if (index == null) {
+            throw new IllegalArgumentException("No column " + label + " in " + labels);
+        }
+        return index;
+    }
+
+    public boolean contains(@Nonnull String label) {
+        return indexes.containsKey(key(label));
+    }
+
+    /**
+     * @param index 1 based JDBC index of the column
+     */
+    public String getLabel(int index) {
+        return labels.get(index - 1);
+    }
+
+    public int size() {
+        return labels.size();
+    }
+
+    public boolean isEmpty() {
+        return labels.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return labels.toString();
+    }
+}
@@ -0,0 +1,20 @@
+package org.dbtools.query.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * SQLException thrown where a checked exception can't be (such as from Iterator.hasNext())
+ */
+public class JdbcException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public JdbcException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
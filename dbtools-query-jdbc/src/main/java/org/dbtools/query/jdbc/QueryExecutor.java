@@ -0,0 +1,616 @@
+package org.dbtools.query.jdbc;
+
+import org.dbtools.query.shared.CompiledBatch;
+import org.dbtools.query.shared.CompiledQuery;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.dbtools.query.sql.SQLWriteBuilder;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Executes queries against a DataSource.  Rows are read through a RowMapper (iterate()) or a RowCallback (query())
+ * one at a time, with the fetch size of the dialect, so large results are never materialized in memory.
+ * A connection is taken from the DataSource for each call and closed when the call (or the RowIterator) is done.
+ * With statementCacheSize() the prepared statements of each (pooled) connection are kept in a StatementCache.
+ * Statements are cached for the physical connection behind the pooled connection (see physicalConnection()).
+ * <p/>
+ * Thread safe once configured.
+ */
+public class QueryExecutor {
+    public static final int DIALECT_FETCH_SIZE = -1;
+
+    /**
+     * Finds the physical connection with Connection.unwrap(Connection.class).  This works with pools (such as HikariCP)
+     * and drivers whose unwrap() returns the physical connection.  Pools whose wrappers return themselves (such as DBCP2)
+     * need their own function (see physicalConnection()), or every checkout gets a new, empty, StatementCache.
+     */
+    public static final Function<Connection, Connection> UNWRAP = new Function<Connection, Connection>() {
+        @Override
+        public Connection apply(Connection connection) {
+            try {
+                return connection.unwrap(Connection.class);
+            } catch (SQLException e) {
+                return connection;
+            }
+        }
+    };
+
+    private final DataSource dataSource;
+    private final SQLQueryBuilder dialect;
+    private int fetchSize = DIALECT_FETCH_SIZE;
+    private int statementCacheSize;
+    private Function<? super Connection, ? extends Connection> physicalConnection = UNWRAP;
+
+    // statement cache of each physical connection (entries of closed connections are removed when a call is done with
+    // the connection, and when a connection is added)
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<Connection, StatementCache>();
+    private final StatementCacheStats statementCacheStats = new StatementCacheStats();
+
+    public QueryExecutor(@Nonnull DataSource dataSource) {
+        this(dataSource, null);
+    }
+
+    /**
+     * @param dialect used for the fetch size of compiled queries (queries given as a builder use their own dialect)
+     */
+    public QueryExecutor(@Nonnull DataSource dataSource, @Nullable SQLQueryBuilder dialect) {
+        this.dataSource = dataSource;
+        this.dialect = dialect;
+    }
+
+    /**
+     * @param fetchSize fetch size for every query, instead of the dialect's (see SQLQueryBuilder.getFetchSize()).
+     *                  DIALECT_FETCH_SIZE to use the dialect's, 0 for the driver default.
+     */
+    public QueryExecutor fetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+        return this;
+    }
+
+    /**
+     * @param statementCacheSize max number of prepared statements cached for each connection, 0 (the default) to
+     *                           prepare every statement (for drivers or pools that cache statements themselves)
+     */
+    public QueryExecutor statementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+        return this;
+    }
+
+    /**
+     * @param physicalConnection returns the physical connection behind a connection of the DataSource, which statements
+     *                           are cached for and prepared on (UNWRAP by default).  For DBCP2 (with
+     *                           accessToUnderlyingConnectionAllowed): connection -> ((DelegatingConnection&lt;?&gt;) connection).getInnermostDelegate()
+     */
+    public QueryExecutor physicalConnection(@Nonnull Function<? super Connection, ? extends Connection> physicalConnection) {
+        this.physicalConnection = physicalConnection;
+        return this;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * @return hit, miss and eviction counts of the statement caches of all connections
+     */
+    public StatementCacheStats getStatementCacheStats() {
+        return statementCacheStats;
+    }
+
+    /**
+     * @return number of connections that have a statement cache
+     */
+    int getStatementCacheCount() {
+        return statementCaches.size();
+    }
+
+    /**
+     * Closes the cached statements of every connection
+     */
+    public void clearStatementCaches() throws SQLException {
+        SQLException failure = null;
+        for (Iterator<StatementCache> i = statementCaches.values().iterator(); i.hasNext(); ) {
+            StatementCache cache = i.next();
+            i.remove();
+            synchronized (cache) {
+                try {
+                    cache.clear();
+                } catch (SQLException e) {
+                    failure = failure != null ? failure : e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public SQLQueryBuilder getDialect() {
+        return dialect;
+    }
+
+    /**
+     * @return fetch size used for queries of the given dialect
+     */
+    public int getFetchSize(@Nullable SQLQueryBuilder queryDialect) {
+        if (fetchSize != DIALECT_FETCH_SIZE) {
+            return fetchSize;
+        }
+        return queryDialect != null ? queryDialect.getFetchSize() : 0;
+    }
+
+    // ********** reads **********
+
+    /**
+     * Runs the query and returns an iterator over the mapped rows.  The iterator holds the connection open
+     * until the last row has been read or it is closed.
+     */
+    public <T> RowIterator<T> iterate(@Nonnull SQLQueryBuilder query, @Nonnull RowMapper<? extends T> rowMapper) throws SQLException {
+        return iterate(query, query.compile(), Collections.<String, Object>emptyMap(), rowMapper);
+    }
+
+    public <T> RowIterator<T> iterate(@Nonnull CompiledQuery query, @Nonnull RowMapper<? extends T> rowMapper) throws SQLException {
+        return iterate(dialect, query, Collections.<String, Object>emptyMap(), rowMapper);
+    }
+
+    /**
+     * @param namedValues values of the named parameters of the query
+     */
+    public <T> RowIterator<T> iterate(@Nonnull CompiledQuery query, @Nonnull Map<String, ?> namedValues,
+                                      @Nonnull RowMapper<? extends T> rowMapper) throws SQLException {
+        return iterate(dialect, query, namedValues, rowMapper);
+    }
+
+    /**
+     * Runs the query and returns an iterator over the rows mapped by the RowMapper the factory creates with the
+     * column indexes of the fields of the query (see ColumnIndexes.of(SQLQueryBuilder)), or of the result
+     * if the query selects *.  The indexes are resolved once, rather than by name for every row.
+     */
+    public <T> RowIterator<T> iterate(@Nonnull SQLQueryBuilder query, @Nonnull RowMapperFactory<? extends T> rowMapperFactory) throws SQLException {
+        return iterate(query, query.compile(), Collections.<String, Object>emptyMap(), ColumnIndexes.of(query), rowMapperFactory);
+    }
+
+    /**
+     * Runs the query and returns an iterator over the rows mapped by the RowMapper the factory creates with the
+     * column indexes of the result
+     */
+    public <T> RowIterator<T> iterate(@Nonnull CompiledQuery query, @Nonnull Map<String, ?> namedValues,
+                                      @Nonnull RowMapperFactory<? extends T> rowMapperFactory) throws SQLException {
+        return iterate(dialect, query, namedValues, ColumnIndexes.of(), rowMapperFactory);
+    }
+
+    <T> RowIterator<T> iterate(SQLQueryBuilder queryDialect, CompiledQuery query, Map<String, ?> namedValues,
+                               RowMapper<? extends T> rowMapper) throws SQLException {
+        return iterate(queryDialect, query, namedValues, null, factory(rowMapper));
+    }
+
+    static <T> RowMapperFactory<T> factory(final RowMapper<T> rowMapper) {
+        return new RowMapperFactory<T>() {
+            @Override
+            public RowMapper<T> create(ColumnIndexes columns) {
+                return rowMapper;
+            }
+        };
+    }
+
+    /**
+     * @param columns column indexes to create the RowMapper with (empty to read them from the result),
+     *                null if the factory does not use them
+     */
+    <T> RowIterator<T> iterate(SQLQueryBuilder queryDialect, CompiledQuery query, Map<String, ?> namedValues,
+                               ColumnIndexes columns, RowMapperFactory<? extends T> rowMapperFactory) throws SQLException {
+        return iterate(queryDialect, query, namedValues, columns, rowMapperFactory, null);
+    }
+
+    /**
+     * @param executing given the statement before it is executed (so it can be cancelled), null if not needed
+     */
+    <T> RowIterator<T> iterate(SQLQueryBuilder queryDialect, CompiledQuery query, Map<String, ?> namedValues,
+                               ColumnIndexes columns, RowMapperFactory<? extends T> rowMapperFactory,
+                               Consumer<? super PreparedStatement> executing) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        StatementCache cache = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        boolean restoreAutoCommit = false;
+        try {
+            cache = getStatementCache(connection);
+            restoreAutoCommit = beginRead(connection, queryDialect);
+            statement = prepareRead(connection, cache, query, namedValues, queryDialect);
+            if (executing != null) {
+                executing.accept(statement);
+            }
+            resultSet = statement.executeQuery();
+            if (columns != null && columns.isEmpty()) {
+                columns = ColumnIndexes.of(resultSet.getMetaData());
+            }
+            RowMapper<? extends T> rowMapper = rowMapperFactory.create(columns);
+            return new RowIterator<T>(this, connection, cache, statement, resultSet, rowMapper, restoreAutoCommit);
+        } catch (SQLException | RuntimeException e) {
+            closeAfterFailure(connection, cache, statement, resultSet, restoreAutoCommit, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs the query, calling the callback for each row
+     *
+     * @return number of rows
+     */
+    public int query(@Nonnull SQLQueryBuilder query, @Nonnull RowCallback callback) throws SQLException {
+        return query(query, query.compile(), Collections.<String, Object>emptyMap(), callback);
+    }
+
+    public int query(@Nonnull CompiledQuery query, @Nonnull RowCallback callback) throws SQLException {
+        return query(dialect, query, Collections.<String, Object>emptyMap(), callback);
+    }
+
+    /**
+     * @param namedValues values of the named parameters of the query
+     */
+    public int query(@Nonnull CompiledQuery query, @Nonnull Map<String, ?> namedValues, @Nonnull RowCallback callback) throws SQLException {
+        return query(dialect, query, namedValues, callback);
+    }
+
+    int query(SQLQueryBuilder queryDialect, CompiledQuery query, Map<String, ?> namedValues, RowCallback callback) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        StatementCache cache = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        boolean restoreAutoCommit = false;
+        int rowCount = 0;
+        try {
+            cache = getStatementCache(connection);
+            restoreAutoCommit = beginRead(connection, queryDialect);
+            statement = prepareRead(connection, cache, query, namedValues, queryDialect);
+            resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                callback.processRow(resultSet);
+                rowCount++;
+            }
+        } catch (SQLException | RuntimeException e) {
+            closeAfterFailure(connection, cache, statement, resultSet, restoreAutoCommit, e);
+            throw e;
+        }
+        close(connection, cache, statement, resultSet, restoreAutoCommit);
+        return rowCount;
+    }
+
+    // ********** writes **********
+
+    /**
+     * @return number of rows changed
+     */
+    public int update(@Nonnull SQLWriteBuilder statement) throws SQLException {
+        return update(statement.compile(), Collections.<String, Object>emptyMap());
+    }
+
+    public int update(@Nonnull CompiledQuery statement) throws SQLException {
+        return update(statement, Collections.<String, Object>emptyMap());
+    }
+
+    /**
+     * @param namedValues values of the named parameters of the statement
+     * @return number of rows changed
+     */
+    public int update(@Nonnull CompiledQuery statement, @Nonnull Map<String, ?> namedValues) throws SQLException {
+        Connection connection = dataSource.getConnection();
+        StatementCache cache = null;
+        PreparedStatement prepared = null;
+        int updateCount;
+        try {
+            cache = getStatementCache(connection);
+            prepared = prepare(connection, cache, statement.getQuery());
+            statement.bindParameters(prepared, namedValues);
+            updateCount = prepared.executeUpdate();
+        } catch (SQLException | RuntimeException e) {
+            closeAfterFailure(connection, cache, prepared, null, false, e);
+            throw e;
+        }
+        close(connection, cache, prepared, null, false);
+        return updateCount;
+    }
+
+    /**
+     * Executes every execution of the batch with one round trip (PreparedStatement.executeBatch())
+     *
+     * @return update count of each execution
+     */
+    public int[] executeBatch(@Nonnull CompiledBatch batch) throws SQLException {
+        return executeBatches(Collections.singletonList(batch));
+    }
+
+    /**
+     * Executes the batches (such as SQLInsertBuilder.compileBatches()) on one connection, in order
+     *
+     * @return update count of each execution of each batch, in order
+     */
+    public int[] executeBatches(@Nonnull Iterable<CompiledBatch> batches) throws SQLException {
+        int[] counts = new int[0];
+        Connection connection = dataSource.getConnection();
+        StatementCache cache = null;
+        try {
+            cache = getStatementCache(connection);
+            for (CompiledBatch batch : batches) {
+                PreparedStatement statement = prepare(connection, cache, batch.getQuery());
+                int[] batchCounts;
+                try {
+                    batch.addBatch(statement);
+                    batchCounts = statement.executeBatch();
+                } catch (SQLException | RuntimeException e) {
+                    closeAfterFailure(null, cache, statement, null, false, e);
+                    throw e;
+                }
+                releaseStatement(cache, statement);
+                int[] grown = new int[counts.length + batchCounts.length];
+                System.arraycopy(counts, 0, grown, 0, counts.length);
+                System.arraycopy(batchCounts, 0, grown, counts.length, batchCounts.length);
+                counts = grown;
+            }
+        } catch (SQLException | RuntimeException e) {
+            closeAfterFailure(connection, null, null, null, false, e);
+            throw e;
+        }
+        close(connection, null, null, null, false);
+        return counts;
+    }
+
+    // ********** statements **********
+
+    /**
+     * Turns auto-commit off if the driver only honors the fetch size in a transaction
+     *
+     * @return true if auto-commit was turned off (and must be turned back on when done)
+     */
+    private boolean beginRead(Connection connection, SQLQueryBuilder queryDialect) throws SQLException {
+        if (queryDialect != null && queryDialect.isFetchSizeTransactional() && getFetchSize(queryDialect) != 0
+                && connection.getAutoCommit()) {
+            connection.setAutoCommit(false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the statement cache of the connection, null if statements are not cached
+     */
+    private StatementCache getStatementCache(Connection connection) throws SQLException {
+        if (statementCacheSize <= 0) {
+            return null;
+        }
+
+        // pools hand out a new wrapper for each checkout... cache the statements of the connection inside
+        Connection physical = physicalConnection.apply(connection);
+        if (physical == null) {
+            physical = connection;
+        }
+
+        StatementCache cache = statementCaches.get(physical);
+        if (cache == null) {
+            removeClosedStatementCaches();
+            cache = new StatementCache(physical, statementCacheSize, statementCacheStats);
+            statementCaches.put(physical, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Removes the statement cache if its connection has been closed (such as by a DataSource that does not pool)
+     */
+    private void removeIfClosed(StatementCache cache) {
+        Connection cached = cache.getConnection();
+        boolean closed;
+        try {
+            closed = cached.isClosed();
+        } catch (SQLException e) {
+            closed = true;
+        }
+        if (closed) {
+            statementCaches.remove(cached, cache);
+        }
+    }
+
+    private void removeClosedStatementCaches() {
+        List<Connection> closed = new ArrayList<Connection>();
+        for (Connection cached : statementCaches.keySet()) {
+            try {
+                if (cached.isClosed()) {
+                    closed.add(cached);
+                }
+            } catch (SQLException e) {
+                closed.add(cached);
+            }
+        }
+        for (Connection cached : closed) {
+            statementCaches.remove(cached);
+        }
+    }
+
+    /**
+     * @return a forward only, read only statement for the SQL, from the cache if there is one
+     */
+    private static PreparedStatement prepare(Connection connection, StatementCache cache, String sql) throws SQLException {
+        if (cache != null) {
+            synchronized (cache) {
+                return cache.prepare(sql);
+            }
+        }
+        return connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    }
+
+    /**
+     * Returns the statement to the cache, or closes it if there is no cache
+     */
+    private static void releaseStatement(StatementCache cache, PreparedStatement statement) throws SQLException {
+        if (cache != null) {
+            synchronized (cache) {
+                cache.release(statement);
+            }
+        } else {
+            statement.close();
+        }
+    }
+
+    private PreparedStatement prepareRead(Connection connection, StatementCache cache, CompiledQuery query,
+                                          Map<String, ?> namedValues, SQLQueryBuilder queryDialect) throws SQLException {
+        PreparedStatement statement = prepare(connection, cache, query.getQuery());
+        try {
+            int size = getFetchSize(queryDialect);
+            if (size != 0) {
+                statement.setFetchSize(size);
+            }
+            if (namedValues.isEmpty()) {
+                query.bindParameters(statement);
+            } else {
+                query.bindParameters(statement, namedValues);
+            }
+        } catch (SQLException | RuntimeException e) {
+            closeAfterFailure(null, cache, statement, null, false, e);
+            throw e;
+        }
+        return statement;
+    }
+
+    /**
+     * Closes the ResultSet, statement (or returns it to the cache) and connection (any can be null), ending the read
+     * transaction started by beginRead().  The first failure is thrown after everything has been closed.
+     */
+    void close(Connection connection, StatementCache cache, PreparedStatement statement, ResultSet resultSet,
+                      boolean restoreAutoCommit) throws SQLException {
+        SQLException failure = null;
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+        } catch (SQLException e) {
+            failure = e;
+        }
+        try {
+            if (statement != null) {
+                releaseStatement(cache, statement);
+            }
+        } catch (SQLException e) {
+            failure = failure != null ? failure : e;
+        }
+        try {
+            if (restoreAutoCommit) {
+                try {
+                    connection.commit();
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            failure = failure != null ? failure : e;
+        }
+        try {
+            if (connection != null) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            failure = failure != null ? failure : e;
+        }
+        if (cache != null) {
+            removeIfClosed(cache);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Closes a cancelled query, like close(), except that the statement is discarded instead of returned to the cache
+     * (the driver may still be ending the cancelled execution) and the read transaction is rolled back
+     */
+    void closeCancelled(Connection connection, StatementCache cache, PreparedStatement statement, ResultSet resultSet,
+                        boolean restoreAutoCommit) throws SQLException {
+        SQLException failure = null;
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+        } catch (SQLException e) {
+            failure = e;
+        }
+        try {
+            if (cache != null) {
+                synchronized (cache) {
+                    cache.discard(statement);
+                }
+            } else {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            failure = failure != null ? failure : e;
+        }
+        try {
+            if (restoreAutoCommit) {
+                try {
+                    connection.rollback();
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException e) {
+            failure = failure != null ? failure : e;
+        }
+        try {
+            close(connection, cache, null, null, false);
+        } catch (SQLException e) {
+            failure = failure != null ? failure : e;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Closes everything after a failure (a cached statement is discarded, it may have been left with a pending batch)
+     */
+    private void closeAfterFailure(Connection connection, StatementCache cache, PreparedStatement statement,
+                                          ResultSet resultSet, boolean restoreAutoCommit, Exception cause) {
+        try {
+            if (resultSet != null) {
+                resultSet.close();
+            }
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+        try {
+            if (cache != null && statement != null) {
+                synchronized (cache) {
+                    cache.discard(statement);
+                }
+                statement = null;
+            }
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+        try {
+            close(connection, null, statement, null, restoreAutoCommit);
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+        if (cache != null) {
+            removeIfClosed(cache);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.dbtools.query.jdbc;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs the work of an AsyncQueryExecutor on its query threads, at most maxConcurrentQueries at once.  Work waiting for
+ * a permit waits in a queue, not on a thread: a thread is only taken once a permit is held, and a thread that finishes
+ * its work runs the next waiting work with the same permit.  So the query threads never block on a permit, and there
+ * are at most maxConcurrentQueries of them, plus the RowPublisher drains that do not hold a permit (those never block).
+ */
+final class QueryScheduler {
+    /**
+     * Work that runs holding a permit.  run() must not throw.
+     */
+    abstract static class Task implements Runnable {
+        /**
+         * @return true if run() takes over the permit (and calls release() once done with it), false if the permit is
+         * released (or passed on to the next waiting task) once run() returns
+         */
+        boolean keepsPermit() {
+            return false;
+        }
+
+        /**
+         * Called once the permit was released or passed on (not called if keepsPermit())
+         */
+        void complete() {
+        }
+
+        /**
+         * Called instead of run() if the query threads did not accept the work (such as once they are shut down)
+         */
+        abstract void rejected(RuntimeException e);
+    }
+
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final Executor threads;
+    private final ExecutorService ownedThreads; // created by the AsyncQueryExecutor... shut down once closed and idle
+    private final Queue<Task> waiting = new ConcurrentLinkedQueue<Task>();
+    private volatile boolean closed;
+
+    QueryScheduler(int maxPermits, Executor threads, ExecutorService ownedThreads) {
+        this.permits = new Semaphore(maxPermits);
+        this.maxPermits = maxPermits;
+        this.threads = threads;
+        this.ownedThreads = ownedThreads;
+    }
+
+    int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * Runs work that does not need a permit (such as a RowPublisher drain) on the query threads
+     */
+    void execute(Runnable work) {
+        threads.execute(work);
+    }
+
+    /**
+     * Runs the task on a query thread once a permit is available (tasks start in the order they were submitted)
+     */
+    void submit(Task task) {
+        waiting.add(task);
+        dispatch();
+    }
+
+    /**
+     * Releases a permit taken over by a task (see Task.keepsPermit())
+     */
+    void release() {
+        permits.release();
+        dispatch();
+    }
+
+    /**
+     * Starts a worker for each waiting task that can get a permit... a task added after the queue was checked is
+     * seen by the thread that took the last permit, once it releases it
+     */
+    private void dispatch() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            try {
+                threads.execute(new Worker());
+            } catch (RuntimeException e) {
+                permits.release();
+                rejectWaiting(e);
+                break;
+            }
+        }
+        shutdownIfIdle();
+    }
+
+    private void rejectWaiting(RuntimeException e) {
+        Task task;
+        while ((task = waiting.poll()) != null) {
+            task.rejected(e);
+        }
+    }
+
+    /**
+     * Shuts down the threads created by the AsyncQueryExecutor once the waiting and running tasks are done
+     */
+    void close() {
+        closed = true;
+        shutdownIfIdle();
+    }
+
+    private void shutdownIfIdle() {
+        if (closed && ownedThreads != null && waiting.isEmpty() && permits.availablePermits() == maxPermits) {
+            ownedThreads.shutdown();
+        }
+    }
+
+    /**
+     * Holds one permit... runs waiting tasks until there are none left (or one takes over the permit)
+     */
+    private final class Worker implements Runnable {
+        @Override
+        public void run() {
+            Task task = waiting.poll();
+            while (task != null) {
+                if (task.keepsPermit()) {
+                    task.run();
+                    return;
+                }
+                task.run();
+
+                // the permit is released before the task completes, so a caller waiting for it can start another
+                // query right away
+                Task next = waiting.poll();
+                if (next == null) {
+                    release();
+                }
+                task.complete();
+                if (next == null) {
+                    return;
+                }
+                task = next;
+            }
+            release();
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package org.dbtools.query.jdbc;
+
+import org.dbtools.query.shared.Bindings;
+import org.dbtools.query.shared.CompiledQuery;
+import org.dbtools.query.shared.Join;
+import org.dbtools.query.shared.QueryUtil;
+import org.dbtools.query.shared.filter.Filter;
+import org.dbtools.query.sql.SQLQueryBuilder;
+
+import javax.annotation.Nonnull;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of query results (the mapped rows), keyed by the rendered SQL, the bound values and the RowMapper (the
+ * instance... two mappers of the same class may map the rows differently, so pass the same mapper, such as a constant,
+ * to share results), and tagged with the tables the query reads.  invalidate(table) removes every result that read the table... call it
+ * when the table is changed.  Meant for reference data (statuses, categories, lookup tables) that rarely changes.
+ * <p/>
+ * At most maxSize results are kept (the least recently used is removed first), each for at most the time to live.
+ * Cached lists are read-only and shared between callers, so the mapped rows should be immutable.
+ * <p/>
+ * The tables of a SQLQueryBuilder are its tables and joins (see getTables()).  A query that reads a sub-query
+ * (table(SQLQueryBuilder), InFilter.create(field, subQuery), or SELECT in a raw filter, field, group by or order by) is
+ * not cached, its tables are not known... give the tables explicitly with
+ * list(QueryExecutor, CompiledQuery, Map, Collection, RowMapper).
+ * <p/>
+ * Thread safe.  Queries run outside the lock, so the same query may run more than once at the same time when it is
+ * not cached.  A result read while any table was invalidated is returned but not cached.
+ */
+public class ResultCache {
+    private final int maxSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier nanoTime;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByTable = new HashMap<String, Set<Key>>();
+    private long invalidations; // changed by every invalidate()
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public ResultCache(int maxSize, long timeToLive, @Nonnull TimeUnit unit) {
+        this(maxSize, timeToLive, unit, System::nanoTime);
+    }
+
+    ResultCache(int maxSize, long timeToLive, TimeUnit unit, LongSupplier nanoTime) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1 (was " + maxSize + ")");
+        }
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("timeToLive must be positive (was " + timeToLive + ")");
+        }
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @return the mapped rows of the query, from the cache if they were read within the time to live
+     */
+    public <T> List<T> list(@Nonnull QueryExecutor executor, @Nonnull SQLQueryBuilder query, @Nonnull RowMapper<? extends T> rowMapper) throws SQLException {
+        CompiledQuery compiled = query.compile();
+        Set<String> tables = getTables(query);
+        if (tables == null) {
+            return read(executor, query, compiled, Collections.<String, Object>emptyMap(), rowMapper);
+        }
+        return list(executor, query, compiled, Collections.<String, Object>emptyMap(), tables, rowMapper);
+    }
+
+    /**
+     * @param namedValues values of the named parameters of the query
+     * @param tables      tables read by the query
+     * @return the mapped rows of the query, from the cache if they were read within the time to live
+     */
+    public <T> List<T> list(@Nonnull QueryExecutor executor, @Nonnull CompiledQuery query, @Nonnull Map<String, ?> namedValues,
+                            @Nonnull Collection<String> tables, @Nonnull RowMapper<? extends T> rowMapper) throws SQLException {
+        Set<String> tags = new HashSet<String>();
+        for (String table : tables) {
+            addTags(tags, table);
+        }
+        return list(executor, executor.getDialect(), query, namedValues, tags, rowMapper);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> List<T> list(QueryExecutor executor, SQLQueryBuilder queryDialect, CompiledQuery query, Map<String, ?> namedValues,
+                             Set<String> tags, RowMapper<? extends T> rowMapper) throws SQLException {
+        Key key = new Key(query.getQuery(), values(query, namedValues), rowMapper);
+        long loadInvalidations;
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt - nanoTime.getAsLong() > 0) {
+                hitCount++;
+                return (List<T>) entry.rows;
+            }
+            if (entry != null) {
+                remove(key);
+                evictionCount++;
+            }
+            missCount++;
+            loadInvalidations = invalidations;
+        }
+
+        List<T> rows = read(executor, queryDialect, query, namedValues, rowMapper);
+
+        synchronized (this) {
+            if (loadInvalidations == invalidations) {
+                remove(key);
+                entries.put(key, new Entry(rows, tags, nanoTime.getAsLong() + timeToLiveNanos));
+                for (String tag : tags) {
+                    Set<Key> keys = keysByTable.get(tag);
+                    if (keys == null) {
+                        keys = new HashSet<Key>();
+                        keysByTable.put(tag, keys);
+                    }
+                    keys.add(key);
+                }
+                while (entries.size() > maxSize) {
+                    remove(entries.keySet().iterator().next());
+                    evictionCount++;
+                }
+            }
+        }
+        return rows;
+    }
+
+    private static <T> List<T> read(QueryExecutor executor, SQLQueryBuilder queryDialect, CompiledQuery query,
+                                    Map<String, ?> namedValues, RowMapper<? extends T> rowMapper) throws SQLException {
+        List<T> rows = new ArrayList<T>();
+        try (RowIterator<T> iterator = executor.iterate(queryDialect, query, namedValues, rowMapper)) {
+            while (iterator.hasNext()) {
+                rows.add(iterator.next());
+            }
+        } catch (JdbcException e) {
+            throw e.getCause();
+        }
+        return Collections.unmodifiableList(rows);
+    }
+
+    private static List<Object> values(CompiledQuery query, Map<String, ?> namedValues) {
+        Bindings bindings = query.bind(namedValues);
+        List<Object> values = new ArrayList<Object>(bindings.size());
+        for (int i = 0; i < bindings.size(); i++) {
+            values.add(bindings.get(i));
+        }
+        return values;
+    }
+
+    /**
+     * @return tags of the tables and joins of the query, null if it reads a sub-query
+     */
+    static Set<String> getTables(SQLQueryBuilder query) {
+        Set<String> tags = new HashSet<String>();
+        for (String table : query.getTables()) {
+            if (!addTags(tags, table)) {
+                return null;
+            }
+        }
+        for (Join join : query.getJoins()) {
+            if (!addTags(tags, join.getTable()) || hasSubQuery(join.getFilter())) {
+                return null;
+            }
+        }
+        if (hasSubQuery(query.getFilter()) || hasSubQuery(query.getHaving())
+                || containsSelect(query.getFields()) || containsSelect(query.getGroupBys()) || containsSelect(query.getOrderBys())) {
+            return null;
+        }
+        return tags;
+    }
+
+    private static boolean hasSubQuery(Filter filter) {
+        return filter != null && filter.hasSubQuery();
+    }
+
+    private static boolean containsSelect(List<?> sqlParts) {
+        for (Object sql : sqlParts) {
+            if (QueryUtil.containsSelect(sql.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the tag of the table ("Person p" or "Person" is PERSON), and the tag without the schema if it has one
+     * ("dbo.Person" is DBO.PERSON and PERSON)
+     *
+     * @return false if the table is a sub-query
+     */
+    private static boolean addTags(Set<String> tags, String table) {
+        String name = table.trim();
+        if (name.startsWith("(")) {
+            return false;
+        }
+        int end = 0;
+        while (end < name.length() && !Character.isWhitespace(name.charAt(end))) {
+            end++;
+        }
+        name = name.substring(0, end).toUpperCase(Locale.ROOT);
+        tags.add(name);
+        int dot = name.lastIndexOf('.');
+        if (dot >= 0) {
+            tags.add(name.substring(dot + 1));
+        }
+        return true;
+    }
+
+    /**
+     * Removes every cached result that read the table (a table without a schema also matches the table in any schema)
+     */
+    public synchronized void invalidate(@Nonnull String table) {
+        invalidations++;
+        Set<String> tags = new HashSet<String>();
+        addTags(tags, table);
+        for (String tag : tags) {
+            Set<Key> keys = keysByTable.get(tag);
+            if (keys != null) {
+                for (Key key : new ArrayList<Key>(keys)) {
+                    remove(key);
+                }
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations++;
+        entries.clear();
+        keysByTable.clear();
+    }
+
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        for (String tag : entry.tags) {
+            Set<Key> keys = keysByTable.get(tag);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTable.remove(tag);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the results older than the time to live (they are also removed when read)
+     */
+    public synchronized void removeExpired() {
+        long now = nanoTime.getAsLong();
+        List<Key> expired = new ArrayList<Key>();
+        for (Iterator<Map.Entry<Key, Entry>> i = entries.entrySet().iterator(); i.hasNext(); ) {
+            Map.Entry<Key, Entry> entry = i.next();
+            if (entry.getValue().expiresAt - now <= 0) {
+                expired.add(entry.getKey());
+            }
+        }
+        for (Key key : expired) {
+            remove(key);
+            evictionCount++;
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return number of results removed because the cache was full or they were older than the time to live
+     * (results removed by invalidate() are not counted)
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ResultCache size: " + entries.size() + "/" + maxSize + " hits: " + hitCount + " misses: " + missCount
+                + " evictions: " + evictionCount;
+    }
+
+    private static final class Key {
+        private final String query;
+        private final List<Object> values;
+        private final RowMapper<?> rowMapper; // compared by identity
+        private final int hashCode;
+
+        private Key(String query, List<Object> values, RowMapper<?> rowMapper) {
+            this.query = query;
+            this.values = values;
+            this.rowMapper = rowMapper;
+            this.hashCode = 31 * (31 * query.hashCode() + values.hashCode()) + System.identityHashCode(rowMapper);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return hashCode == that.hashCode && query.equals(that.query) && values.equals(that.values)
+                    && rowMapper == that.rowMapper;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class Entry {
+        private final List<?> rows;
+        private final Set<String> tags;
+        private final long expiresAt;
+
+        private Entry(List<?> rows, Set<String> tags, long expiresAt) {
+            this.rows = rows;
+            this.tags = tags;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
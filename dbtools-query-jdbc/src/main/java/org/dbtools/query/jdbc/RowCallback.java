@@ -0,0 +1,12 @@
+package org.dbtools.query.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Called for each row of a query, while the ResultSet is positioned on the row.  Nothing is kept between rows.
+ */
+public interface RowCallback {
+
+    void processRow(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,133 @@
+package org.dbtools.query.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the rows of an open ResultSet, mapping one row at a time (only the rows in the driver's fetch buffer
+ * are held in memory).  The ResultSet, its statement (unless cached) and its connection are closed when the last
+ * row has been read, when reading fails, or when close() is called... use try-with-resources if the rows may not
+ * all be read.
+ */
+public class RowIterator<T> implements Iterator<T>, AutoCloseable {
+
+    private final QueryExecutor executor;
+    private final Connection connection;
+    private final StatementCache statementCache;
+    private final PreparedStatement statement;
+    private final ResultSet resultSet;
+    private final RowMapper<? extends T> rowMapper;
+    private final boolean restoreAutoCommit;
+
+    private int rowNumber;
+    private boolean hasRow;
+    private boolean advanced;
+    private boolean closed;
+    private volatile boolean cancelled;
+
+    RowIterator(QueryExecutor executor, Connection connection, StatementCache statementCache, PreparedStatement statement,
+                ResultSet resultSet, RowMapper<? extends T> rowMapper, boolean restoreAutoCommit) {
+        this.executor = executor;
+        this.connection = connection;
+        this.statementCache = statementCache;
+        this.statement = statement;
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+        this.restoreAutoCommit = restoreAutoCommit;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!advanced && !closed) {
+            try {
+                hasRow = resultSet.next();
+                advanced = true;
+            } catch (SQLException e) {
+                closeQuietly();
+                throw new JdbcException(e);
+            }
+            if (!hasRow) {
+                close();
+            }
+        }
+        return hasRow && !closed;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        advanced = false;
+        try {
+            return rowMapper.mapRow(resultSet, rowNumber++);
+        } catch (SQLException e) {
+            closeQuietly();
+            throw new JdbcException(e);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove");
+    }
+
+    /**
+     * @return number of rows read so far
+     */
+    public int getRowCount() {
+        return rowNumber;
+    }
+
+    ResultSet getResultSet() {
+        return resultSet;
+    }
+
+    PreparedStatement getStatement() {
+        return statement;
+    }
+
+    /**
+     * Marks the query as cancelled: close() discards the statement instead of returning it to the statement cache
+     * (see QueryExecutor.closeCancelled())
+     */
+    void cancelled() {
+        cancelled = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Closes the ResultSet, statement and connection (does nothing if already closed)
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (cancelled) {
+                executor.closeCancelled(connection, statementCache, statement, resultSet, restoreAutoCommit);
+            } else {
+                executor.close(connection, statementCache, statement, resultSet, restoreAutoCommit);
+            }
+        } catch (SQLException e) {
+            throw new JdbcException(e);
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (JdbcException ignore) {
+            // the original failure is reported
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.dbtools.query.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a ResultSet to an object.  The ResultSet must not be advanced or closed by the mapper.
+ */
+public interface RowMapper<T> {
+
+    /**
+     * @param rowNumber 0 based number of the row
+     */
+    T mapRow(ResultSet resultSet, int rowNumber) throws SQLException;
+}
@@ -0,0 +1,19 @@
+package org.dbtools.query.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Creates the RowMapper for one execution of a query once its column indexes are known, so the mapper can read
+ * each row by index:
+ * <pre>
+ * columns -> {
+ *     int id = columns.indexOf("ID");
+ *     int name = columns.indexOf("NAME");
+ *     return (resultSet, rowNumber) -> new Car(resultSet.getLong(id), resultSet.getString(name));
+ * }
+ * </pre>
+ */
+public interface RowMapperFactory<T> {
+
+    RowMapper<T> create(ColumnIndexes columns) throws SQLException;
+}
@@ -0,0 +1,368 @@
+package org.dbtools.query.jdbc;
+
+import org.dbtools.query.shared.CompiledQuery;
+import org.dbtools.query.sql.SQLQueryBuilder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Publishes the mapped rows of a query (see AsyncQueryExecutor.publish()).  Each subscription runs the query again.
+ * <p/>
+ * Rows are read from the ResultSet only as the subscriber requests them, and the fetch size follows the outstanding
+ * demand, at least MIN_DEMAND_FETCH_SIZE (so a subscriber requesting one row at a time does not cost a round trip per
+ * row) and at most the fetch size of the dialect (or MAX_DEMAND_FETCH_SIZE if the dialect uses the driver default),
+ * so the driver does not read far ahead of the subscriber.  A dialect that streams with a negative fetch size (MySQL)
+ * keeps it.
+ * <p/>
+ * The query runs once the first rows are requested and a permit is available (waiting for a permit does not hold a
+ * thread), and its connection (and permit) is held until the last row has been published, the query fails, or the
+ * subscription is cancelled.  Cancelling while the query is executing or fetching rows cancels the statement
+ * (Statement.cancel()), and a cancelled statement is discarded from the statement cache instead of reused.
+ * <p/>
+ * Signals are sent from the query threads of the AsyncQueryExecutor, one at a time.
+ */
+public class RowPublisher<T> implements Flow.Publisher<T> {
+    public static final int MIN_DEMAND_FETCH_SIZE = 100;
+    public static final int MAX_DEMAND_FETCH_SIZE = 1000;
+
+    private final QueryExecutor queryExecutor;
+    private final QueryScheduler scheduler;
+    private final SQLQueryBuilder queryDialect;
+    private final CompiledQuery query;
+    private final Map<String, ?> namedValues;
+    private final ColumnIndexes columns;
+    private final RowMapperFactory<? extends T> rowMapperFactory;
+
+    RowPublisher(QueryExecutor queryExecutor, QueryScheduler scheduler, SQLQueryBuilder queryDialect, CompiledQuery query,
+                 Map<String, ?> namedValues, ColumnIndexes columns, RowMapperFactory<? extends T> rowMapperFactory) {
+        this.queryExecutor = queryExecutor;
+        this.scheduler = scheduler;
+        this.queryDialect = queryDialect;
+        this.query = query;
+        this.namedValues = namedValues;
+        this.columns = columns;
+        this.rowMapperFactory = rowMapperFactory;
+    }
+
+    public CompiledQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * @param dialectFetchSize fetch size of the dialect (0 for the driver default)
+     * @return fetch size for the outstanding demand: at least MIN_DEMAND_FETCH_SIZE, at most the fetch size of the
+     * dialect (or MAX_DEMAND_FETCH_SIZE)
+     */
+    static int demandFetchSize(long requested, int dialectFetchSize) {
+        int maxFetchSize = dialectFetchSize > 0 ? dialectFetchSize : MAX_DEMAND_FETCH_SIZE;
+        return (int) Math.min(Math.max(requested, MIN_DEMAND_FETCH_SIZE), maxFetchSize);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new RowSubscription(subscriber));
+    }
+
+    /**
+     * request() and cancel() only record the change and make sure a drain is running... the drain (run()) is the only
+     * code that touches the ResultSet or signals the subscriber, and only one runs at a time (wip counts the changes
+     * not yet seen by a drain).  The permit is asked for once rows are requested... when it is granted (on a query
+     * thread), a drain runs on that thread.  The exception is cancel(), which also cancels the statement the drain is
+     * waiting on in the driver (see running).
+     */
+    private final class RowSubscription implements Flow.Subscription, Runnable {
+        private final Flow.Subscriber<? super T> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException badRequest;
+        private volatile boolean permitGranted;
+        private volatile RuntimeException permitRejected;
+
+        // the statement (and rows, once open) while the drain is in a driver call... guarded by this subscription
+        private PreparedStatement running;
+        private RowIterator<T> runningRows;
+
+        // used by the drain only
+        private RowIterator<T> rows;
+        private boolean permitRequested;
+        private boolean permitHeld;
+        private int currentFetchSize;
+        private boolean done;
+
+        private RowSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                badRequest = new IllegalArgumentException("Requested " + n + " rows (must be positive)");
+            } else {
+                long current;
+                long updated;
+                do {
+                    current = demand.get();
+                    updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+                } while (!demand.compareAndSet(current, updated));
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            synchronized (this) {
+                if (runningRows != null) {
+                    runningRows.cancelled();
+                }
+                if (running != null) {
+                    try {
+                        running.cancel();
+                    } catch (SQLException e) {
+                        // the statement is still closed by the drain
+                    }
+                    running = null;
+                }
+            }
+            schedule();
+        }
+
+        /**
+         * Called by the drain before it calls the driver
+         *
+         * @return false if the subscription was cancelled (the call must not be made)
+         */
+        private synchronized boolean startDriverCall(PreparedStatement statement, RowIterator<T> statementRows) {
+            if (cancelled) {
+                return false;
+            }
+            running = statement;
+            runningRows = statementRows;
+            return true;
+        }
+
+        private synchronized void endDriverCall() {
+            running = null;
+            runningRows = null;
+        }
+
+        private void schedule() {
+            if (wip.getAndIncrement() == 0) {
+                try {
+                    scheduler.execute(this);
+                } catch (RuntimeException e) {
+                    // no drain can run... this thread is the only one signalling
+                    finish(e);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            while (true) {
+                drain();
+                missed = wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+
+        private void drain() {
+            if (permitGranted) {
+                permitGranted = false;
+                permitHeld = true;
+                if (done) { // cancelled (or failed) while waiting for the permit
+                    releasePermit();
+                    return;
+                }
+            }
+            try {
+                while (!done) {
+                    if (cancelled) {
+                        close();
+                        return;
+                    }
+                    if (badRequest != null) {
+                        finish(badRequest);
+                        return;
+                    }
+                    if (permitRejected != null) {
+                        finish(permitRejected);
+                        return;
+                    }
+
+                    long requested = demand.get();
+                    if (requested == 0) {
+                        return;
+                    }
+                    if (rows == null) {
+                        if (!permitHeld) {
+                            requestPermit();
+                            return;
+                        }
+                        open();
+                    }
+                    setFetchSize(requested);
+
+                    long emitted = 0;
+                    while (emitted < requested) {
+                        if (!startDriverCall(rows.getStatement(), rows)) {
+                            close();
+                            return;
+                        }
+                        T row = null;
+                        boolean hasNext;
+                        try {
+                            hasNext = rows.hasNext();
+                            if (hasNext) {
+                                row = rows.next();
+                            }
+                        } finally {
+                            endDriverCall();
+                        }
+                        if (!hasNext) {
+                            finish(null);
+                            return;
+                        }
+                        subscriber.onNext(row);
+                        emitted++;
+                    }
+                    if (requested != Long.MAX_VALUE) {
+                        demand.addAndGet(-emitted);
+                    }
+                }
+            } catch (JdbcException e) {
+                finish(e.getCause());
+            } catch (Throwable e) {
+                finish(e);
+            }
+        }
+
+        /**
+         * Asks for a permit (once)... once granted, a drain runs on the query thread that got it
+         */
+        private void requestPermit() {
+            if (permitRequested) {
+                return;
+            }
+            permitRequested = true;
+            scheduler.submit(new QueryScheduler.Task() {
+                @Override
+                boolean keepsPermit() {
+                    return true;
+                }
+
+                @Override
+                public void run() {
+                    permitGranted = true;
+                    if (wip.getAndIncrement() == 0) {
+                        RowSubscription.this.run();
+                    }
+                }
+
+                @Override
+                void rejected(RuntimeException e) {
+                    permitRejected = e;
+                    schedule();
+                }
+            });
+        }
+
+        /**
+         * Runs the query... the statement can be cancelled while it is executing
+         */
+        private void open() throws SQLException {
+            try {
+                rows = queryExecutor.iterate(queryDialect, query, namedValues, columns, rowMapperFactory, new Consumer<PreparedStatement>() {
+                    @Override
+                    public void accept(PreparedStatement statement) {
+                        if (!startDriverCall(statement, null)) {
+                            throw new CancellationException();
+                        }
+                    }
+                });
+            } finally {
+                endDriverCall();
+            }
+        }
+
+        /**
+         * Sets the fetch size of the ResultSet to the outstanding demand, at least MIN_DEMAND_FETCH_SIZE and at most
+         * the fetch size of the dialect
+         */
+        private void setFetchSize(long requested) throws SQLException {
+            int dialectFetchSize = queryExecutor.getFetchSize(queryDialect);
+            if (dialectFetchSize < 0) {
+                return;
+            }
+            int fetchSize = demandFetchSize(requested, dialectFetchSize);
+            if (fetchSize != currentFetchSize && !rows.isClosed()) {
+                try {
+                    rows.getResultSet().setFetchSize(fetchSize);
+                } catch (SQLFeatureNotSupportedException e) {
+                    // the hint is optional
+                }
+                currentFetchSize = fetchSize;
+            }
+        }
+
+        /**
+         * Closes the query and signals the subscriber: onComplete() if failure is null, else onError()
+         */
+        private void finish(Throwable failure) {
+            if (done) {
+                return;
+            }
+            try {
+                close();
+            } catch (RuntimeException e) {
+                failure = failure != null ? failure : e;
+            }
+            if (cancelled) {
+                return;
+            }
+            if (failure != null) {
+                subscriber.onError(failure);
+            } else {
+                subscriber.onComplete();
+            }
+        }
+
+        /**
+         * Closes the ResultSet, statement and connection and releases the permit (nothing more is signalled)
+         */
+        private void close() {
+            done = true;
+            try {
+                if (rows != null) {
+                    if (cancelled) {
+                        rows.cancelled();
+                    }
+                    rows.close();
+                }
+            } finally {
+                if (permitHeld) {
+                    releasePermit();
+                }
+            }
+        }
+
+        private void releasePermit() {
+            permitHeld = false;
+            scheduler.release();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.dbtools.query.jdbc;
+
+import javax.annotation.Nonnull;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of the PreparedStatements of one connection, keyed by SQL (CompiledQuery.getQuery()), for
+ * drivers that don't cache statements themselves (such as embedded Derby and older Jaybird).  A cached statement
+ * only has to be bound again.
+ * <p/>
+ * A statement is checked out by prepare() and checked back in by release().  While it is checked out the same SQL
+ * gets a newly prepared statement (such as a query run while iterating the rows of the same query), which is closed
+ * when released if the SQL is cached again by then.
+ * <p/>
+ * Used by one thread at a time, like its connection.
+ */
+public class StatementCache {
+    private final Connection connection;
+    private final int maxSize;
+    private final StatementCacheStats stats;
+
+    private final LinkedHashMap<String, PreparedStatement> idle;
+    private final Map<PreparedStatement, String> checkedOut = new HashMap<PreparedStatement, String>();
+
+    public StatementCache(@Nonnull Connection connection, int maxSize) {
+        this(connection, maxSize, new StatementCacheStats());
+    }
+
+    /**
+     * @param maxSize max number of idle statements kept open
+     * @param stats counters to update (can be shared between caches)
+     */
+    public StatementCache(@Nonnull Connection connection, int maxSize, @Nonnull StatementCacheStats stats) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be at least 1 (was " + maxSize + ")");
+        }
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.stats = stats;
+        this.idle = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true);
+    }
+
+    public Connection getConnection() {
+        return connection;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return number of idle (cached) statements
+     */
+    public int size() {
+        return idle.size();
+    }
+
+    public StatementCacheStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return a forward only, read only statement for the SQL (cached if possible), checked out until release()
+     */
+    public PreparedStatement prepare(@Nonnull String sql) throws SQLException {
+        PreparedStatement statement = idle.remove(sql);
+        if (statement != null && !statement.isClosed()) {
+            stats.recordHit();
+        } else {
+            stats.recordMiss();
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        }
+        checkedOut.put(statement, sql);
+        return statement;
+    }
+
+    /**
+     * Returns the statement to the cache, ready to be bound again (the least recently used statement is closed
+     * if the cache is full).  A statement that was not prepared by this cache is closed.
+     */
+    public void release(@Nonnull PreparedStatement statement) throws SQLException {
+        String sql = checkedOut.remove(statement);
+        if (sql == null || statement.isClosed()) {
+            statement.close();
+            return;
+        }
+        if (idle.containsKey(sql)) {
+            statement.close();
+            return;
+        }
+
+        try {
+            statement.clearParameters();
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        idle.put(sql, statement);
+        if (idle.size() > maxSize) {
+            Iterator<PreparedStatement> eldest = idle.values().iterator();
+            PreparedStatement evicted = eldest.next();
+            eldest.remove();
+            stats.recordEviction();
+            evicted.close();
+        }
+    }
+
+    /**
+     * Closes a checked out statement instead of returning it to the cache
+     */
+    public void discard(@Nonnull PreparedStatement statement) throws SQLException {
+        checkedOut.remove(statement);
+        statement.close();
+    }
+
+    /**
+     * Closes the idle statements
+     */
+    public void clear() throws SQLException {
+        List<PreparedStatement> statements = new ArrayList<PreparedStatement>(idle.values());
+        idle.clear();
+        SQLException failure = null;
+        for (PreparedStatement statement : statements) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                failure = failure != null ? failure : e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "StatementCache size: " + idle.size() + "/" + maxSize + " checked out: " + checkedOut.size() + " " + stats;
+    }
+}
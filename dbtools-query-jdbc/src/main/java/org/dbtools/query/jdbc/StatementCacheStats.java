@@ -0,0 +1,60 @@
+package org.dbtools.query.jdbc;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hit, miss and eviction counters of one or more StatementCaches (a QueryExecutor shares one between the caches
+ * of all its connections).  Thread safe.
+ */
+public class StatementCacheStats {
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    void recordHit() {
+        hitCount.incrementAndGet();
+    }
+
+    void recordMiss() {
+        missCount.incrementAndGet();
+    }
+
+    void recordEviction() {
+        evictionCount.incrementAndGet();
+    }
+
+    /**
+     * @return number of statements returned from a cache without being prepared
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return number of statements prepared because they were not cached (or the cached statement was in use or closed)
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return number of statements closed to keep a cache within its size
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * @return hits / (hits + misses), 0 if nothing has been prepared
+     */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "hits: " + getHitCount() + " misses: " + getMissCount() + " evictions: " + getEvictionCount();
+    }
+}
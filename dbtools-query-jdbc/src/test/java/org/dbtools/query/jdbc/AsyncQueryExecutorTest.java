@@ -0,0 +1,159 @@
+package org.dbtools.query.jdbc;
+
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.dbtools.query.sql.DerbyQueryBuilder;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AsyncQueryExecutorTest {
+    private static final RowMapper<String> NAME_MAPPER = new RowMapper<String>() {
+        @Override
+        public String mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+            return resultSet.getString("NAME");
+        }
+    };
+
+    private static int databaseNumber;
+
+    private EmbeddedDataSource dataSource;
+    private AsyncQueryExecutor executor;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new EmbeddedDataSource();
+        dataSource.setDatabaseName("memory:AsyncQueryExecutorTest" + (databaseNumber++));
+        dataSource.setCreateDatabase("create");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE CAR (ID BIGINT PRIMARY KEY, NAME VARCHAR(32))");
+            statement.execute("INSERT INTO CAR VALUES (1, 'Civic'), (2, 'Bus'), (3, 'Truck')");
+        }
+        executor = new AsyncQueryExecutor(new QueryExecutor(dataSource, new DerbyQueryBuilder()), 2);
+    }
+
+    @After
+    public void tearDown() {
+        executor.close();
+        dataSource.setCreateDatabase(null);
+        dataSource.setConnectionAttributes("drop=true");
+        try {
+            dataSource.getConnection().close();
+        } catch (SQLException expected) {
+            // Derby reports a dropped database with an exception
+        }
+    }
+
+    @Test
+    public void testQueries() throws Exception {
+        SQLQueryBuilder query = new DerbyQueryBuilder().parameterize(true).table("CAR").field("NAME");
+        List<CompletableFuture<String>> lookups = new ArrayList<CompletableFuture<String>>();
+        for (long id = 1; id <= 3; id++) {
+            // compiled before the call returns... the builder can be reused
+            lookups.add(executor.first(query.clone().filter("ID", id), NAME_MAPPER));
+        }
+        CompletableFuture<List<String>> all = executor.list(query.orderBy("ID"), NAME_MAPPER);
+        CompletableFuture<String> missing = executor.first(new DerbyQueryBuilder().table("CAR").filter("ID", 4L), NAME_MAPPER);
+
+        assertEquals("Civic", lookups.get(0).get(10, TimeUnit.SECONDS));
+        assertEquals("Bus", lookups.get(1).get(10, TimeUnit.SECONDS));
+        assertEquals("Truck", lookups.get(2).get(10, TimeUnit.SECONDS));
+        assertEquals("[Civic, Bus, Truck]", all.get(10, TimeUnit.SECONDS).toString());
+        assertEquals(null, missing.get(10, TimeUnit.SECONDS));
+
+        assertEquals(Integer.valueOf(1), executor.update(new DerbyQueryBuilder().deleteFrom("CAR").filter("ID", 1L)).get(10, TimeUnit.SECONDS));
+        assertEquals(2, executor.getAvailablePermits());
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        CompletableFuture<List<String>> result = executor.list(new DerbyQueryBuilder().table("NO_SUCH_TABLE"), NAME_MAPPER);
+        try {
+            result.get(10, TimeUnit.SECONDS);
+            fail("Query of a missing table should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+        assertEquals(2, executor.getAvailablePermits());
+    }
+
+    @Test
+    public void testMaxConcurrentQueries() throws Exception {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<Integer>> results = new ArrayList<CompletableFuture<Integer>>();
+        for (int i = 0; i < 10; i++) {
+            results.add(executor.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    int now = running.incrementAndGet();
+                    synchronized (maxRunning) {
+                        maxRunning.set(Math.max(maxRunning.get(), now));
+                    }
+                    Thread.sleep(20);
+                    running.decrementAndGet();
+                    return now;
+                }
+            }));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture<?>[results.size()])).get(10, TimeUnit.SECONDS);
+        assertTrue(maxRunning.get() <= 2);
+        assertEquals(2, executor.getAvailablePermits());
+    }
+
+    @Test
+    public void testWaitingQueriesDoNotHoldThreads() throws Exception {
+        final AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService threads = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                threadCount.incrementAndGet();
+                return new Thread(runnable);
+            }
+        });
+        AsyncQueryExecutor limited = new AsyncQueryExecutor(executor.getQueryExecutor(), 2, threads);
+        try {
+            final CountDownLatch submitted = new CountDownLatch(1);
+            List<CompletableFuture<Integer>> results = new ArrayList<CompletableFuture<Integer>>();
+            for (int i = 0; i < 20; i++) {
+                final int number = i;
+                results.add(limited.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        submitted.await();
+                        return number;
+                    }
+                }));
+            }
+            submitted.countDown();
+            for (int i = 0; i < 20; i++) {
+                assertEquals(Integer.valueOf(i), results.get(i).get(10, TimeUnit.SECONDS));
+            }
+            // a thread is only taken once a permit is held
+            assertTrue(threadCount.get() <= 2);
+            assertEquals(2, limited.getAvailablePermits());
+        } finally {
+            threads.shutdown();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.dbtools.query.jdbc;
+
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.dbtools.query.shared.CompareType;
+import org.dbtools.query.shared.CompiledQuery;
+import org.dbtools.query.shared.Parameter;
+import org.dbtools.query.sql.DerbyQueryBuilder;
+import org.dbtools.query.sql.MysqlQueryBuilder;
+import org.dbtools.query.sql.OracleQueryBuilder;
+import org.dbtools.query.sql.SQLInsertBuilder;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class QueryExecutorTest {
+    private static final RowMapper<String> NAME_MAPPER = new RowMapper<String>() {
+        @Override
+        public String mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+            return resultSet.getString("NAME");
+        }
+    };
+
+    private static int databaseNumber;
+
+    private EmbeddedDataSource dataSource;
+    private QueryExecutor executor;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new EmbeddedDataSource();
+        dataSource.setDatabaseName("memory:QueryExecutorTest" + (databaseNumber++));
+        dataSource.setCreateDatabase("create");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE CAR (ID BIGINT PRIMARY KEY, NAME VARCHAR(32), WHEELS INT)");
+        }
+        executor = new QueryExecutor(dataSource, new DerbyQueryBuilder());
+
+        SQLInsertBuilder insert = new DerbyQueryBuilder().parameterize(true).insertInto("CAR");
+        insert.columns("ID", "NAME", "WHEELS");
+        insert.values(1L, "Civic", 4);
+        insert.values(2L, "Bus", 6);
+        insert.values(3L, "Truck", 18);
+        insert.values(4L, "Bike", 2);
+        assertEquals(4, executor.update(insert));
+    }
+
+    @After
+    public void tearDown() {
+        dataSource.setCreateDatabase(null);
+        dataSource.setConnectionAttributes("drop=true");
+        try {
+            dataSource.getConnection().close();
+        } catch (SQLException expected) {
+            // Derby reports a dropped database with an exception
+        }
+    }
+
+    @Test
+    public void testIterate() throws SQLException {
+        SQLQueryBuilder query = new DerbyQueryBuilder().parameterize(true);
+        query.table("CAR");
+        query.field("NAME");
+        query.filter("WHEELS", CompareType.GREATERTHAN, 3);
+        query.orderBy("ID");
+
+        List<String> names = new ArrayList<String>();
+        try (RowIterator<String> rows = executor.iterate(query, NAME_MAPPER)) {
+            while (rows.hasNext()) {
+                names.add(rows.next());
+            }
+            assertTrue(rows.isClosed());
+            assertEquals(3, rows.getRowCount());
+        }
+        assertEquals("[Civic, Bus, Truck]", names.toString());
+
+        // closed before reading every row
+        RowIterator<String> rows = executor.iterate(query, NAME_MAPPER);
+        assertEquals("Civic", rows.next());
+        rows.close();
+        assertFalse(rows.hasNext());
+    }
+
+    @Test
+    public void testQuery() throws SQLException {
+        SQLQueryBuilder query = new DerbyQueryBuilder();
+        query.table("CAR");
+        query.field("WHEELS");
+        query.filter("ID", Parameter.named("id"));
+        CompiledQuery compiled = query.compile();
+
+        final int[] wheels = new int[1];
+        RowCallback callback = new RowCallback() {
+            @Override
+            public void processRow(ResultSet resultSet) throws SQLException {
+                wheels[0] += resultSet.getInt(1);
+            }
+        };
+        assertEquals(1, executor.query(compiled, Collections.singletonMap("id", 3L), callback));
+        assertEquals(18, wheels[0]);
+        assertEquals(4, executor.query(new DerbyQueryBuilder().table("CAR").field("WHEELS"), callback));
+        assertEquals(48, wheels[0]);
+    }
+
+    @Test
+    public void testUpdate() throws SQLException {
+        assertEquals(2, executor.update(new DerbyQueryBuilder().parameterize(true).update("CAR")
+                .set("WHEELS", 3).filter("WHEELS", CompareType.LESSTHAN, 5)));
+        assertEquals(1, executor.update(new DerbyQueryBuilder().deleteFrom("CAR").filter("ID", 2L)));
+
+        List<String> names = new ArrayList<String>();
+        try (RowIterator<String> rows = executor.iterate(new DerbyQueryBuilder().table("CAR").filter("WHEELS", 3).orderBy("ID"), NAME_MAPPER)) {
+            while (rows.hasNext()) {
+                names.add(rows.next());
+            }
+        }
+        assertEquals("[Civic, Bike]", names.toString());
+    }
+
+    @Test
+    public void testColumnIndexes() throws SQLException {
+        ColumnIndexes columns = ColumnIndexes.of("ID", "CAR_NAME", "id");
+        assertEquals(1, columns.indexOf("id"));
+        assertEquals(2, columns.indexOf("Car_Name"));
+        assertFalse(columns.contains("WHEELS"));
+
+        RowMapperFactory<String> factory = new RowMapperFactory<String>() {
+            @Override
+            public RowMapper<String> create(ColumnIndexes columns) {
+                final int name = columns.indexOf("CAR_NAME");
+                final int wheels = columns.indexOf("WHEELS");
+                return new RowMapper<String>() {
+                    @Override
+                    public String mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+                        return resultSet.getString(name) + ":" + resultSet.getInt(wheels);
+                    }
+                };
+            }
+        };
+
+        SQLQueryBuilder query = new DerbyQueryBuilder();
+        query.table("CAR");
+        query.field("CAR.WHEELS");
+        query.field("NAME", "CAR_NAME");
+        query.filter("ID", 2L);
+        try (RowIterator<String> rows = executor.iterate(query, factory)) {
+            assertEquals("Bus:6", rows.next());
+        }
+
+        // SELECT *... the indexes are read from the result
+        SQLQueryBuilder all = new DerbyQueryBuilder().table("CAR").filter("ID", 3L);
+        try (RowIterator<String> rows = executor.iterate(all, new RowMapperFactory<String>() {
+            @Override
+            public RowMapper<String> create(ColumnIndexes columns) {
+                final int name = columns.indexOf("name");
+                return new RowMapper<String>() {
+                    @Override
+                    public String mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+                        return resultSet.getString(name);
+                    }
+                };
+            }
+        })) {
+            assertEquals("Truck", rows.next());
+        }
+    }
+
+    @Test
+    public void testFetchSize() {
+        assertEquals(0, executor.getFetchSize(new DerbyQueryBuilder()));
+        assertEquals(500, executor.getFetchSize(new OracleQueryBuilder()));
+        assertEquals(Integer.MIN_VALUE, executor.getFetchSize(new MysqlQueryBuilder()));
+        executor.fetchSize(100);
+        assertEquals(100, executor.getFetchSize(new OracleQueryBuilder()));
+    }
+}
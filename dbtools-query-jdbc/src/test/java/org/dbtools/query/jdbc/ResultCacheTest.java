@@ -0,0 +1,162 @@
+package org.dbtools.query.jdbc;
+
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.dbtools.query.shared.filter.CompareFilter;
+import org.dbtools.query.shared.filter.InFilter;
+import org.dbtools.query.shared.filter.RawFilter;
+import org.dbtools.query.sql.DerbyQueryBuilder;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ResultCacheTest {
+    private static final RowMapper<String> NAME_MAPPER = new RowMapper<String>() {
+        @Override
+        public String mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+            return resultSet.getString("NAME");
+        }
+    };
+
+    private static int databaseNumber;
+
+    private static RowMapper<String> column(final String column) {
+        return new RowMapper<String>() {
+            @Override
+            public String mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+                return resultSet.getString(column);
+            }
+        };
+    }
+
+    private EmbeddedDataSource dataSource;
+    private QueryExecutor executor;
+    private long now;
+    private ResultCache cache;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new EmbeddedDataSource();
+        dataSource.setDatabaseName("memory:ResultCacheTest" + (databaseNumber++));
+        dataSource.setCreateDatabase("create");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE STATUS (ID BIGINT PRIMARY KEY, NAME VARCHAR(32))");
+            statement.execute("CREATE TABLE CATEGORY (ID BIGINT PRIMARY KEY, NAME VARCHAR(32), STATUS_ID BIGINT)");
+            statement.execute("INSERT INTO STATUS VALUES (1, 'Active'), (2, 'Retired')");
+            statement.execute("INSERT INTO CATEGORY VALUES (1, 'Car', 1), (2, 'Bus', 2)");
+        }
+        executor = new QueryExecutor(dataSource, new DerbyQueryBuilder());
+        cache = new ResultCache(2, 1, TimeUnit.MINUTES, new LongSupplier() {
+            @Override
+            public long getAsLong() {
+                return now;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        dataSource.setCreateDatabase(null);
+        dataSource.setConnectionAttributes("drop=true");
+        try {
+            dataSource.getConnection().close();
+        } catch (SQLException expected) {
+            // Derby reports a dropped database with an exception
+        }
+    }
+
+    @Test
+    public void testCache() throws SQLException {
+        SQLQueryBuilder statuses = new DerbyQueryBuilder().parameterize(true).table("STATUS").field("NAME").filter("ID", 1L);
+        List<String> rows = cache.list(executor, statuses, NAME_MAPPER);
+        assertEquals(Arrays.asList("Active"), rows);
+        assertSame(rows, cache.list(executor, statuses, NAME_MAPPER));
+
+        // bound values are part of the key
+        assertEquals(Arrays.asList("Retired"), cache.list(executor, new DerbyQueryBuilder().parameterize(true).table("STATUS").field("NAME").filter("ID", 2L), NAME_MAPPER));
+        assertSame(rows, cache.list(executor, statuses, NAME_MAPPER));
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+
+        // least recently used is evicted
+        SQLQueryBuilder categories = new DerbyQueryBuilder().table("CATEGORY c").field("c.NAME").join("STATUS s", "s.ID", "c.STATUS_ID").orderBy("c.ID");
+        assertEquals(Arrays.asList("Car", "Bus"), cache.list(executor, categories, NAME_MAPPER));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+        assertSame(rows, cache.list(executor, statuses, NAME_MAPPER));
+
+        // expired
+        now += TimeUnit.MINUTES.toNanos(2);
+        cache.removeExpired();
+        assertEquals(0, cache.size());
+        assertEquals(3, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testRowMapperIsPartOfKey() throws SQLException {
+        // same class, different rows
+        RowMapper<String> names = column("NAME");
+        RowMapper<String> ids = column("ID");
+        SQLQueryBuilder statuses = new DerbyQueryBuilder().table("STATUS").field("ID").field("NAME").orderBy("ID");
+        assertEquals(Arrays.asList("Active", "Retired"), cache.list(executor, statuses, names));
+        assertEquals(Arrays.asList("1", "2"), cache.list(executor, statuses, ids));
+        assertEquals(Arrays.asList("Active", "Retired"), cache.list(executor, statuses, names));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void testInvalidate() throws SQLException {
+        SQLQueryBuilder statuses = new DerbyQueryBuilder().table("STATUS").field("NAME").orderBy("ID");
+        SQLQueryBuilder categories = new DerbyQueryBuilder().table("CATEGORY c").field("c.NAME").join("STATUS s", "s.ID", "c.STATUS_ID").orderBy("c.ID");
+        cache.list(executor, statuses, NAME_MAPPER);
+        cache.list(executor, categories, NAME_MAPPER);
+
+        cache.invalidate("Category");
+        assertEquals(1, cache.size());
+        cache.list(executor, categories, NAME_MAPPER);
+
+        // both read STATUS
+        cache.invalidate("app.status");
+        assertEquals(0, cache.size());
+
+        cache.list(executor, new DerbyQueryBuilder().table("CATEGORY").field("NAME"), NAME_MAPPER);
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testTables() {
+        assertEquals(new HashSet<String>(Arrays.asList("CATEGORY", "APP.STATUS", "STATUS")), ResultCache.getTables(
+                new DerbyQueryBuilder().table("Category c").join("app.Status s", "s.ID", "c.STATUS_ID")));
+        assertNull(ResultCache.getTables(new DerbyQueryBuilder().table(new DerbyQueryBuilder().table("STATUS"))));
+
+        // sub-queries in filters... the tables they read are not known
+        SQLQueryBuilder activeStatuses = new DerbyQueryBuilder().table("STATUS").field("ID").filter("NAME", "Active");
+        assertNull(ResultCache.getTables(new DerbyQueryBuilder().table("CATEGORY").filter(InFilter.create("STATUS_ID", activeStatuses))));
+        assertNull(ResultCache.getTables(new DerbyQueryBuilder().table("CATEGORY")
+                .filter(CompareFilter.create("NAME", "Car").or(InFilter.create("STATUS_ID", false, activeStatuses)))));
+        assertNull(ResultCache.getTables(new DerbyQueryBuilder().table("CATEGORY c")
+                .filter(RawFilter.create("EXISTS (select 1 FROM STATUS s WHERE s.ID = c.STATUS_ID)"))));
+        assertNull(ResultCache.getTables(new DerbyQueryBuilder().table("CATEGORY c")
+                .field("(SELECT NAME FROM STATUS s WHERE s.ID = c.STATUS_ID)", "STATUS_NAME")));
+        assertEquals(new HashSet<String>(Arrays.asList("CATEGORY")), ResultCache.getTables(new DerbyQueryBuilder().table("CATEGORY")
+                .filter(InFilter.create("STATUS_ID", Arrays.asList(1L, 2L))).filter(RawFilter.create("NAME <> 'Selected'"))));
+    }
+}
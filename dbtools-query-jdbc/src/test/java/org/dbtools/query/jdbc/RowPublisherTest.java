@@ -0,0 +1,194 @@
+package org.dbtools.query.jdbc;
+
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.dbtools.query.sql.DerbyQueryBuilder;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RowPublisherTest {
+    private static final RowMapper<Long> ID_MAPPER = new RowMapper<Long>() {
+        @Override
+        public Long mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+            return resultSet.getLong(1);
+        }
+    };
+
+    private static final RowMapper<Long> FETCH_SIZE_MAPPER = new RowMapper<Long>() {
+        @Override
+        public Long mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+            return (long) resultSet.getFetchSize();
+        }
+    };
+
+    private static int databaseNumber;
+
+    private EmbeddedDataSource dataSource;
+    private AsyncQueryExecutor executor;
+
+    @Before
+    public void setUp() throws SQLException {
+        dataSource = new EmbeddedDataSource();
+        dataSource.setDatabaseName("memory:RowPublisherTest" + (databaseNumber++));
+        dataSource.setCreateDatabase("create");
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE CAR (ID BIGINT PRIMARY KEY)");
+            }
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO CAR VALUES (?)")) {
+                for (long id = 1; id <= 100; id++) {
+                    insert.setLong(1, id);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+        executor = new AsyncQueryExecutor(new QueryExecutor(dataSource), 1);
+    }
+
+    @After
+    public void tearDown() {
+        executor.close();
+        dataSource.setCreateDatabase(null);
+        dataSource.setConnectionAttributes("drop=true");
+        try {
+            dataSource.getConnection().close();
+        } catch (SQLException expected) {
+            // Derby reports a dropped database with an exception
+        }
+    }
+
+    @Test
+    public void testBackpressure() throws InterruptedException {
+        SQLQueryBuilder query = new DerbyQueryBuilder().table("CAR").field("ID").orderBy("ID");
+        TestSubscriber all = new TestSubscriber(7, -1);
+        executor.publish(query, ID_MAPPER).subscribe(all);
+        assertTrue(all.done.await(10, TimeUnit.SECONDS));
+        assertNull(all.error);
+        assertEquals(100, all.rows.size());
+        assertEquals(Long.valueOf(100), all.rows.get(99));
+        assertEquals(1, executor.getAvailablePermits());
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        SQLQueryBuilder query = new DerbyQueryBuilder().table("CAR").field("ID").orderBy("ID");
+        TestSubscriber first = new TestSubscriber(5, 12);
+        executor.publish(query, ID_MAPPER).subscribe(first);
+        assertTrue(first.done.await(10, TimeUnit.SECONDS));
+        assertNull(first.error);
+        assertEquals(12, first.rows.size());
+
+        // the permit (and connection) is released when the cancel is seen... the next query runs
+        TestSubscriber second = new TestSubscriber(Long.MAX_VALUE, -1);
+        executor.publish(query, ID_MAPPER).subscribe(second);
+        assertTrue(second.done.await(10, TimeUnit.SECONDS));
+        assertEquals(100, second.rows.size());
+    }
+
+    @Test
+    public void testFetchSize() throws InterruptedException {
+        SQLQueryBuilder query = new DerbyQueryBuilder().table("CAR").field("ID").orderBy("ID");
+
+        // one row at a time still fetches MIN_DEMAND_FETCH_SIZE rows per round trip
+        TestSubscriber oneAtATime = new TestSubscriber(1, 3);
+        executor.publish(query, FETCH_SIZE_MAPPER).subscribe(oneAtATime);
+        assertTrue(oneAtATime.done.await(10, TimeUnit.SECONDS));
+        assertNull(oneAtATime.error);
+        assertEquals(Long.valueOf(RowPublisher.MIN_DEMAND_FETCH_SIZE), oneAtATime.rows.get(2));
+
+        TestSubscriber unbounded = new TestSubscriber(Long.MAX_VALUE, -1);
+        executor.publish(query, FETCH_SIZE_MAPPER).subscribe(unbounded);
+        assertTrue(unbounded.done.await(10, TimeUnit.SECONDS));
+        assertEquals(Long.valueOf(RowPublisher.MAX_DEMAND_FETCH_SIZE), unbounded.rows.get(0));
+
+        // the fetch size of the dialect (or executor) is the upper bound
+        AsyncQueryExecutor smallFetches = new AsyncQueryExecutor(new QueryExecutor(dataSource).fetchSize(20), 1);
+        try {
+            TestSubscriber limited = new TestSubscriber(1, 3);
+            smallFetches.publish(query, FETCH_SIZE_MAPPER).subscribe(limited);
+            assertTrue(limited.done.await(10, TimeUnit.SECONDS));
+            assertEquals(Long.valueOf(20), limited.rows.get(2));
+        } finally {
+            smallFetches.close();
+        }
+    }
+
+    @Test
+    public void testError() throws InterruptedException {
+        TestSubscriber subscriber = new TestSubscriber(10, -1);
+        executor.publish(new DerbyQueryBuilder().table("NO_SUCH_TABLE"), ID_MAPPER).subscribe(subscriber);
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof SQLException);
+        assertEquals(1, executor.getAvailablePermits());
+    }
+
+    /**
+     * Requests batchSize rows at a time, cancels once cancelAfter rows were read (-1 to read every row)
+     */
+    private static class TestSubscriber implements Flow.Subscriber<Long> {
+        private final long batchSize;
+        private final int cancelAfter;
+        private final List<Long> rows = new ArrayList<Long>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+        private long outstanding;
+        private volatile Throwable error;
+
+        TestSubscriber(long batchSize, int cancelAfter) {
+            this.batchSize = batchSize;
+            this.cancelAfter = cancelAfter;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            outstanding = batchSize;
+            subscription.request(batchSize);
+        }
+
+        @Override
+        public void onNext(Long id) {
+            if (outstanding <= 0) {
+                error = new AssertionError("More rows than requested");
+            }
+            rows.add(id);
+            if (rows.size() == cancelAfter) {
+                subscription.cancel();
+                done.countDown();
+                return;
+            }
+            if (batchSize != Long.MAX_VALUE && --outstanding == 0) {
+                outstanding = batchSize;
+                subscription.request(batchSize);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
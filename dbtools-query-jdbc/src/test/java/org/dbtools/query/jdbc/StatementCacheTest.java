@@ -0,0 +1,241 @@
+package org.dbtools.query.jdbc;
+
+import org.apache.derby.jdbc.EmbeddedDataSource;
+import org.dbtools.query.sql.DerbyQueryBuilder;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class StatementCacheTest {
+    private static int databaseNumber;
+
+    private EmbeddedDataSource derby;
+    private Connection connection;
+
+    @Before
+    public void setUp() throws SQLException {
+        derby = new EmbeddedDataSource();
+        derby.setDatabaseName("memory:StatementCacheTest" + (databaseNumber++));
+        derby.setCreateDatabase("create");
+        connection = derby.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE CAR (ID BIGINT PRIMARY KEY, NAME VARCHAR(32))");
+            statement.execute("INSERT INTO CAR VALUES (1, 'Civic'), (2, 'Bus')");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+        derby.setCreateDatabase(null);
+        derby.setConnectionAttributes("drop=true");
+        try {
+            derby.getConnection().close();
+        } catch (SQLException expected) {
+            // Derby reports a dropped database with an exception
+        }
+    }
+
+    @Test
+    public void testPrepareAndRelease() throws SQLException {
+        StatementCache cache = new StatementCache(connection, 2);
+        PreparedStatement statement = cache.prepare("SELECT NAME FROM CAR WHERE ID = ?");
+        cache.release(statement);
+        assertEquals(1, cache.size());
+        assertSame(statement, cache.prepare("SELECT NAME FROM CAR WHERE ID = ?"));
+        assertEquals(1, cache.getStats().getHitCount());
+        assertEquals(1, cache.getStats().getMissCount());
+
+        // checked out... the same SQL is prepared again and the extra statement is closed when released
+        PreparedStatement second = cache.prepare("SELECT NAME FROM CAR WHERE ID = ?");
+        assertNotSame(statement, second);
+        cache.release(statement);
+        cache.release(second);
+        assertTrue(second.isClosed());
+        assertFalse(statement.isClosed());
+
+        // least recently used statement is evicted
+        cache.release(cache.prepare("SELECT ID FROM CAR"));
+        cache.release(cache.prepare("SELECT * FROM CAR"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getStats().getEvictionCount());
+        assertTrue(statement.isClosed());
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testQueryExecutor() throws SQLException {
+        QueryExecutor executor = new QueryExecutor(new PooledDataSource(connection, true)).statementCacheSize(10);
+        SQLQueryBuilder query = new DerbyQueryBuilder().parameterize(true).table("CAR").field("NAME").filter("ID", 2L);
+        for (int i = 0; i < 3; i++) {
+            try (RowIterator<String> names = executor.iterate(query, new RowMapper<String>() {
+                @Override
+                public String mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+                    return resultSet.getString(1);
+                }
+            })) {
+                assertEquals("Bus", names.next());
+                assertFalse(names.hasNext());
+            }
+        }
+        assertEquals(1, executor.update(new DerbyQueryBuilder().parameterize(true).deleteFrom("CAR").filter("ID", 1L)));
+
+        StatementCacheStats stats = executor.getStatementCacheStats();
+        assertEquals(2, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(0, stats.getEvictionCount());
+
+        assertEquals(1, executor.getStatementCacheCount());
+        executor.clearStatementCaches();
+        assertEquals(0, executor.getStatementCacheCount());
+        assertFalse(connection.isClosed());
+    }
+
+    @Test
+    public void testPhysicalConnection() throws SQLException {
+        SQLQueryBuilder query = new DerbyQueryBuilder().parameterize(true).table("CAR").field("NAME").filter("ID", 2L);
+
+        // the wrappers of this pool unwrap to themselves... each checkout gets a new cache, removed when it is closed
+        QueryExecutor unwrapping = new QueryExecutor(new PooledDataSource(connection, false)).statementCacheSize(10);
+        assertEquals(Arrays.asList("Bus", "Bus"), Arrays.asList(first(unwrapping, query), first(unwrapping, query)));
+        assertEquals(0, unwrapping.getStatementCacheStats().getHitCount());
+        assertEquals(0, unwrapping.getStatementCacheCount());
+
+        QueryExecutor executor = new QueryExecutor(new PooledDataSource(connection, false)).statementCacheSize(10)
+                .physicalConnection(new Function<Connection, Connection>() {
+                    @Override
+                    public Connection apply(Connection pooled) {
+                        return connection;
+                    }
+                });
+        assertEquals(Arrays.asList("Bus", "Bus"), Arrays.asList(first(executor, query), first(executor, query)));
+        assertEquals(1, executor.getStatementCacheStats().getHitCount());
+        assertEquals(1, executor.getStatementCacheCount());
+        executor.clearStatementCaches();
+    }
+
+    @Test
+    public void testClosedConnectionsAreRemoved() throws SQLException {
+        // no pool... each call closes its (physical) connection
+        QueryExecutor executor = new QueryExecutor(derby).statementCacheSize(10);
+        SQLQueryBuilder query = new DerbyQueryBuilder().parameterize(true).table("CAR").field("NAME").filter("ID", 2L);
+        assertEquals("Bus", first(executor, query));
+        assertEquals(1, executor.update(new DerbyQueryBuilder().parameterize(true).deleteFrom("CAR").filter("ID", 1L)));
+        assertEquals(0, executor.getStatementCacheCount());
+    }
+
+    private static String first(QueryExecutor executor, SQLQueryBuilder query) throws SQLException {
+        try (RowIterator<String> names = executor.iterate(query, new RowMapper<String>() {
+            @Override
+            public String mapRow(ResultSet resultSet, int rowNumber) throws SQLException {
+                return resultSet.getString(1);
+            }
+        })) {
+            return names.next();
+        }
+    }
+
+    /**
+     * Hands out the same connection in a new wrapper each time, like a connection pool
+     */
+    private static class PooledDataSource implements DataSource {
+        private final Connection connection;
+        private final boolean unwrapToPhysical;
+
+        /**
+         * @param unwrapToPhysical true if unwrap() returns the physical connection, false if it returns the wrapper
+         */
+        PooledDataSource(Connection connection, boolean unwrapToPhysical) {
+            this.connection = connection;
+            this.unwrapToPhysical = unwrapToPhysical;
+        }
+
+        @Override
+        public Connection getConnection() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, new InvocationHandler() {
+                private boolean closed;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    if (method.getName().equals("close")) {
+                        closed = true;
+                        return null;
+                    } else if (method.getName().equals("isClosed")) {
+                        return closed;
+                    } else if (method.getName().equals("isWrapperFor")) {
+                        return true;
+                    } else if (method.getName().equals("unwrap")) {
+                        return unwrapToPhysical ? connection : proxy;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) {
+            return getConnection();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getGlobal();
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> type) throws SQLException {
+            throw new SQLException("Not a wrapper");
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> type) {
+            return false;
+        }
+    }
+}
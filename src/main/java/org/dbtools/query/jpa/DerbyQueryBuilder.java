@@ -9,12 +9,30 @@ package org.dbtools.query.jpa;
 
 import org.dbtools.query.shared.DerbyUtil;
 
+import javax.annotation.Nonnull;
+
 /**
  *
  * @author Jeff
  */
 public class DerbyQueryBuilder extends JPAQueryBuilder {
 
+    public DerbyQueryBuilder() {
+    }
+
+    protected DerbyQueryBuilder(@Nonnull DerbyQueryBuilder source) {
+        super(source);
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public DerbyQueryBuilder clone() {
+        if (getClass() != DerbyQueryBuilder.class) {
+            return (DerbyQueryBuilder) cloneSubclass();
+        }
+        return new DerbyQueryBuilder(this);
+    }
+
     @Override
     public String formatIgnoreCaseLikeClause(String column, String value) {
         return DerbyUtil.formatIgnoreCaseLikeClause(column, value);
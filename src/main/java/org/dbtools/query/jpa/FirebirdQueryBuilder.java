@@ -9,12 +9,30 @@ package org.dbtools.query.jpa;
 
 import org.dbtools.query.shared.FirebirdUtil;
 
+import javax.annotation.Nonnull;
+
 /**
  *
  * @author Jeff
  */
 public class FirebirdQueryBuilder extends JPAQueryBuilder {
 
+    public FirebirdQueryBuilder() {
+    }
+
+    protected FirebirdQueryBuilder(@Nonnull FirebirdQueryBuilder source) {
+        super(source);
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public FirebirdQueryBuilder clone() {
+        if (getClass() != FirebirdQueryBuilder.class) {
+            return (FirebirdQueryBuilder) cloneSubclass();
+        }
+        return new FirebirdQueryBuilder(this);
+    }
+
     @Override
     public String formatIgnoreCaseLikeClause(String column, String value) {
         return FirebirdUtil.formatIgnoreCaseLikeClause(column, value);
@@ -9,16 +9,23 @@
  */
 package org.dbtools.query.jpa;
 
+import org.dbtools.query.shared.BindingQueryBuilder;
 import org.dbtools.query.shared.CompareType;
+import org.dbtools.query.shared.CompiledQuery;
 import org.dbtools.query.shared.Join;
 import org.dbtools.query.shared.JoinType;
+import org.dbtools.query.shared.ParameterStyle;
 import org.dbtools.query.shared.QueryBuilder;
+import org.dbtools.query.shared.QueryCache;
 import org.dbtools.query.shared.QueryUtil;
 import org.dbtools.query.shared.filter.AndFilter;
 import org.dbtools.query.shared.filter.CompareFilter;
 import org.dbtools.query.shared.filter.Filter;
 import org.dbtools.query.shared.filter.RawFilter;
 
+import javax.annotation.Nonnull;
+import javax.persistence.Query;
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -33,7 +40,7 @@ public class JPAQueryBuilder<T> extends QueryBuilder implements Cloneable {
 
     public static final String DEFAULT_QUERY_PARAMETER = "?";
 
-    // NOTE: if any NEW variables are added BE SURE TO PUT IT INTO THE clone() method
+    // NOTE: if any NEW variables are added BE SURE TO PUT IT INTO THE copy constructor
     private Boolean distinct = false;
     private List<Field> fields;
     private List<String> objects;
@@ -43,51 +50,80 @@ public class JPAQueryBuilder<T> extends QueryBuilder implements Cloneable {
     private List<String> groupBys;
     private Filter having;
     private List<String> orderBys;
-    private String selectClause;
-    private String postSelectClause;
     private String queryParameter = DEFAULT_QUERY_PARAMETER;
+    private ParameterStyle parameterStyle = ParameterStyle.QUESTION_MARK;
+    private int limit = -1; // max results (-1: no limit)
+    private int offset = 0;
 
     public JPAQueryBuilder() {
         reset();
     }
 
-    @Override
-    public JPAQueryBuilder<T> clone() {
-        Class thisClass = this.getClass();
-
-        JPAQueryBuilder clone;
-        try {
-            clone = (JPAQueryBuilder) thisClass.newInstance();
-        } catch (Exception e) {
-            throw new IllegalStateException("Could not clone QueryBuilder", e);
-        }
+    /**
+     * Copy constructor (used by clone()).  Subclasses should provide their own copy constructor and override clone()
+     * (see cloneSubclass()).
+     */
+    protected JPAQueryBuilder(@Nonnull JPAQueryBuilder<T> source) {
+        copy(source);
+    }
 
+    private void copy(JPAQueryBuilder<T> source) {
         // mutable.... create new objects!
-        clone.distinct = this.distinct;
-        clone.fields = new ArrayList<Field>(fields);
-        clone.objects = new ArrayList<String>(objects);
-        clone.varNames = new ArrayList<String>(varNames);
+        distinct = source.distinct;
+        fields = new ArrayList<Field>(source.fields);
+        objects = new ArrayList<String>(source.objects);
+        varNames = new ArrayList<String>(source.varNames);
 
-        clone.joins = new ArrayList<Join>(this.joins);
+        joins = new ArrayList<Join>(source.joins);
 
-        if (this.filter != null) {
-            clone.filter = this.filter.clone();
+        if (source.filter != null) {
+            filter = source.filter.clone();
         }
 
-        clone.groupBys = new ArrayList<String>(groupBys);
-        if (this.having != null) {
-            clone.having = this.having.clone();
+        groupBys = new ArrayList<String>(source.groupBys);
+        if (source.having != null) {
+            having = source.having.clone();
         }
 
-        clone.orderBys = new ArrayList<String>(orderBys);
+        orderBys = new ArrayList<String>(source.orderBys);
 
         // immutable.... just assign
-        clone.selectClause = selectClause;
-        clone.postSelectClause = postSelectClause;
+        queryParameter = source.queryParameter;
+        parameterStyle = source.parameterStyle;
+        limit = source.limit;
+        offset = source.offset;
+
+        internalVarUsed = source.internalVarUsed;
+        objectMap = new HashMap<String, String>(source.objectMap);
+    }
 
-        clone.internalVarUsed = internalVarUsed;
-        clone.objectMap = new HashMap<String, String>(objectMap);
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public JPAQueryBuilder<T> clone() {
+        if (getClass() != JPAQueryBuilder.class) {
+            return cloneSubclass();
+        }
+        return new JPAQueryBuilder<T>(this);
+    }
 
+    /**
+     * Clone of a subclass that does not override clone(): a new instance (made with its no-argument constructor)
+     * holding a copy of the state of this class... the state of the subclass itself is not copied.
+     *
+     * @throws IllegalStateException if the subclass has no no-argument constructor (such as an anonymous class that
+     *                               is declared in an instance method), it must override clone()
+     */
+    @SuppressWarnings("unchecked")
+    protected JPAQueryBuilder<T> cloneSubclass() {
+        JPAQueryBuilder<T> clone;
+        try {
+            Constructor<?> constructor = getClass().getDeclaredConstructor();
+            constructor.setAccessible(true);
+            clone = (JPAQueryBuilder<T>) constructor.newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not clone " + getClass().getName() + ": override clone() with a copy constructor", e);
+        }
+        clone.copy(this);
         return clone;
     }
 
@@ -100,9 +136,6 @@ public class JPAQueryBuilder<T> extends QueryBuilder implements Cloneable {
         filter = null;
         groupBys = new ArrayList<String>();
         orderBys = new ArrayList<String>();
-
-        selectClause = "";
-        postSelectClause = "";
     }
 
     public JPAQueryBuilder apply(JPAQueryBuilder<T> queryBuilder) {
@@ -394,48 +427,79 @@ public class JPAQueryBuilder<T> extends QueryBuilder implements Cloneable {
         return buildQuery(false);
     }
 
+    /**
+     * Renders the query.  Rendering does not change this builder, so a builder that is no longer being
+     * changed can be rendered by any number of threads at the same time.
+     */
     public String buildQuery(boolean countOnly) {
-        selectClause = "";
-        postSelectClause = "";
+        if (parameterStyle != ParameterStyle.QUESTION_MARK || getQueryCache() != null) {
+            return compile(countOnly).getQuery();
+        }
 
-        StringBuilder query = new StringBuilder("SELECT ");
+        StringBuilder builder = new StringBuilder(estimateQueryLength());
+        appendQuery(builder, countOnly, this);
+        return builder.toString();
+    }
 
-        if (distinct) {
-            query.append("DISTINCT ");
-        }
+    @Override
+    public void appendQuery(StringBuilder builder) {
+        appendQuery(builder, false, parameterStyle == ParameterStyle.QUESTION_MARK ? this : newBindingQueryBuilder());
+    }
+
+    @Override
+    public void appendQuery(StringBuilder builder, QueryBuilder formatter) {
+        appendQuery(builder, false, formatter);
+    }
+
+    private BindingQueryBuilder newBindingQueryBuilder() {
+        return new BindingQueryBuilder(this, false, parameterStyle);
+    }
+
+    /**
+     * Renders the select and post-select sections into the given builder.
+     *
+     * @param formatter formats the values of the filters (this builder, or a BindingQueryBuilder)
+     * @return length of the select section
+     */
+    private int appendQuery(StringBuilder query, boolean countOnly, QueryBuilder formatter) {
+        int start = query.length();
+        query.append("SELECT ");
 
         // fields
         if (countOnly) {
-            query.append("count(*)");
+            appendCount(query);
         } else {
+            if (distinct) {
+                query.append("DISTINCT ");
+            }
+
             if (fields.size() > 0) {
                 addListItems(query, fields, 0);
             } else {
                 if (objects.size() == 1) {
-                    List<Field> tempFields = new ArrayList<Field>();
-                    tempFields.add(new Field(varNames.get(0)));
-                    addListItems(query, tempFields, 0);
+                    query.append(varNames.get(0));
                 } else {
                     throw new IllegalStateException("There must be at least 1 field if there is more than 1 object");
                 }
             }
         }
 
-        // save select portion
-        selectClause = query.toString();
+        // end of select portion
+        int selectLength = query.length() - start;
 
         // table names
-        query = new StringBuilder();
         query.append(" FROM ");
         addListItems(query, objects, 0);
 
         for(Join join : joins) {
-            query.append(" ").append(join.buildJoin(this));
+            query.append(' ');
+            join.appendTo(formatter, query);
         }
 
         // add filters
         if (filter != null) {
-            query.append(" WHERE ").append(filter.buildFilter(this));
+            query.append(" WHERE ");
+            filter.appendTo(formatter, query);
         }
 
         int groupBySectionCount = 0;
@@ -444,7 +508,8 @@ public class JPAQueryBuilder<T> extends QueryBuilder implements Cloneable {
             query.append(" GROUP BY ");
             addListItems(query, groupBys, groupBySectionCount);
             if (having != null) {
-                query.append(" HAVING ").append(having.buildFilter(this));
+                query.append(" HAVING ");
+                having.appendTo(formatter, query);
             }
         }
 
@@ -455,9 +520,109 @@ public class JPAQueryBuilder<T> extends QueryBuilder implements Cloneable {
             addListItems(query, orderBys, orderBySectionCount);
         }
 
-        postSelectClause = query.toString();
+        return selectLength;
+    }
+
+    /**
+     * JPQL does not allow a sub-query in FROM, so a DISTINCT query is counted with count(DISTINCT ...) on its
+     * only selected item (instead of "SELECT DISTINCT count(*)", which counts every row).
+     */
+    private void appendCount(StringBuilder query) {
+        if (!distinct) {
+            query.append("count(*)");
+            return;
+        }
+
+        query.append("count(DISTINCT ");
+        if (fields.size() == 1) {
+            query.append(fields.get(0).name);
+        } else if (fields.isEmpty() && objects.size() == 1) {
+            query.append(varNames.get(0));
+        } else {
+            throw new IllegalStateException("A DISTINCT query can only be counted if it selects 1 field (or 1 object)");
+        }
+        query.append(')');
+    }
+
+    /**
+     * Rough size of the rendered query so the buffer does not have to grow for typical queries.
+     */
+    private int estimateQueryLength() {
+        int sectionItems = fields.size() + objects.size() + groupBys.size() + orderBys.size();
+        return 64 + (sectionItems * 24) + (joins.size() * 64) + (filter != null ? 64 : 0) + (having != null ? 32 : 0);
+    }
+
+    /**
+     * Renders this query once into an immutable CompiledQuery that can be shared and reused
+     * without walking the builder again.  The CompiledQuery holds both the select and post-select parts.
+     * Like buildQuery(), this does not change the builder and is safe to call from several threads.
+     */
+    public CompiledQuery compile() {
+        return compile(false);
+    }
+
+    public CompiledQuery compile(boolean countOnly) {
+        QueryCache cache = getQueryCache();
+        return cache != null ? cache.compile(this, countOnly) : render(countOnly);
+    }
 
-        return selectClause + postSelectClause;
+    @Override
+    protected CompiledQuery render(boolean countOnly) {
+        BindingQueryBuilder binder = newBindingQueryBuilder();
+        StringBuilder builder = new StringBuilder(estimateQueryLength());
+        int selectClauseLength = appendQuery(builder, countOnly, binder);
+        return binder.compile(builder.toString(), selectClauseLength);
+    }
+
+    /**
+     * Structural equality: builders are equal when they are the same dialect and all sections are equal
+     * (they render the same query).  Builders are mutable, so the hash is not cached.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        JPAQueryBuilder<?> that = (JPAQueryBuilder<?>) o;
+        return QueryUtil.valueEquals(distinct, that.distinct)
+                && QueryUtil.valueEquals(fields, that.fields)
+                && QueryUtil.valueEquals(objects, that.objects)
+                && QueryUtil.valueEquals(varNames, that.varNames)
+                && QueryUtil.valueEquals(joins, that.joins)
+                && QueryUtil.valueEquals(filter, that.filter)
+                && QueryUtil.valueEquals(groupBys, that.groupBys)
+                && QueryUtil.valueEquals(having, that.having)
+                && QueryUtil.valueEquals(orderBys, that.orderBys)
+                && QueryUtil.valueEquals(queryParameter, that.queryParameter)
+                && parameterStyle == that.parameterStyle
+                && limit == that.limit
+                && offset == that.offset
+                && internalVarUsed == that.internalVarUsed
+                && QueryUtil.valueEquals(objectMap, that.objectMap);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = getClass().getName().hashCode();
+        result = 31 * result + QueryUtil.valueHashCode(distinct);
+        result = 31 * result + QueryUtil.valueHashCode(fields);
+        result = 31 * result + QueryUtil.valueHashCode(objects);
+        result = 31 * result + QueryUtil.valueHashCode(varNames);
+        result = 31 * result + QueryUtil.valueHashCode(joins);
+        result = 31 * result + QueryUtil.valueHashCode(filter);
+        result = 31 * result + QueryUtil.valueHashCode(groupBys);
+        result = 31 * result + QueryUtil.valueHashCode(having);
+        result = 31 * result + QueryUtil.valueHashCode(orderBys);
+        result = 31 * result + QueryUtil.valueHashCode(queryParameter);
+        result = 31 * result + parameterStyle.hashCode();
+        result = 31 * result + limit;
+        result = 31 * result + offset;
+        result = 31 * result + (internalVarUsed ? 1 : 0);
+        result = 31 * result + QueryUtil.valueHashCode(objectMap);
+        return result;
     }
 
     @Override
@@ -513,6 +678,23 @@ public class JPAQueryBuilder<T> extends QueryBuilder implements Cloneable {
 
             return fieldStr;
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Field field = (Field) o;
+            return QueryUtil.valueEquals(name, field.name) && QueryUtil.valueEquals(alias, field.alias);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * QueryUtil.valueHashCode(name) + QueryUtil.valueHashCode(alias);
+        }
     }
 
     private static int filterParamCount = 0;
@@ -527,24 +709,22 @@ public class JPAQueryBuilder<T> extends QueryBuilder implements Cloneable {
         return formatLikeClause(column, value);
     }
 
-    /** Getter for property selectClause.
-     * @return Value of property selectClause.
+    /**
+     * Renders the query and returns the select portion (use compile() to get both portions from one render).
      *
+     * @return select portion of the query
      */
     public java.lang.String getSelectClause() {
-        if (selectClause.length() == 0) {
-            buildQuery();
-        }
-
-        return selectClause;
+        return compile().getSelectClause();
     }
 
-    /** Getter for property postSelectClause.
-     * @return Value of property postSelectClause.
+    /**
+     * Renders the query and returns everything after the select portion (use compile() to get both portions from one render).
      *
+     * @return post-select portion of the query
      */
     public java.lang.String getPostSelectClause() {
-        return postSelectClause;
+        return compile().getPostSelectClause();
     }
 
     @Override
@@ -591,6 +771,71 @@ public class JPAQueryBuilder<T> extends QueryBuilder implements Cloneable {
         this.queryParameter = queryParameter;
     }
 
+    /**
+     * Sets how query parameters are written (NUMBERED_QUESTION_MARK for ?1, ?2... or NAMED for :name).
+     * Query parameters (such as "?" used as a filter value or a Parameter) are numbered in the order they are
+     * rendered, and the position of each named Parameter is available from the CompiledQuery.
+     * Query parameters written in raw JPQL (such as RawFilter) are only supported with QUESTION_MARK.
+     */
+    public JPAQueryBuilder<T> parameterStyle(@Nonnull ParameterStyle parameterStyle) {
+        this.parameterStyle = parameterStyle;
+        return this;
+    }
+
+    public ParameterStyle getParameterStyle() {
+        return parameterStyle;
+    }
+
+    /**
+     * @return JPQL positional parameters (?1, ?2, ...)
+     */
+    public ParameterStyle getNativeParameterStyle() {
+        return ParameterStyle.NUMBERED_QUESTION_MARK;
+    }
+
+    /**
+     * Max number of results.  JPQL has no LIMIT, so it is applied to the javax.persistence.Query (see applyLimit()).
+     *
+     * @param limit max number of results (-1 for no limit)
+     */
+    public JPAQueryBuilder<T> limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Number of results to skip, applied to the javax.persistence.Query (see applyLimit()).
+     */
+    public JPAQueryBuilder<T> offset(int offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * @return max number of results (-1 if there is no limit)
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Sets the first result and max results of the query (created from this query) to the offset and limit of this builder.
+     * The JPA provider renders them for its database.
+     */
+    public <Q extends Query> Q applyLimit(@Nonnull Q query) {
+        if (offset > 0) {
+            query.setFirstResult(offset);
+        }
+        if (limit >= 0) {
+            query.setMaxResults(limit);
+        }
+        return query;
+    }
+
     public boolean isDistinct() {
         return distinct;
     }
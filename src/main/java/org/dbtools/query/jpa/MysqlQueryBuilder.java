@@ -10,12 +10,30 @@ package org.dbtools.query.jpa;
 
 import org.dbtools.query.shared.QueryUtil;
 
+import javax.annotation.Nonnull;
+
 /**
  *
  * @author Jeff
  */
 public class MysqlQueryBuilder extends JPAQueryBuilder {
 
+    public MysqlQueryBuilder() {
+    }
+
+    protected MysqlQueryBuilder(@Nonnull MysqlQueryBuilder source) {
+        super(source);
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public MysqlQueryBuilder clone() {
+        if (getClass() != MysqlQueryBuilder.class) {
+            return (MysqlQueryBuilder) cloneSubclass();
+        }
+        return new MysqlQueryBuilder(this);
+    }
+
     @Override
     public String formatLikeClause(String column, String value) {
         return QueryUtil.formatLikeClause(column, value);
@@ -5,14 +5,44 @@
  */
 package org.dbtools.query.jpa;
 
+import org.dbtools.query.shared.InListStrategy;
+import org.dbtools.query.shared.InListValues;
 import org.dbtools.query.shared.OracleUtil;
 
+import javax.annotation.Nonnull;
+
 /**
  *
  * @author jeff
  */
 public class OracleQueryBuilder extends JPAQueryBuilder {
 
+    public static final int MAX_IN_LIST_SIZE = 1000;
+
+    public OracleQueryBuilder() {
+    }
+
+    protected OracleQueryBuilder(@Nonnull OracleQueryBuilder source) {
+        super(source);
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public OracleQueryBuilder clone() {
+        if (getClass() != OracleQueryBuilder.class) {
+            return (OracleQueryBuilder) cloneSubclass();
+        }
+        return new OracleQueryBuilder(this);
+    }
+
+    /**
+     * Oracle allows at most 1000 expressions in an IN list (ORA-01795)
+     */
+    @Override
+    protected InListStrategy getInListStrategy(InListValues values, boolean bindingValues) {
+        return InListStrategy.chunked(MAX_IN_LIST_SIZE);
+    }
+
     @Override
     public String formatIgnoreCaseLikeClause(String column, String value) {
         return OracleUtil.formatIgnoreCaseLikeClauseJPA(column, value);
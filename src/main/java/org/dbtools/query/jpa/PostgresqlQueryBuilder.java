@@ -10,12 +10,30 @@ package org.dbtools.query.jpa;
 
 import org.dbtools.query.shared.PostgresqlUtil;
 
+import javax.annotation.Nonnull;
+
 /**
  *
  * @author Jeff
  */
 public class PostgresqlQueryBuilder extends JPAQueryBuilder {
 
+    public PostgresqlQueryBuilder() {
+    }
+
+    protected PostgresqlQueryBuilder(@Nonnull PostgresqlQueryBuilder source) {
+        super(source);
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public PostgresqlQueryBuilder clone() {
+        if (getClass() != PostgresqlQueryBuilder.class) {
+            return (PostgresqlQueryBuilder) cloneSubclass();
+        }
+        return new PostgresqlQueryBuilder(this);
+    }
+
     @Override
     public String formatIgnoreCaseLikeClause(String column, String value) {
         return PostgresqlUtil.formatIgnoreCaseLikeClause(column, value);
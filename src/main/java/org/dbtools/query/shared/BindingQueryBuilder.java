@@ -0,0 +1,191 @@
+package org.dbtools.query.shared;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Formats one render of a query: writes each query parameter in the ParameterStyle of the query (numbering them
+ * in order) and keeps track of where each one was written and its name.  If values are parameterized, each literal
+ * value is replaced with a query parameter and collected (in order) so that it can be bound to the statement.
+ * Everything else is formatted by the query builder being rendered.
+ *
+ * Strings are not literals... they are SQL (such as "'Ford'" or a column name) and are written as is, except for
+ * the query parameter of the builder ("?"), which is written as an unnamed query parameter.  Strings that are data
+ * (see appendString()) are literals.
+ * Query parameters inside raw SQL (such as a RawFilter) are not numbered or tracked.
+ */
+public final class BindingQueryBuilder extends QueryBuilder {
+
+    private final QueryBuilder queryBuilder;
+    private final boolean parameterizeValues;
+    private final ParameterStyle parameterStyle;
+    private final Bindings values = new Bindings();
+
+    // one entry for each query parameter written by this builder
+    private int parameterCount = 0;
+    private int[] starts = new int[8];
+    private int[] ends = new int[8];
+    private String[] names = new String[8];
+    private int[] valueIndexes = new int[8]; // index in values, -1 if the query parameter has no value
+
+    /**
+     * @param queryBuilder builder being rendered (formats everything except query parameters)
+     * @param parameterizeValues true to replace literal values with query parameters
+     */
+    public BindingQueryBuilder(@Nonnull QueryBuilder queryBuilder, boolean parameterizeValues, @Nonnull ParameterStyle parameterStyle) {
+        this.queryBuilder = queryBuilder;
+        this.parameterizeValues = parameterizeValues;
+        this.parameterStyle = parameterStyle;
+    }
+
+    @Override
+    public void appendValue(StringBuilder builder, Object value) {
+        if (value instanceof Parameter) {
+            appendParameter(builder, ((Parameter) value).getName());
+        } else if (value instanceof String && value.equals(queryBuilder.getQueryParameter())) {
+            appendParameter(builder, null);
+        } else if (!parameterizeValues || value == null || value instanceof String || value instanceof SQL || value instanceof QueryBuilder) {
+            queryBuilder.appendValue(builder, value);
+        } else {
+            values.add(queryBuilder.formatValue(value));
+            writeParameter(builder, null, values.size() - 1);
+        }
+    }
+
+    @Override
+    public void appendValue(StringBuilder builder, long value) {
+        if (parameterizeValues) {
+            values.addLong(value);
+            writeParameter(builder, null, values.size() - 1);
+        } else {
+            queryBuilder.appendValue(builder, value);
+        }
+    }
+
+    @Override
+    public void appendValue(StringBuilder builder, int value) {
+        if (parameterizeValues) {
+            values.addInt(value);
+            writeParameter(builder, null, values.size() - 1);
+        } else {
+            queryBuilder.appendValue(builder, value);
+        }
+    }
+
+    @Override
+    public void appendString(StringBuilder builder, String value) {
+        if (parameterizeValues) {
+            values.addString(value);
+            writeParameter(builder, null, values.size() - 1);
+        } else {
+            queryBuilder.appendString(builder, value);
+        }
+    }
+
+    @Override
+    public void appendParameter(StringBuilder builder, String name) {
+        writeParameter(builder, name, -1);
+    }
+
+    private void writeParameter(StringBuilder builder, String name, int valueIndex) {
+        if (parameterCount == starts.length) {
+            int length = parameterCount * 2;
+            starts = copyOf(starts, length);
+            ends = copyOf(ends, length);
+            valueIndexes = copyOf(valueIndexes, length);
+            String[] newNames = new String[length];
+            System.arraycopy(names, 0, newNames, 0, parameterCount);
+            names = newNames;
+        }
+
+        starts[parameterCount] = builder.length();
+        parameterStyle.appendParameter(builder, queryBuilder.getQueryParameter(), parameterCount + 1, name);
+        ends[parameterCount] = builder.length();
+        names[parameterCount] = name;
+        valueIndexes[parameterCount] = valueIndex;
+        parameterCount++;
+    }
+
+    private static int[] copyOf(int[] array, int length) {
+        int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, Math.min(array.length, length));
+        return copy;
+    }
+
+    @Override
+    public InListStrategy getInListStrategy(InListValues values) {
+        return queryBuilder.getInListStrategy(values, parameterizeValues);
+    }
+
+    /**
+     * Sub-queries are rendered with this builder, so their query parameters are numbered and their values are collected too.
+     */
+    @Override
+    public void appendSubQuery(StringBuilder builder, QueryBuilder subQuery) {
+        subQuery.appendQuery(builder, this);
+    }
+
+    /**
+     * Appends part of a query rendered by another BindingQueryBuilder (such as the page query a count query is made from).
+     * Query parameters written by the source in that part are written again (and numbered) by this builder.
+     */
+    public void appendSlice(@Nonnull StringBuilder builder, @Nonnull CharSequence text, int start, int end, @Nonnull BindingQueryBuilder source) {
+        int position = start;
+        for (int i = 0; i < source.parameterCount; i++) {
+            if (source.starts[i] >= start && source.starts[i] < end) {
+                builder.append(text, position, source.starts[i]);
+                if (source.valueIndexes[i] >= 0) {
+                    values.add(source.values, source.valueIndexes[i]);
+                    writeParameter(builder, null, values.size() - 1);
+                } else {
+                    writeParameter(builder, source.names[i], -1);
+                }
+                position = source.ends[i];
+            }
+        }
+        builder.append(text, position, end);
+    }
+
+    /**
+     * @param query query rendered with this builder
+     */
+    public CompiledQuery compile(@Nonnull String query, int selectClauseLength) {
+        return new CompiledQuery(query, selectClauseLength, queryBuilder.getQueryParameter(), parameterStyle, values,
+                parameterCount, starts, names, valueIndexes);
+    }
+
+    @Override
+    public String formatLikeClause(String field, String value) {
+        return queryBuilder.formatLikeClause(field, value);
+    }
+
+    @Override
+    public String formatIgnoreCaseLikeClause(String field, String value) {
+        return queryBuilder.formatIgnoreCaseLikeClause(field, value);
+    }
+
+    @Override
+    public Object formatValue(Object value) {
+        return queryBuilder.formatValue(value);
+    }
+
+    @Override
+    public String getQueryParameter() {
+        return queryBuilder.getQueryParameter();
+    }
+
+    @Override
+    public String buildQuery() {
+        return queryBuilder.buildQuery();
+    }
+
+    @Override
+    protected CompiledQuery render(boolean countOnly) {
+        return queryBuilder.render(countOnly);
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public QueryBuilder clone() {
+        return queryBuilder.clone();
+    }
+}
@@ -0,0 +1,308 @@
+package org.dbtools.query.shared;
+
+import javax.annotation.Nonnull;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Ordered, typed values for the query parameters of a statement.
+ * Numbers and booleans are kept unboxed (in a long[] lane, doubles as raw bits) and are bound with
+ * setLong() / setInt() / setDouble() / setBoolean(), so binding does not box or convert anything to a String.
+ * Other values are kept in an Object lane that is only created when it is needed.
+ *
+ * Example:
+ * <pre>
+ * Bindings bindings = new Bindings(ids.length).addLongs(ids);
+ * bindings.bind(preparedStatement);
+ * </pre>
+ *
+ * Not thread safe.
+ */
+public final class Bindings {
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_LONG = 1;
+    private static final byte TYPE_INT = 2;
+    private static final byte TYPE_DOUBLE = 3;
+    private static final byte TYPE_BOOLEAN = 4;
+    private static final byte TYPE_STRING = 5;
+    private static final byte TYPE_OBJECT = 6;
+
+    private byte[] types;
+    private long[] primitives; // long, int, double (raw bits), boolean (1/0) and the sql type of a null
+    private Object[] objects; // String and other values... null until needed
+    private int size = 0;
+
+    public Bindings() {
+        this(8);
+    }
+
+    public Bindings(int capacity) {
+        types = new byte[Math.max(capacity, 1)];
+        primitives = new long[types.length];
+    }
+
+    public Bindings(@Nonnull Bindings source) {
+        size = source.size;
+        types = new byte[Math.max(size, 1)];
+        primitives = new long[types.length];
+        System.arraycopy(source.types, 0, types, 0, size);
+        System.arraycopy(source.primitives, 0, primitives, 0, size);
+        if (source.objects != null) {
+            objects = new Object[types.length];
+            System.arraycopy(source.objects, 0, objects, 0, size);
+        }
+    }
+
+    /**
+     * Creates bindings for the given values (boxed numbers and Booleans are unboxed into the primitive lanes).
+     */
+    public static Bindings of(@Nonnull List<?> values) {
+        Bindings bindings = new Bindings(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            bindings.add(values.get(i));
+        }
+        return bindings;
+    }
+
+    public Bindings addLong(long value) {
+        add(TYPE_LONG, value);
+        return this;
+    }
+
+    public Bindings addInt(int value) {
+        add(TYPE_INT, value);
+        return this;
+    }
+
+    public Bindings addDouble(double value) {
+        add(TYPE_DOUBLE, Double.doubleToRawLongBits(value));
+        return this;
+    }
+
+    public Bindings addBoolean(boolean value) {
+        add(TYPE_BOOLEAN, value ? 1 : 0);
+        return this;
+    }
+
+    public Bindings addString(String value) {
+        if (value == null) {
+            return addNull(Types.VARCHAR);
+        }
+        addObject(TYPE_STRING, value);
+        return this;
+    }
+
+    /**
+     * @param sqlType type from java.sql.Types (some drivers, such as Oracle, need the real type of the column)
+     */
+    public Bindings addNull(int sqlType) {
+        add(TYPE_NULL, sqlType);
+        return this;
+    }
+
+    public Bindings addLongs(@Nonnull long[] values) {
+        ensureCapacity(size + values.length);
+        for (long value : values) {
+            types[size] = TYPE_LONG;
+            primitives[size++] = value;
+        }
+        return this;
+    }
+
+    public Bindings addInts(@Nonnull int[] values) {
+        ensureCapacity(size + values.length);
+        for (int value : values) {
+            types[size] = TYPE_INT;
+            primitives[size++] = value;
+        }
+        return this;
+    }
+
+    /**
+     * Adds a value of any type.  Boxed numbers and Booleans go into the primitive lanes.
+     */
+    public Bindings add(Object value) {
+        if (value == null) {
+            return addNull(Types.NULL);
+        } else if (value instanceof Long) {
+            return addLong((Long) value);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return addInt(((Number) value).intValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            return addDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            return addBoolean((Boolean) value);
+        } else if (value instanceof String) {
+            return addString((String) value);
+        }
+        addObject(TYPE_OBJECT, value);
+        return this;
+    }
+
+    /**
+     * Adds the value at the given index of the given bindings (without boxing).
+     */
+    public Bindings add(@Nonnull Bindings source, int index) {
+        checkIndex(source, index);
+        byte type = source.types[index];
+        if (type == TYPE_STRING || type == TYPE_OBJECT) {
+            addObject(type, source.objects[index]);
+        } else {
+            add(type, source.primitives[index]);
+        }
+        return this;
+    }
+
+    private void add(byte type, long value) {
+        ensureCapacity(size + 1);
+        types[size] = type;
+        primitives[size++] = value;
+    }
+
+    private void addObject(byte type, Object value) {
+        ensureCapacity(size + 1);
+        if (objects == null) {
+            objects = new Object[types.length];
+        }
+        types[size] = type;
+        objects[size++] = value;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > types.length) {
+            int newLength = Math.max(capacity, types.length * 2);
+            byte[] newTypes = new byte[newLength];
+            System.arraycopy(types, 0, newTypes, 0, size);
+            types = newTypes;
+            long[] newPrimitives = new long[newLength];
+            System.arraycopy(primitives, 0, newPrimitives, 0, size);
+            primitives = newPrimitives;
+            if (objects != null) {
+                Object[] newObjects = new Object[newLength];
+                System.arraycopy(objects, 0, newObjects, 0, size);
+                objects = newObjects;
+            }
+        }
+    }
+
+    private static void checkIndex(Bindings bindings, int index) {
+        if (index < 0 || index >= bindings.size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + bindings.size);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all values (the storage is kept so the bindings can be reused).
+     */
+    public void clear() {
+        if (objects != null) {
+            for (int i = 0; i < size; i++) {
+                objects[i] = null;
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * @return the value at the given index (boxed)
+     */
+    public Object get(int index) {
+        checkIndex(this, index);
+        long primitive = primitives[index];
+        switch (types[index]) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_LONG:
+                return primitive;
+            case TYPE_INT:
+                return (int) primitive;
+            case TYPE_DOUBLE:
+                return Double.longBitsToDouble(primitive);
+            case TYPE_BOOLEAN:
+                return primitive != 0;
+            default:
+                return objects[index];
+        }
+    }
+
+    /**
+     * Binds all values to the statement, starting at parameter 1.
+     */
+    public void bind(@Nonnull PreparedStatement statement) throws SQLException {
+        bind(statement, 1);
+    }
+
+    /**
+     * Binds all values to the statement, starting at the given (1 based) parameter index.
+     *
+     * @return index of the next parameter after the bound values
+     */
+    public int bind(@Nonnull PreparedStatement statement, int parameterIndex) throws SQLException {
+        int index = parameterIndex;
+        for (int i = 0; i < size; i++) {
+            long primitive = primitives[i];
+            switch (types[i]) {
+                case TYPE_NULL:
+                    statement.setNull(index, (int) primitive);
+                    break;
+                case TYPE_LONG:
+                    statement.setLong(index, primitive);
+                    break;
+                case TYPE_INT:
+                    statement.setInt(index, (int) primitive);
+                    break;
+                case TYPE_DOUBLE:
+                    statement.setDouble(index, Double.longBitsToDouble(primitive));
+                    break;
+                case TYPE_BOOLEAN:
+                    statement.setBoolean(index, primitive != 0);
+                    break;
+                case TYPE_STRING:
+                    statement.setString(index, (String) objects[i]);
+                    break;
+                default:
+                    if (objects[i] instanceof SqlArray) {
+                        statement.setArray(index, ((SqlArray) objects[i]).createArray(statement.getConnection()));
+                    } else {
+                        statement.setObject(index, objects[i]);
+                    }
+            }
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * @return the values as Strings (for APIs that take String selection args, such as Android SQLite)
+     */
+    public String[] toSelectionArgs() {
+        String[] selectionArgs = new String[size];
+        for (int i = 0; i < size; i++) {
+            selectionArgs[i] = String.valueOf(get(i));
+        }
+        return selectionArgs;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(get(i));
+        }
+        return builder.append(']').toString();
+    }
+}
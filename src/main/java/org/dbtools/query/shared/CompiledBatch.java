@@ -0,0 +1,84 @@
+package org.dbtools.query.shared;
+
+import javax.annotation.Nonnull;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One statement and the values for each execution of it, ready for PreparedStatement.addBatch():
+ * <pre>
+ * PreparedStatement statement = connection.prepareStatement(batch.getQuery());
+ * batch.addBatch(statement);
+ * statement.executeBatch();
+ * </pre>
+ */
+public final class CompiledBatch {
+
+    private final String query;
+    private final List<Bindings> bindings;
+
+    /**
+     * @param bindings values of the query parameters for each execution (copied)
+     */
+    public CompiledBatch(@Nonnull String query, @Nonnull List<Bindings> bindings) {
+        this.query = query;
+        List<Bindings> copy = new ArrayList<Bindings>(bindings.size());
+        for (Bindings values : bindings) {
+            copy.add(new Bindings(values));
+        }
+        this.bindings = copy;
+    }
+
+    /**
+     * Executes the query once for each map of named parameter values (see CompiledQuery.bind()).
+     *
+     * @throws IllegalArgumentException if a query parameter has no value
+     */
+    public static CompiledBatch of(@Nonnull CompiledQuery query, @Nonnull Iterable<? extends Map<String, ?>> namedValues) {
+        List<Bindings> bindings = new ArrayList<Bindings>();
+        for (Map<String, ?> values : namedValues) {
+            bindings.add(query.bind(values));
+        }
+        return new CompiledBatch(query.getQuery(), bindings);
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    /**
+     * @return number of executions of the query
+     */
+    public int size() {
+        return bindings.size();
+    }
+
+    /**
+     * @param index 0 based index of the execution
+     * @return copy of the values of the query parameters for the execution
+     */
+    public Bindings getBindings(int index) {
+        return new Bindings(bindings.get(index));
+    }
+
+    /**
+     * Binds the values of each execution to the statement (prepared from getQuery()) and adds them to its batch.
+     *
+     * @return number of executions added to the batch
+     */
+    public int addBatch(@Nonnull PreparedStatement statement) throws SQLException {
+        for (Bindings values : bindings) {
+            values.bind(statement, 1);
+            statement.addBatch();
+        }
+        return bindings.size();
+    }
+
+    @Override
+    public String toString() {
+        return query + " x " + bindings.size();
+    }
+}
@@ -0,0 +1,30 @@
+package org.dbtools.query.shared;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Page query and the matching count(*) query, rendered together by compilePage() on a query builder.
+ */
+public final class CompiledPage {
+
+    private final CompiledQuery query;
+    private final CompiledQuery countQuery;
+
+    public CompiledPage(@Nonnull CompiledQuery query, @Nonnull CompiledQuery countQuery) {
+        this.query = query;
+        this.countQuery = countQuery;
+    }
+
+    public CompiledQuery getQuery() {
+        return query;
+    }
+
+    public CompiledQuery getCountQuery() {
+        return countQuery;
+    }
+
+    @Override
+    public String toString() {
+        return query + "; " + countQuery;
+    }
+}
@@ -0,0 +1,338 @@
+package org.dbtools.query.shared;
+
+import javax.annotation.Nonnull;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, fully rendered query produced by compile() on a query builder.
+ * Safe to build once and share between threads.
+ */
+public final class CompiledQuery {
+
+    private final String query;
+    private final String selectClause;
+    private final String postSelectClause;
+    private final String queryParameter;
+    private final ParameterStyle parameterStyle;
+    private final int[] parameterOffsets;
+    private final String[] parameterNames; // name of each query parameter (null if not named)
+    private final int[] valueIndexes; // index in bindings of the value of each query parameter (-1 if none)
+    private final boolean valuesInOrder; // true if bindings holds the value of every query parameter, in order
+    private final Bindings bindings; // never changed after construction
+
+    public CompiledQuery(@Nonnull String query, int selectClauseLength, @Nonnull String queryParameter) {
+        this(query, selectClauseLength, queryParameter, new Bindings(0));
+    }
+
+    /**
+     * @param parameterValues values to bind to the query parameters, in order (values of a parameterized query)
+     */
+    public CompiledQuery(@Nonnull String query, int selectClauseLength, @Nonnull String queryParameter, @Nonnull List<?> parameterValues) {
+        this(query, selectClauseLength, queryParameter, Bindings.of(parameterValues));
+    }
+
+    /**
+     * @param bindings values to bind to the query parameters, in order (copied)
+     * @throws IllegalArgumentException if there are values, but not one for each query parameter found in the query
+     */
+    public CompiledQuery(@Nonnull String query, int selectClauseLength, @Nonnull String queryParameter, @Nonnull Bindings bindings) {
+        this.query = query;
+        this.selectClause = query.substring(0, selectClauseLength);
+        this.postSelectClause = query.substring(selectClauseLength);
+        this.queryParameter = queryParameter;
+        this.parameterStyle = ParameterStyle.QUESTION_MARK;
+        this.parameterOffsets = findParameterOffsets(query, queryParameter, new int[0], 0);
+        if (bindings.size() > 0 && bindings.size() != parameterOffsets.length) {
+            throw new IllegalArgumentException(bindings.size() + " values for " + parameterOffsets.length + " query parameters: " + query);
+        }
+        this.parameterNames = new String[parameterOffsets.length];
+        this.valueIndexes = new int[parameterOffsets.length];
+        for (int i = 0; i < valueIndexes.length; i++) {
+            valueIndexes[i] = i < bindings.size() ? i : -1;
+        }
+        this.bindings = new Bindings(bindings);
+        this.valuesInOrder = bindings.size() == parameterOffsets.length;
+    }
+
+    /**
+     * Used by BindingQueryBuilder: the position, name and value of each query parameter are known from the render.
+     */
+    CompiledQuery(String query, int selectClauseLength, String queryParameter, ParameterStyle parameterStyle, Bindings bindings,
+                  int renderedCount, int[] renderedOffsets, String[] renderedNames, int[] renderedValueIndexes) {
+        this.query = query;
+        this.selectClause = query.substring(0, selectClauseLength);
+        this.postSelectClause = query.substring(selectClauseLength);
+        this.queryParameter = queryParameter;
+        this.parameterStyle = parameterStyle;
+        this.bindings = new Bindings(bindings);
+
+        if (parameterStyle == ParameterStyle.QUESTION_MARK) {
+            // query parameters may also be written in raw SQL... find those around the rendered ones
+            parameterOffsets = findParameterOffsets(query, queryParameter, renderedOffsets, renderedCount);
+            parameterNames = new String[parameterOffsets.length];
+            valueIndexes = new int[parameterOffsets.length];
+            Arrays.fill(valueIndexes, -1);
+            for (int i = 0; i < renderedCount; i++) {
+                int index = Arrays.binarySearch(parameterOffsets, renderedOffsets[i]);
+                if (index >= 0) {
+                    parameterNames[index] = renderedNames[i];
+                    valueIndexes[index] = renderedValueIndexes[i];
+                }
+            }
+        } else {
+            parameterOffsets = new int[renderedCount];
+            System.arraycopy(renderedOffsets, 0, parameterOffsets, 0, renderedCount);
+            parameterNames = new String[renderedCount];
+            System.arraycopy(renderedNames, 0, parameterNames, 0, renderedCount);
+            valueIndexes = new int[renderedCount];
+            System.arraycopy(renderedValueIndexes, 0, valueIndexes, 0, renderedCount);
+        }
+
+        boolean inOrder = bindings.size() == valueIndexes.length;
+        for (int i = 0; i < valueIndexes.length && inOrder; i++) {
+            inOrder = valueIndexes[i] == i;
+        }
+        valuesInOrder = inOrder;
+    }
+
+    /**
+     * Finds the offset of each query parameter in the query: the rendered ones (at the given offsets, in order) and any
+     * others written in raw SQL.  Quoted literals, -- / block comments and ?? (how JDBC drivers escape a ? operator,
+     * such as the Postgres JSON operators ??, ??| and ??&) are skipped.  An unescaped ? operator is a query parameter
+     * without a value, as it is for the JDBC driver.
+     *
+     * @throws IllegalStateException if a rendered query parameter is not at its offset or is inside a quoted literal
+     *                               or comment of the raw SQL (the values would be bound to the wrong parameters)
+     */
+    private static int[] findParameterOffsets(String query, String queryParameter, int[] renderedOffsets, int renderedCount) {
+        if (queryParameter.length() == 0) {
+            return new int[0];
+        }
+
+        int[] offsets = new int[Math.max(8, renderedCount)];
+        int count = 0;
+        int rendered = 0; // next rendered query parameter
+        char quote = 0;
+        boolean lineComment = false;
+        boolean blockComment = false;
+        int length = query.length();
+        for (int i = 0; i < length; i++) {
+            boolean parameter = false;
+            if (rendered < renderedCount && i == renderedOffsets[rendered]) {
+                if (quote != 0 || lineComment || blockComment || !query.startsWith(queryParameter, i)) {
+                    throw new IllegalStateException("Query parameter " + (rendered + 1) + " is not at offset " + i
+                            + " or is inside a quoted literal or comment: " + query);
+                }
+                rendered++;
+                parameter = true;
+            } else {
+                char c = query.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (lineComment) {
+                    lineComment = c != '\n';
+                } else if (blockComment) {
+                    if (c == '*' && i + 1 < length && query.charAt(i + 1) == '/') {
+                        blockComment = false;
+                        i++;
+                    }
+                } else if (c == '\'' || c == '"') {
+                    quote = c;
+                } else if (query.startsWith("--", i)) {
+                    lineComment = true;
+                    i++;
+                } else if (query.startsWith("/*", i)) {
+                    blockComment = true;
+                    i++;
+                } else if (query.startsWith(queryParameter, i)) {
+                    int end = i + queryParameter.length();
+                    if (isEscapedOperator(query, queryParameter, end) && (rendered == renderedCount || renderedOffsets[rendered] != end)) {
+                        i = end;
+                    } else {
+                        parameter = true;
+                    }
+                }
+            }
+
+            if (parameter) {
+                if (count == offsets.length) {
+                    int[] grown = new int[count * 2];
+                    System.arraycopy(offsets, 0, grown, 0, count);
+                    offsets = grown;
+                }
+                offsets[count++] = i;
+                i += queryParameter.length() - 1;
+            }
+        }
+        if (rendered < renderedCount) {
+            throw new IllegalStateException("Query parameter " + (rendered + 1) + " is not at offset " + renderedOffsets[rendered] + ": " + query);
+        }
+
+        int[] result = new int[count];
+        System.arraycopy(offsets, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * @return true if the ? at end - 1 is the start of an escaped ? (??)
+     */
+    private static boolean isEscapedOperator(String query, String queryParameter, int end) {
+        return queryParameter.equals("?") && end < query.length() && query.charAt(end) == '?';
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public String getSelectClause() {
+        return selectClause;
+    }
+
+    public String getPostSelectClause() {
+        return postSelectClause;
+    }
+
+    public String getQueryParameter() {
+        return queryParameter;
+    }
+
+    /**
+     * @return number of query parameters (placeholders) in the query
+     */
+    public int getParameterCount() {
+        return parameterOffsets.length;
+    }
+
+    /**
+     * @param index 0 based index of the query parameter
+     * @return character offset of the query parameter within the query
+     */
+    public int getParameterOffset(int index) {
+        return parameterOffsets[index];
+    }
+
+    /**
+     * @return values that were replaced with query parameters when the query was rendered (in the order
+     * of the query parameters), empty if the query was not parameterized
+     */
+    public List<Object> getParameterValues() {
+        return new AbstractList<Object>() {
+            @Override
+            public Object get(int index) {
+                return bindings.get(index);
+            }
+
+            @Override
+            public int size() {
+                return bindings.size();
+            }
+        };
+    }
+
+    /**
+     * @return copy of the values of the query parameters (see getParameterValues())
+     */
+    public Bindings getBindings() {
+        return new Bindings(bindings);
+    }
+
+    /**
+     * Binds the values of the query parameters (see getParameterValues()) to the statement, without boxing.
+     *
+     * @return index of the next parameter after the bound values
+     * @throws IllegalArgumentException if a query parameter has no value (such as a named parameter)
+     */
+    public int bindParameters(@Nonnull PreparedStatement statement) throws SQLException {
+        if (valuesInOrder) {
+            return bindings.bind(statement, 1);
+        }
+        return bind(Collections.<String, Object>emptyMap()).bind(statement, 1);
+    }
+
+    /**
+     * Binds the values of the query parameters to the statement: the values of a parameterized query, and the
+     * values of named parameters from the given map.  The query is not rendered again.
+     *
+     * @return index of the next parameter after the bound values
+     * @throws IllegalArgumentException if a query parameter has no value
+     */
+    public int bindParameters(@Nonnull PreparedStatement statement, @Nonnull Map<String, ?> namedValues) throws SQLException {
+        return bind(namedValues).bind(statement, 1);
+    }
+
+    /**
+     * @return the value of every query parameter, in order: the values of a parameterized query and the values
+     * of named parameters from the given map
+     * @throws IllegalArgumentException if a query parameter has no value
+     */
+    public Bindings bind(@Nonnull Map<String, ?> namedValues) {
+        Bindings result = new Bindings(parameterOffsets.length);
+        for (int i = 0; i < parameterOffsets.length; i++) {
+            String name = parameterNames[i];
+            if (valueIndexes[i] >= 0) {
+                result.add(bindings, valueIndexes[i]);
+            } else if (name != null && namedValues.containsKey(name)) {
+                result.add(namedValues.get(name));
+            } else {
+                throw new IllegalArgumentException("No value for query parameter " + (i + 1) + (name != null ? " (" + name + ")" : ""));
+            }
+        }
+        return result;
+    }
+
+    public ParameterStyle getParameterStyle() {
+        return parameterStyle;
+    }
+
+    /**
+     * @param index 0 based index of the query parameter
+     * @return name of the query parameter (null if it is not a named parameter)
+     */
+    public String getParameterName(int index) {
+        return parameterNames[index];
+    }
+
+    /**
+     * @return names of the named parameters in the query
+     */
+    public Set<String> getParameterNames() {
+        Set<String> names = new LinkedHashSet<String>();
+        for (String name : parameterNames) {
+            if (name != null) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * @return 1 based indexes (as used by PreparedStatement.setXxx()) of the query parameters with the given name
+     */
+    public int[] getParameterIndexes(@Nonnull String name) {
+        int count = 0;
+        int[] indexes = new int[parameterNames.length];
+        for (int i = 0; i < parameterNames.length; i++) {
+            if (name.equals(parameterNames[i])) {
+                indexes[count++] = i + 1;
+            }
+        }
+        int[] result = new int[count];
+        System.arraycopy(indexes, 0, result, 0, count);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return query;
+    }
+}
@@ -0,0 +1,135 @@
+package org.dbtools.query.shared;
+
+import javax.annotation.Nonnull;
+
+/**
+ * How a list of values is rendered by an InFilter ("field IN (...)").  The query builder (dialect) picks the strategy
+ * for each list (see QueryBuilder.getInListStrategy()), so very large lists can be rendered in a way the database
+ * can parse and plan.
+ */
+public abstract class InListStrategy {
+
+    private static final InListStrategy INLINE = new Inline();
+    private static final InListStrategy VALUES = new Values();
+
+    /**
+     * field IN (v1, v2, ...)
+     */
+    public static InListStrategy inline() {
+        return INLINE;
+    }
+
+    /**
+     * (field IN (v1, ... vn) OR field IN (vn+1, ...)) for databases that limit the number of items in an IN list (such as Oracle).
+     *
+     * @param chunkSize max number of values in each IN list
+     */
+    public static InListStrategy chunked(int chunkSize) {
+        return new Chunked(chunkSize);
+    }
+
+    /**
+     * field = ANY(?) with all values bound as one array (PostgreSQL).  Only for queries that bind their values.
+     *
+     * @param sqlTypeName type of the array elements (as used by Connection.createArrayOf())
+     */
+    public static InListStrategy array(@Nonnull String sqlTypeName) {
+        return new Array(sqlTypeName);
+    }
+
+    /**
+     * field IN (VALUES (v1), (v2), ...)... a derived table instead of a list of expressions.
+     */
+    public static InListStrategy values() {
+        return VALUES;
+    }
+
+    /**
+     * @param queryBuilder formats the values
+     * @param in true for IN, false for NOT IN
+     * @param values values (at least 1)
+     */
+    public abstract void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder, String field, boolean in, @Nonnull InListValues values);
+
+    private static void appendValues(QueryBuilder queryBuilder, StringBuilder builder, InListValues values, int start, int end) {
+        values.appendValue(queryBuilder, builder, start);
+        for (int i = start + 1; i < end; i++) {
+            builder.append(", ");
+            values.appendValue(queryBuilder, builder, i);
+        }
+    }
+
+    private static void appendIn(StringBuilder builder, String field, boolean in) {
+        builder.append(field).append(in ? " IN (" : " NOT IN (");
+    }
+
+    private static final class Inline extends InListStrategy {
+        @Override
+        public void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder, String field, boolean in, @Nonnull InListValues values) {
+            appendIn(builder, field, in);
+            appendValues(queryBuilder, builder, values, 0, values.size());
+            builder.append(')');
+        }
+    }
+
+    private static final class Chunked extends InListStrategy {
+        private final int chunkSize;
+
+        private Chunked(int chunkSize) {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("chunkSize must be greater than 0");
+            }
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder, String field, boolean in, @Nonnull InListValues values) {
+            int count = values.size();
+            boolean chunked = count > chunkSize;
+            if (chunked) {
+                builder.append('(');
+            }
+            for (int start = 0; start < count; start += chunkSize) {
+                if (start > 0) {
+                    builder.append(in ? " OR " : " AND ");
+                }
+                appendIn(builder, field, in);
+                appendValues(queryBuilder, builder, values, start, Math.min(start + chunkSize, count));
+                builder.append(')');
+            }
+            if (chunked) {
+                builder.append(')');
+            }
+        }
+    }
+
+    private static final class Array extends InListStrategy {
+        private final String sqlTypeName;
+
+        private Array(String sqlTypeName) {
+            this.sqlTypeName = sqlTypeName;
+        }
+
+        @Override
+        public void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder, String field, boolean in, @Nonnull InListValues values) {
+            builder.append(field).append(in ? " = ANY(" : " <> ALL(");
+            queryBuilder.appendValue(builder, values.toSqlArray(sqlTypeName));
+            builder.append(')');
+        }
+    }
+
+    private static final class Values extends InListStrategy {
+        @Override
+        public void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder, String field, boolean in, @Nonnull InListValues values) {
+            appendIn(builder, field, in);
+            builder.append("VALUES (");
+            values.appendValue(queryBuilder, builder, 0);
+            int count = values.size();
+            for (int i = 1; i < count; i++) {
+                builder.append("), (");
+                values.appendValue(queryBuilder, builder, i);
+            }
+            builder.append("))");
+        }
+    }
+}
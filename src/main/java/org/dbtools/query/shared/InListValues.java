@@ -0,0 +1,167 @@
+package org.dbtools.query.shared;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Read-only, indexed view of the values of an IN list (a List, Collection, Iterable, long[], int[] or Object[]/String[]).
+ * Primitive arrays are rendered (and bound) without boxing each value.
+ */
+public abstract class InListValues {
+
+    /**
+     * @return view of the values, null if the value is not a list of values
+     */
+    public static InListValues of(Object values) {
+        if (values instanceof List && values instanceof RandomAccess) {
+            return new ListValues((List<?>) values);
+        } else if (values instanceof long[]) {
+            return new LongValues((long[]) values);
+        } else if (values instanceof int[]) {
+            return new IntValues((int[]) values);
+        } else if (values instanceof Object[]) {
+            return new ListValues(Arrays.asList((Object[]) values));
+        } else if (values instanceof Iterable) {
+            return new ListValues(toList((Iterable<?>) values));
+        }
+        return null;
+    }
+
+    /**
+     * @return the values as a list that can be read by index in constant time (the same list if it already can be)
+     */
+    public static List<?> toList(@Nonnull Iterable<?> values) {
+        if (values instanceof List && values instanceof RandomAccess) {
+            return (List<?>) values;
+        } else if (values instanceof Collection) {
+            return Arrays.asList(((Collection<?>) values).toArray());
+        }
+        List<Object> list = new ArrayList<Object>();
+        for (Object value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    public abstract int size();
+
+    /**
+     * @return value at the index (boxed if the values are primitives)
+     */
+    public abstract Object get(int index);
+
+    /**
+     * @return long.class or int.class for primitive values, null for objects
+     */
+    public Class<?> getPrimitiveType() {
+        return null;
+    }
+
+    /**
+     * Appends the value at the index (as a literal or a query parameter, see QueryBuilder.appendValue())
+     */
+    public abstract void appendValue(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder, int index);
+
+    /**
+     * @return all of the values as one array value
+     */
+    public abstract SqlArray toSqlArray(@Nonnull String sqlTypeName);
+
+    private static final class ListValues extends InListValues {
+        private final List<?> values;
+
+        private ListValues(List<?> values) {
+            this.values = values;
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+
+        @Override
+        public Object get(int index) {
+            return values.get(index);
+        }
+
+        @Override
+        public void appendValue(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder, int index) {
+            queryBuilder.appendValue(builder, values.get(index));
+        }
+
+        @Override
+        public SqlArray toSqlArray(@Nonnull String sqlTypeName) {
+            return new SqlArray(sqlTypeName, values.toArray());
+        }
+    }
+
+    private static final class LongValues extends InListValues {
+        private final long[] values;
+
+        private LongValues(long[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public Class<?> getPrimitiveType() {
+            return long.class;
+        }
+
+        @Override
+        public void appendValue(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder, int index) {
+            queryBuilder.appendValue(builder, values[index]);
+        }
+
+        @Override
+        public SqlArray toSqlArray(@Nonnull String sqlTypeName) {
+            return new SqlArray(sqlTypeName, values);
+        }
+    }
+
+    private static final class IntValues extends InListValues {
+        private final int[] values;
+
+        private IntValues(int[] values) {
+            this.values = values;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public Object get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public Class<?> getPrimitiveType() {
+            return int.class;
+        }
+
+        @Override
+        public void appendValue(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder, int index) {
+            queryBuilder.appendValue(builder, values[index]);
+        }
+
+        @Override
+        public SqlArray toSqlArray(@Nonnull String sqlTypeName) {
+            return new SqlArray(sqlTypeName, values);
+        }
+    }
+}
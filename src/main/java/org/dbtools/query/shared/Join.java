@@ -16,7 +16,48 @@ public class Join {
         this.filter = filter;
     }
 
+    public JoinType getJoinType() {
+        return joinType;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public Filter getFilter() {
+        return filter;
+    }
+
     public String buildJoin(@Nonnull QueryBuilder queryBuilder) {
-        return joinType.getJoinText() + " " + table + " ON " + filter.buildFilter(queryBuilder);
+        StringBuilder builder = new StringBuilder();
+        appendTo(queryBuilder, builder);
+        return builder.toString();
+    }
+
+    public void appendTo(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder) {
+        builder.append(joinType.getJoinText()).append(' ').append(table).append(" ON ");
+        filter.appendTo(queryBuilder, builder);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Join join = (Join) o;
+        return joinType == join.joinType
+                && QueryUtil.valueEquals(table, join.table)
+                && QueryUtil.valueEquals(filter, join.filter);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = joinType != null ? joinType.hashCode() : 0;
+        result = 31 * result + QueryUtil.valueHashCode(table);
+        result = 31 * result + QueryUtil.valueHashCode(filter);
+        return result;
     }
 }
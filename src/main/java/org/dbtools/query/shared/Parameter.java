@@ -0,0 +1,66 @@
+package org.dbtools.query.shared;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Query parameter used as a filter value, written in the ParameterStyle of the builder.
+ * The index (or indexes) of a named parameter are available from CompiledQuery.getParameterIndexes(),
+ * so the compiled query can be bound again by name without rendering it again.
+ *
+ * Example:
+ * <pre>
+ * sql.filter("Car.OWNER_ID", Parameter.named("ownerId"));
+ * </pre>
+ */
+public final class Parameter {
+
+    private static final Parameter POSITIONAL = new Parameter(null);
+
+    private final String name;
+
+    private Parameter(String name) {
+        this.name = name;
+    }
+
+    public static Parameter named(@Nonnull String name) {
+        if (name.length() == 0) {
+            throw new IllegalArgumentException("name must not be empty");
+        }
+        return new Parameter(name);
+    }
+
+    /**
+     * @return parameter without a name (same as using the query parameter of the builder, such as "?", as the value)
+     */
+    public static Parameter positional() {
+        return POSITIONAL;
+    }
+
+    /**
+     * @return name of the parameter, null if the parameter is not named
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return QueryUtil.valueEquals(name, ((Parameter) o).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return QueryUtil.valueHashCode(name);
+    }
+
+    @Override
+    public String toString() {
+        return name != null ? ":" + name : "?";
+    }
+}
@@ -0,0 +1,106 @@
+package org.dbtools.query.shared;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Rounds the number of query parameters in an IN list up to one of a few sizes, so that lookups of 1 to n ids
+ * only produce a few distinct statements (which keeps them in the driver / database statement caches).
+ * The values are padded by repeating the last value (which does not change the result of IN or NOT IN).
+ *
+ * Example:
+ * <pre>
+ * // 5 ids: "Car.ID IN (?, ?, ?, ?, ?, ?, ?, ?)"
+ * sql.filter(InParameterizedFilter.create("Car.ID", ids.length, ParameterBuckets.POWERS_OF_TWO));
+ * new Bindings().addLongs(ParameterBuckets.POWERS_OF_TWO.pad(ids)).bind(statement);
+ * </pre>
+ */
+public final class ParameterBuckets {
+
+    /**
+     * 1, 2, 4, 8, 16, ...
+     */
+    public static final ParameterBuckets POWERS_OF_TWO = new ParameterBuckets(null);
+
+    private final int[] sizes; // null for powers of two
+
+    private ParameterBuckets(int[] sizes) {
+        this.sizes = sizes;
+    }
+
+    /**
+     * @param sizes bucket sizes (a count larger than the largest size is rounded up to a multiple of the largest size)
+     */
+    public static ParameterBuckets of(@Nonnull int... sizes) {
+        if (sizes.length == 0) {
+            throw new IllegalArgumentException("There must be at least 1 bucket size");
+        }
+        int[] sortedSizes = sizes.clone();
+        Arrays.sort(sortedSizes);
+        if (sortedSizes[0] < 1) {
+            throw new IllegalArgumentException("Bucket sizes must be greater than 0");
+        }
+        return new ParameterBuckets(sortedSizes);
+    }
+
+    /**
+     * @return number of query parameters to use for the given number of values
+     */
+    public int bucketSize(int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("count must be greater than 0");
+        }
+
+        if (sizes == null) {
+            int size = Integer.highestOneBit(count);
+            return size == count ? count : size << 1;
+        }
+
+        for (int size : sizes) {
+            if (size >= count) {
+                return size;
+            }
+        }
+        int largest = sizes[sizes.length - 1];
+        return ((count + largest - 1) / largest) * largest;
+    }
+
+    /**
+     * @return the values padded to the bucket size by repeating the last value (the given list if it is already the bucket size)
+     */
+    public <T> List<T> pad(@Nonnull List<T> values) {
+        int size = bucketSize(values.size());
+        if (size == values.size()) {
+            return values;
+        }
+        List<T> padded = new ArrayList<T>(size);
+        padded.addAll(values);
+        padded.addAll(Collections.nCopies(size - values.size(), values.get(values.size() - 1)));
+        return padded;
+    }
+
+    public long[] pad(@Nonnull long[] values) {
+        int size = bucketSize(values.length);
+        if (size == values.length) {
+            return values;
+        }
+        long[] padded = new long[size];
+        System.arraycopy(values, 0, padded, 0, values.length);
+        Arrays.fill(padded, values.length, size, values[values.length - 1]);
+        return padded;
+    }
+
+    public int[] pad(@Nonnull int[] values) {
+        int size = bucketSize(values.length);
+        if (size == values.length) {
+            return values;
+        }
+        int[] padded = new int[size];
+        System.arraycopy(values, 0, padded, 0, values.length);
+        Arrays.fill(padded, values.length, size, values[values.length - 1]);
+        return padded;
+    }
+}
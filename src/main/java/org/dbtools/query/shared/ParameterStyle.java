@@ -0,0 +1,65 @@
+package org.dbtools.query.shared;
+
+/**
+ * How query parameters (placeholders) are written into a rendered query.
+ * Numbered styles number the query parameters (starting at 1) in the order they are rendered.
+ */
+public enum ParameterStyle {
+    /**
+     * The query parameter of the builder ("?" by default) for every parameter (JDBC).
+     */
+    QUESTION_MARK {
+        @Override
+        void appendParameter(StringBuilder builder, String queryParameter, int number, String name) {
+            builder.append(queryParameter);
+        }
+    },
+    /**
+     * ?1, ?2, ... (JPQL positional parameters).
+     */
+    NUMBERED_QUESTION_MARK {
+        @Override
+        void appendParameter(StringBuilder builder, String queryParameter, int number, String name) {
+            builder.append('?').append(number);
+        }
+    },
+    /**
+     * $1, $2, ... (PostgreSQL server side prepared statements).
+     */
+    DOLLAR_NUMBERED {
+        @Override
+        void appendParameter(StringBuilder builder, String queryParameter, int number, String name) {
+            builder.append('$').append(number);
+        }
+    },
+    /**
+     * :1, :2, ... (Oracle).
+     */
+    COLON_NUMBERED {
+        @Override
+        void appendParameter(StringBuilder builder, String queryParameter, int number, String name) {
+            builder.append(':').append(number);
+        }
+    },
+    /**
+     * :name for named parameters and :p1, :p2, ... for the others (JPQL named parameters).
+     */
+    NAMED {
+        @Override
+        void appendParameter(StringBuilder builder, String queryParameter, int number, String name) {
+            builder.append(':');
+            if (name != null) {
+                builder.append(name);
+            } else {
+                builder.append('p').append(number);
+            }
+        }
+    };
+
+    /**
+     * @param queryParameter query parameter of the builder
+     * @param number 1 based number of the parameter
+     * @param name name of the parameter (null if the parameter is not named)
+     */
+    abstract void appendParameter(StringBuilder builder, String queryParameter, int number, String name);
+}
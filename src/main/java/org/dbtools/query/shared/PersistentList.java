@@ -0,0 +1,121 @@
+package org.dbtools.query.shared;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Immutable list where add() is O(1) and the new list shares every existing item with this list.
+ * Items are kept newest first (a linked list of nodes) and an array in insertion order is only
+ * created when the list is read.
+ */
+public final class PersistentList<T> implements Iterable<T> {
+
+    private static final PersistentList<Object> EMPTY = new PersistentList<Object>(null, null, 0);
+
+    private final PersistentList<T> previous;
+    private final T last;
+    private final int size;
+
+    // insertion ordered view... created on first read
+    private volatile List<T> list;
+
+    private PersistentList(PersistentList<T> previous, T last, int size) {
+        this.previous = previous;
+        this.last = last;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentList<T> empty() {
+        return (PersistentList<T>) EMPTY;
+    }
+
+    public static <T> PersistentList<T> copyOf(Iterable<? extends T> items) {
+        return PersistentList.<T>empty().addAll(items);
+    }
+
+    public PersistentList<T> add(T item) {
+        return new PersistentList<T>(this, item, size + 1);
+    }
+
+    public PersistentList<T> addAll(Iterable<? extends T> items) {
+        PersistentList<T> result = this;
+        for (T item : items) {
+            result = result.add(item);
+        }
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return read-only list of the items in the order they were added
+     */
+    public List<T> asList() {
+        List<T> result = list;
+        if (result == null) {
+            Object[] items = new Object[size];
+            PersistentList<T> node = this;
+            for (int i = size - 1; i >= 0; i--) {
+                items[i] = node.last;
+                node = node.previous;
+            }
+            result = new ArrayView<T>(items);
+            list = result;
+        }
+        return result;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return asList().iterator();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PersistentList)) {
+            return false;
+        }
+        PersistentList<?> that = (PersistentList<?>) o;
+        return size == that.size && asList().equals(that.asList());
+    }
+
+    @Override
+    public int hashCode() {
+        return asList().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+
+    private static final class ArrayView<T> extends AbstractList<T> {
+        private final Object[] items;
+
+        private ArrayView(Object[] items) {
+            this.items = items;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            return (T) items[index];
+        }
+
+        @Override
+        public int size() {
+            return items.length;
+        }
+    }
+}
@@ -5,6 +5,20 @@ import java.util.List;
 
 @SuppressWarnings("unused")
 public abstract class QueryBuilder {
+
+    private static volatile QueryCache queryCache = null;
+
+    /**
+     * Installs a cache of rendered queries that is shared by all builders (null to turn caching off).
+     */
+    public static void setQueryCache(QueryCache cache) {
+        queryCache = cache;
+    }
+
+    public static QueryCache getQueryCache() {
+        return queryCache;
+    }
+
     public abstract String formatLikeClause(String field, String value);
 
     public abstract String formatIgnoreCaseLikeClause(String field, String value);
@@ -15,6 +29,110 @@ public abstract class QueryBuilder {
 
     public abstract String buildQuery();
 
+    /**
+     * Renders this query without looking in the query cache.
+     */
+    protected abstract CompiledQuery render(boolean countOnly);
+
+    /**
+     * Deep copy of this builder (the query cache keeps a copy of each builder it stores).
+     */
+    @Override
+    public abstract QueryBuilder clone();
+
+    /**
+     * Appends a filter value to the query (used by filters).
+     */
+    public void appendValue(StringBuilder builder, Object value) {
+        if (value instanceof Parameter) {
+            appendParameter(builder, ((Parameter) value).getName());
+        } else if (value instanceof SQL) {
+            builder.append(((SQL) value).getSql());
+        } else {
+            builder.append(formatValue(value));
+        }
+    }
+
+    /**
+     * Same as appendValue(builder, Long.valueOf(value)), without boxing the value.
+     */
+    public void appendValue(StringBuilder builder, long value) {
+        builder.append(value);
+    }
+
+    /**
+     * Same as appendValue(builder, Integer.valueOf(value)), without boxing the value.
+     */
+    public void appendValue(StringBuilder builder, int value) {
+        builder.append(value);
+    }
+
+    /**
+     * Appends a String that is data, not SQL (such as a column value of an INSERT or UPDATE), as a quoted literal.
+     */
+    public void appendString(StringBuilder builder, String value) {
+        builder.append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\'') {
+                builder.append('\'');
+            }
+            builder.append(c);
+        }
+        builder.append('\'');
+    }
+
+    /**
+     * Appends a query parameter to the query (used by filters).
+     *
+     * @param name name of the parameter (null if the parameter is not named)
+     */
+    public void appendParameter(StringBuilder builder, String name) {
+        builder.append(getQueryParameter());
+    }
+
+    /**
+     * Appends a sub-query to the query (used by filters).
+     */
+    public void appendSubQuery(StringBuilder builder, QueryBuilder subQuery) {
+        subQuery.appendQuery(builder);
+    }
+
+    /**
+     * @return how the given list of values should be rendered by an InFilter
+     */
+    public InListStrategy getInListStrategy(InListValues values) {
+        return getInListStrategy(values, false);
+    }
+
+    /**
+     * Dialects override this to render large lists in a way the database can handle.
+     *
+     * @param bindingValues true if the values are bound (the query is parameterized), false if they are written into the query
+     */
+    protected InListStrategy getInListStrategy(InListValues values, boolean bindingValues) {
+        return InListStrategy.inline();
+    }
+
+    /**
+     * Renders this query into the given builder (used when this query is a sub-query of another query).
+     */
+    public void appendQuery(StringBuilder builder) {
+        builder.append(buildQuery());
+    }
+
+    /**
+     * Renders this query into the given builder, formatting values and query parameters with the given formatter
+     * (used when this query is a sub-query of a query that is rendered with a BindingQueryBuilder).
+     */
+    public void appendQuery(StringBuilder builder, QueryBuilder formatter) {
+        appendQuery(builder);
+    }
+
+    /**
+     * Converts the values to Strings (for APIs that take String selection args).
+     * To bind values to a PreparedStatement without boxing or String conversion, use Bindings.
+     */
     public static String[] toSelectionArgs(Object... args) {
         List<String> selectionArgs = new ArrayList<String>(args.length);
         for (Object o : args) {
@@ -0,0 +1,119 @@
+package org.dbtools.query.shared;
+
+import javax.annotation.Nonnull;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of rendered queries, keyed on the structure of the query builder.  Builders that are
+ * built up independently but describe the same query (same dialect, sections, filters and values) share
+ * one CompiledQuery, so the query is only rendered once.
+ *
+ * The cache is opt-in: install it with QueryBuilder.setQueryCache(new QueryCache(500)).
+ * Once installed, compile() and buildQuery() on every builder go through the cache.
+ *
+ * The cache keeps a copy (clone()) of each builder it stores, so builders can still be changed after
+ * they are rendered.  Values put into filters (such as Lists used in an IN filter) must not be changed
+ * after the query is rendered.
+ */
+public final class QueryCache {
+
+    private final int maxSize;
+    private final Map<Key, CompiledQuery> cache;
+
+    // guarded by this
+    private long hitCount = 0;
+    private long missCount = 0;
+
+    public QueryCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<Key, CompiledQuery>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompiledQuery> eldest) {
+                return size() > QueryCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached query for a builder with the same structure, rendering (and caching) it if there is none.
+     */
+    public CompiledQuery compile(@Nonnull QueryBuilder queryBuilder, boolean countOnly) {
+        Key key = new Key(queryBuilder, countOnly);
+        synchronized (this) {
+            CompiledQuery compiledQuery = cache.get(key);
+            if (compiledQuery != null) {
+                hitCount++;
+                return compiledQuery;
+            }
+            missCount++;
+        }
+
+        // render outside of the lock... two threads may render the same query, but both get the same result
+        CompiledQuery compiledQuery = queryBuilder.render(countOnly);
+        Key snapshot = new Key(queryBuilder.clone(), countOnly, key.hash);
+        synchronized (this) {
+            cache.put(snapshot, compiledQuery);
+        }
+        return compiledQuery;
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Builder + count flag.  The hash is computed once, when the key is created.
+     */
+    private static final class Key {
+        private final QueryBuilder queryBuilder;
+        private final boolean countOnly;
+        private final int hash;
+
+        private Key(QueryBuilder queryBuilder, boolean countOnly) {
+            this(queryBuilder, countOnly, 31 * queryBuilder.hashCode() + (countOnly ? 1 : 0));
+        }
+
+        private Key(QueryBuilder queryBuilder, boolean countOnly, int hash) {
+            this.queryBuilder = queryBuilder;
+            this.countOnly = countOnly;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && countOnly == key.countOnly && queryBuilder.equals(key.queryBuilder);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -7,6 +7,8 @@
  */
 package org.dbtools.query.shared;
 
+import java.util.Arrays;
+
 /**
  * @author Jeff
  */
@@ -22,4 +24,50 @@ public final class QueryUtil {
     public static String formatIgnoreCaseLikeClause(String column, String value) {
         return formatLikeClause(column, value);
     }
+
+    /**
+     * Null safe equals that compares arrays by content (used for structural equality of filters and builders).
+     */
+    public static boolean valueEquals(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (a.getClass().isArray() || b.getClass().isArray()) {
+            return Arrays.deepEquals(new Object[]{a}, new Object[]{b});
+        }
+        return a.equals(b);
+    }
+
+    /**
+     * Null safe hashCode that hashes arrays by content (matches valueEquals()).
+     */
+    public static int valueHashCode(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value.getClass().isArray()) {
+            return Arrays.deepHashCode(new Object[]{value});
+        }
+        return value.hashCode();
+    }
+
+    /**
+     * @return true if the SQL text contains the word SELECT (in any case), such as a sub-query in a raw filter or field
+     */
+    public static boolean containsSelect(String sql) {
+        if (sql == null) {
+            return false;
+        }
+        for (int i = 0; i + 6 <= sql.length(); i++) {
+            if (sql.regionMatches(true, i, "SELECT", 0, 6)
+                    && (i == 0 || !Character.isJavaIdentifierPart(sql.charAt(i - 1)))
+                    && (i + 6 == sql.length() || !Character.isJavaIdentifierPart(sql.charAt(i + 6)))) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,53 @@
+package org.dbtools.query.shared;
+
+import javax.annotation.Nonnull;
+
+/**
+ * SQL that is written into the query as is, where a String value would be data (such as a column value of an
+ * INSERT or UPDATE, which is bound as a query parameter when the statement is parameterized).
+ *
+ * Example:
+ * <pre>
+ * update.set("MODIFIED", SQL.raw("now()"));
+ * </pre>
+ */
+public final class SQL {
+
+    private final String sql;
+
+    private SQL(String sql) {
+        this.sql = sql;
+    }
+
+    public static SQL raw(@Nonnull String sql) {
+        return new SQL(sql);
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return sql.equals(((SQL) o).sql);
+    }
+
+    @Override
+    public int hashCode() {
+        return sql.hashCode();
+    }
+
+    /**
+     * @return the SQL (written into the query by QueryBuilder.appendValue())
+     */
+    @Override
+    public String toString() {
+        return sql;
+    }
+}
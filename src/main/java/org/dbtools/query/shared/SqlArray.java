@@ -0,0 +1,125 @@
+package org.dbtools.query.shared;
+
+import javax.annotation.Nonnull;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Array value that is bound as one query parameter (PreparedStatement.setArray()), such as the values of "field = ANY(?)".
+ */
+public final class SqlArray {
+
+    private final String sqlTypeName;
+    private final Object elements; // Object[], long[] or int[]
+    private int hash; // 0 until computed
+
+    /**
+     * @param sqlTypeName type of the elements (as used by Connection.createArrayOf())
+     */
+    public SqlArray(@Nonnull String sqlTypeName, @Nonnull Object[] elements) {
+        this.sqlTypeName = sqlTypeName;
+        this.elements = elements.clone();
+    }
+
+    public SqlArray(@Nonnull String sqlTypeName, @Nonnull long[] elements) {
+        this.sqlTypeName = sqlTypeName;
+        this.elements = elements.clone();
+    }
+
+    public SqlArray(@Nonnull String sqlTypeName, @Nonnull int[] elements) {
+        this.sqlTypeName = sqlTypeName;
+        this.elements = elements.clone();
+    }
+
+    public String getSqlTypeName() {
+        return sqlTypeName;
+    }
+
+    public int size() {
+        return java.lang.reflect.Array.getLength(elements);
+    }
+
+    /**
+     * @return the elements as objects (primitives are boxed here, when the array is bound)
+     */
+    public Object[] getElements() {
+        if (elements instanceof long[]) {
+            long[] values = (long[]) elements;
+            Long[] result = new Long[values.length];
+            for (int i = 0; i < values.length; i++) {
+                result[i] = values[i];
+            }
+            return result;
+        } else if (elements instanceof int[]) {
+            int[] values = (int[]) elements;
+            Integer[] result = new Integer[values.length];
+            for (int i = 0; i < values.length; i++) {
+                result[i] = values[i];
+            }
+            return result;
+        }
+        return ((Object[]) elements).clone();
+    }
+
+    public Array createArray(@Nonnull Connection connection) throws SQLException {
+        return connection.createArrayOf(sqlTypeName, getElements());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SqlArray that = (SqlArray) o;
+        if (!sqlTypeName.equals(that.sqlTypeName)) {
+            return false;
+        }
+        if (elements instanceof long[] && that.elements instanceof long[]) {
+            return Arrays.equals((long[]) elements, (long[]) that.elements);
+        } else if (elements instanceof int[] && that.elements instanceof int[]) {
+            return Arrays.equals((int[]) elements, (int[]) that.elements);
+        } else if (elements instanceof Object[] && that.elements instanceof Object[]) {
+            return Arrays.equals((Object[]) elements, (Object[]) that.elements);
+        }
+        // same values held as primitives and as objects
+        return Arrays.equals(getElements(), that.getElements());
+    }
+
+    /**
+     * Arrays.hashCode() of a long[] or int[] is the same as that of the boxed values, so this matches equals()
+     */
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            if (elements instanceof long[]) {
+                result = Arrays.hashCode((long[]) elements);
+            } else if (elements instanceof int[]) {
+                result = Arrays.hashCode((int[]) elements);
+            } else {
+                result = Arrays.hashCode((Object[]) elements);
+            }
+            result = 31 * sqlTypeName.hashCode() + result;
+            hash = result;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        Object[] values = getElements();
+        StringBuilder builder = new StringBuilder("ARRAY[");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(values[i]);
+        }
+        return builder.append(']').toString();
+    }
+}
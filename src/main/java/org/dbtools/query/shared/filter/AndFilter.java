@@ -8,15 +8,11 @@ import javax.annotation.Nonnull;
 public class AndFilter extends ConjunctionFilter {
 
     public static AndFilter create(Filter... filters) {
-        AndFilter andFilter = new AndFilter();
-        andFilter.filter = AndFilter.newInstance(filters);
-        return andFilter;
+        return AndFilter.newInstance(filters);
     }
 
     public static AndFilter create(Filter filter, Filter[] filters) {
-        AndFilter andFilter = new AndFilter();
-        andFilter.filter = AndFilter.newInstance(filter, filters);
-        return andFilter;
+        return AndFilter.newInstance(filter, filters);
     }
 
     private static AndFilter newInstance(Filter... filters) {
@@ -40,24 +36,22 @@ public class AndFilter extends ConjunctionFilter {
 
     protected AndFilter() {}
 
+    protected AndFilter(@Nonnull AndFilter source) {
+        super(source);
+    }
+
     @Override
-    protected String build(@Nonnull QueryBuilder queryBuilder) {
-        StringBuilder builder = new StringBuilder();
-        boolean isFirst = true;
-        for (Filter filter : filters) {
-            if (!isFirst) {
-                builder.append(" AND ");
-            }
-            boolean wrap = filter instanceof ConjunctionFilter || filter.filter instanceof ConjunctionFilter;
-            String tmp = filter.buildFilter(queryBuilder);
-            if (wrap && tmp.length() >0) {
-                builder.append('(').append(tmp).append(')');
-            } else {
-                builder.append(tmp);
-            }
-            isFirst = false;
-        }
-        return builder.toString();
+    protected AndFilter detach() {
+        // move the children to the new node... no need to copy them
+        AndFilter detached = new AndFilter();
+        detached.filters.addAll(filters);
+        filters.clear();
+        return detached;
+    }
+
+    @Override
+    protected void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder) {
+        appendFilters(queryBuilder, builder, " AND ");
     }
 
     @Override
@@ -89,7 +83,8 @@ public class AndFilter extends ConjunctionFilter {
     }
 
     @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
     public AndFilter clone() {
-        return (AndFilter) super.clone();
+        return new AndFilter(this);
     }
 }
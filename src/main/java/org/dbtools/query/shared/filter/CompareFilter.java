@@ -2,6 +2,7 @@ package org.dbtools.query.shared.filter;
 
 import org.dbtools.query.shared.QueryBuilder;
 import org.dbtools.query.shared.CompareType;
+import org.dbtools.query.shared.QueryUtil;
 
 import javax.annotation.Nonnull;
 
@@ -12,21 +13,28 @@ public class CompareFilter extends Filter {
     protected Object value;
 
     public static CompareFilter create(String field, Object value) {
-        CompareFilter filter = new CompareFilter();
-        filter.filter = CompareFilter.newInstance(field, CompareType.EQUAL, value);
-        return filter;
+        return CompareFilter.newInstance(field, CompareType.EQUAL, value);
     }
 
     public static CompareFilter create(String field, CompareType compareType, Object value) {
-        CompareFilter filter = new CompareFilter();
-        filter.filter = CompareFilter.newInstance(field, compareType, value);
-        return filter;
+        return wrapSubclass(CompareFilter.newInstance(field, compareType, value));
     }
 
     public static CompareFilter create(String field, CompareType compareType) {
-        CompareFilter filter = new CompareFilter();
-        filter.filter = CompareFilter.newInstance(field, compareType);
-        return filter;
+        return wrapSubclass(CompareFilter.newInstance(field, compareType));
+    }
+
+    /**
+     * LIKE, IN and NULL compares are created as subclasses, which override and(field, value) / or(field, value).
+     * The caller expects the CompareFilter versions of those methods, so return them inside a plain CompareFilter.
+     */
+    private static CompareFilter wrapSubclass(CompareFilter filter) {
+        if (filter.getClass() == CompareFilter.class) {
+            return filter;
+        }
+        CompareFilter wrapper = new CompareFilter();
+        wrapper.filter = filter;
+        return wrapper;
     }
 
     private static CompareFilter newInstance(String field, CompareType compareType, Object value) {
@@ -78,9 +86,16 @@ public class CompareFilter extends Filter {
         this.value = value;
     }
 
+    protected CompareFilter(@Nonnull CompareFilter source) {
+        super(source);
+        this.field = source.field;
+        this.compareType = source.compareType;
+        this.value = source.value;
+    }
+
     @Override
-    public String build(@Nonnull QueryBuilder queryBuilder) {
-        StringBuilder builder = new StringBuilder(field);
+    protected void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder) {
+        builder.append(field);
         switch (compareType) {
             case EQUAL:
                 builder.append(" = ");
@@ -103,8 +118,7 @@ public class CompareFilter extends Filter {
             default:
                 throw new IllegalStateException("Invalid QueryCompareType: " + compareType);
         }
-        builder.append(queryBuilder.formatValue(value));
-        return builder.toString();
+        queryBuilder.appendValue(builder, value);
     }
 
     public CompareFilter and(String field, Object value) {
@@ -139,11 +153,34 @@ public class CompareFilter extends Filter {
 
 
     @Override
+    protected boolean nodeHasSubQuery() {
+        return QueryUtil.containsSelect(field);
+    }
+
+    @Override
+    protected boolean canCacheHash() {
+        return !(value instanceof QueryBuilder);
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
     public CompareFilter clone() {
-        CompareFilter clone = (CompareFilter) super.clone();
-        clone.field = this.field;
-        clone.compareType = this.compareType;
-        clone.value = this.value;
-        return clone;
+        return new CompareFilter(this);
+    }
+
+    @Override
+    protected boolean nodeEquals(@Nonnull Filter other) {
+        CompareFilter that = (CompareFilter) other;
+        return QueryUtil.valueEquals(field, that.field)
+                && compareType == that.compareType
+                && QueryUtil.valueEquals(value, that.value);
+    }
+
+    @Override
+    protected int nodeHashCode() {
+        int result = QueryUtil.valueHashCode(field);
+        result = 31 * result + (compareType != null ? compareType.hashCode() : 0);
+        result = 31 * result + QueryUtil.valueHashCode(value);
+        return result;
     }
 }
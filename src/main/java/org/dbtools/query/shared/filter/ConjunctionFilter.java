@@ -1,17 +1,67 @@
 package org.dbtools.query.shared.filter;
 
+import org.dbtools.query.shared.QueryBuilder;
+
+import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.List;
 
 public abstract class ConjunctionFilter extends Filter {
     protected final List<Filter> filters = new ArrayList<Filter>();
 
+    protected ConjunctionFilter() {
+    }
+
+    protected ConjunctionFilter(@Nonnull ConjunctionFilter source) {
+        super(source);
+        for (Filter filter : source.filters) {
+            filters.add(filter.clone());
+        }
+    }
+
+    protected void appendFilters(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder, String separator) {
+        boolean isFirst = true;
+        for (Filter filter : filters) {
+            if (!isFirst) {
+                builder.append(separator);
+            }
+            boolean wrap = filter instanceof ConjunctionFilter || filter.filter instanceof ConjunctionFilter;
+            if (wrap) {
+                int start = builder.length();
+                builder.append('(');
+                filter.appendTo(queryBuilder, builder);
+                if (builder.length() == start + 1) {
+                    builder.setLength(start); // nothing rendered... no parens
+                } else {
+                    builder.append(')');
+                }
+            } else {
+                filter.appendTo(queryBuilder, builder);
+            }
+            isFirst = false;
+        }
+    }
+
     @Override
-    public ConjunctionFilter clone() {
-        ConjunctionFilter clone = (ConjunctionFilter) super.clone();
-        for(Filter filter : this.filters) {
-            clone.filters.add(filter.clone());
+    protected boolean nodeHasSubQuery() {
+        for (Filter filter : filters) {
+            if (filter.hasSubQuery()) {
+                return true;
+            }
         }
-        return clone;
+        return false;
+    }
+
+    @Override
+    public abstract ConjunctionFilter clone();
+
+    @Override
+    protected boolean nodeEquals(@Nonnull Filter other) {
+        return filters.equals(((ConjunctionFilter) other).filters);
+    }
+
+    @Override
+    protected int nodeHashCode() {
+        return filters.hashCode();
     }
 }
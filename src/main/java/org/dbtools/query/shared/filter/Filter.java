@@ -5,19 +5,62 @@ import org.dbtools.query.sql.SQLQueryBuilder;
 
 import javax.annotation.Nonnull;
 
+/**
+ * A single node of a filter tree.  Each predicate (CompareFilter, InFilter, ...) and each conjunction (AndFilter, OrFilter)
+ * is one Filter object; conjunctions hold their child filters directly.
+ *
+ * Calling and() / or() on a filter changes that filter in place: the filter keeps its original predicate in a new child
+ * node and points "filter" at the resulting conjunction.  When "filter" is set, it is rendered instead of this node.
+ */
 public abstract class Filter implements Cloneable {
 
+    /**
+     * Conjunction this filter was turned into by and() / or() (null until then)
+     */
     protected Filter filter = null;
 
+    /**
+     * Hash of the predicate held by this node (0 until computed... only cached when canCacheHash())
+     */
+    private int hash;
+
+    protected Filter() {
+    }
+
+    /**
+     * Copy constructor (used by clone())
+     */
+    protected Filter(@Nonnull Filter source) {
+        if (source.filter != null) {
+            this.filter = source.filter.clone();
+        }
+        this.hash = source.hash;
+    }
+
     public String buildFilter(@Nonnull QueryBuilder queryBuilder) {
+        StringBuilder builder = new StringBuilder();
+        appendTo(queryBuilder, builder);
+        return builder.toString();
+    }
+
+    /**
+     * Renders this filter directly into the given builder (no intermediate Strings are created).
+     */
+    public void appendTo(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder) {
         if (filter != null) {
-            return filter.buildFilter(queryBuilder);
+            filter.appendTo(queryBuilder, builder);
         } else {
-            return build(queryBuilder);
+            append(queryBuilder, builder);
         }
     }
 
-    protected abstract String build(@Nonnull QueryBuilder queryBuilder);
+    protected String build(@Nonnull QueryBuilder queryBuilder) {
+        StringBuilder builder = new StringBuilder();
+        append(queryBuilder, builder);
+        return builder.toString();
+    }
+
+    protected abstract void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder);
 
     public Filter and(Filter... filters) {
         if (filters.length < 1) {
@@ -26,7 +69,7 @@ public abstract class Filter implements Cloneable {
         if (filter instanceof AndFilter) {
             filter.and(filters);
         } else {
-            filter = AndFilter.create(filter, filters);
+            filter = AndFilter.create(filter != null ? filter : detach(), filters);
         }
         return this;
     }
@@ -38,31 +81,102 @@ public abstract class Filter implements Cloneable {
         if (filter instanceof OrFilter) {
             ((OrFilter) filter).or(filters);
         } else {
-            filter = OrFilter.create(filter, filters);
+            filter = OrFilter.create(filter != null ? filter : detach(), filters);
         }
         return this;
     }
 
+    /**
+     * Creates a new node that holds the predicate of this filter, so this filter can become a conjunction
+     * (only called before this filter has been combined with and() / or()).
+     */
+    protected Filter detach() {
+        return clone();
+    }
+
+    /**
+     * @return true if the filter reads a sub-query (such as InFilter.create(field, subQuery), or SELECT in raw SQL)...
+     * the tables it reads are not all known from the query
+     */
+    public boolean hasSubQuery() {
+        return renderedNode().nodeHasSubQuery();
+    }
+
     @Override
     public String toString() {
         return buildFilter(new SQLQueryBuilder());
     }
 
+    /**
+     * Deep copy of this filter.  Each Filter class implements this with its own copy constructor.
+     */
     @Override
-    @SuppressWarnings("CloneDoesntCallSuperClone")
-    public Filter clone() {
-        Class clazz = this.getClass();
-        Filter clone;
-        try {
-            clone = (Filter) clazz.newInstance();
-        } catch (Exception e) {
-            throw new IllegalStateException("Could not clone Filter", e);
+    public abstract Filter clone();
+
+    /**
+     * Structural equality: two filters are equal when they render the same tree.
+     * Filters can be changed by and() / or(), so only the hash of the predicate nodes is cached (see canCacheHash()).
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Filter)) {
+            return false;
+        }
+        Filter node = renderedNode();
+        Filter otherNode = ((Filter) o).renderedNode();
+        if (node.getClass() != otherNode.getClass()) {
+            return false;
+        }
+        if (node.hash != 0 && otherNode.hash != 0 && node.hash != otherNode.hash) {
+            return false;
+        }
+        return node.nodeEquals(otherNode);
+    }
+
+    @Override
+    public int hashCode() {
+        Filter node = renderedNode();
+        int result = node.hash;
+        if (result == 0) {
+            result = 31 * node.getClass().getName().hashCode() + node.nodeHashCode();
+            if (node.canCacheHash()) {
+                node.hash = result;
+            }
         }
+        return result;
+    }
 
-        if (this.filter != null) {
-            clone.filter = this.filter.clone();
+    /**
+     * @return the node that is rendered for this filter
+     */
+    private Filter renderedNode() {
+        Filter node = this;
+        while (node.filter != null) {
+            node = node.filter;
         }
+        return node;
+    }
 
-        return clone;
+    /**
+     * Compares the predicate held by this node (filter is null for both nodes and other is the same class).
+     */
+    protected abstract boolean nodeEquals(@Nonnull Filter other);
+
+    protected abstract int nodeHashCode();
+
+    /**
+     * @return true if the predicate held by this node does not change once it is created, so its hash can be cached
+     * (false for conjunctions, which and() / or() add to, and for nodes that hold a query builder)
+     */
+    protected boolean canCacheHash() {
+        return false;
     }
+
+    /**
+     * Checks the predicate held by this node for a sub-query (filter is null).
+     */
+    protected abstract boolean nodeHasSubQuery();
 }
@@ -1,6 +1,9 @@
 package org.dbtools.query.shared.filter;
 
+import org.dbtools.query.shared.InListValues;
+import org.dbtools.query.shared.ParameterBuckets;
 import org.dbtools.query.shared.QueryBuilder;
+import org.dbtools.query.shared.QueryUtil;
 
 import javax.annotation.Nonnull;
 import java.util.List;
@@ -11,27 +14,46 @@ public class InFilter extends CompareFilter {
     private QueryBuilder subQuery;
 
     public static InFilter create(String field, Object value) {
-        InFilter filter = new InFilter();
-        filter.filter = InFilter.newInstance(field, true, value);
-        return filter;
+        return InFilter.newInstance(field, true, value);
     }
 
     public static InFilter create(String field, boolean in, Object values) {
-        InFilter filter = new InFilter();
-        filter.filter = InFilter.newInstance(field, in, values);
-        return filter;
+        return InFilter.newInstance(field, in, values);
+    }
+
+    /**
+     * Pads the values to a bucket size by repeating the last value (so a parameterized query only has a few distinct IN list sizes).
+     */
+    public static InFilter create(String field, List<?> values, @Nonnull ParameterBuckets buckets) {
+        return InFilter.newInstance(field, true, buckets.pad(values));
+    }
+
+    public static InFilter create(String field, boolean in, List<?> values, @Nonnull ParameterBuckets buckets) {
+        return InFilter.newInstance(field, in, buckets.pad(values));
+    }
+
+    public static InFilter create(String field, long[] values, @Nonnull ParameterBuckets buckets) {
+        return InFilter.newInstance(field, true, buckets.pad(values));
+    }
+
+    public static InFilter create(String field, boolean in, long[] values, @Nonnull ParameterBuckets buckets) {
+        return InFilter.newInstance(field, in, buckets.pad(values));
+    }
+
+    public static InFilter create(String field, int[] values, @Nonnull ParameterBuckets buckets) {
+        return InFilter.newInstance(field, true, buckets.pad(values));
+    }
+
+    public static InFilter create(String field, boolean in, int[] values, @Nonnull ParameterBuckets buckets) {
+        return InFilter.newInstance(field, in, buckets.pad(values));
     }
 
     public static InFilter create(String field, QueryBuilder subQuery) {
-        InFilter filter = new InFilter();
-        filter.filter = InFilter.newInstance(field, true, subQuery);
-        return filter;
+        return InFilter.newInstance(field, true, subQuery);
     }
 
     public static InFilter create(String field, boolean in, QueryBuilder subQuery) {
-        InFilter filter = new InFilter();
-        filter.filter = InFilter.newInstance(field, in, subQuery);
-        return filter;
+        return InFilter.newInstance(field, in, subQuery);
     }
 
     private static InFilter newInstance(String field, boolean in, Object values) {
@@ -46,9 +68,13 @@ public class InFilter extends CompareFilter {
         super();
     }
 
+    /**
+     * @param value a single value, or a list of values (a List, Collection, Iterable, long[], int[] or String[])
+     */
     protected InFilter(String field, boolean in, Object value) {
-        super(field, null, value);
-        if (value instanceof List && ((List) value).size() < 1) {
+        super(field, null, value instanceof Iterable ? InListValues.toList((Iterable<?>) value) : value);
+        InListValues values = InListValues.of(this.value);
+        if (values != null && values.size() < 1) {
             throw new IllegalArgumentException("List must contain at least on item");
         }
         this.in = in;
@@ -61,9 +87,21 @@ public class InFilter extends CompareFilter {
         this.subQuery = subQuery;
     }
 
+    protected InFilter(@Nonnull InFilter source) {
+        super(source);
+        this.in = source.in;
+        this.subQuery = source.subQuery;
+    }
+
     @Override
-    public String build(@Nonnull QueryBuilder queryBuilder) {
-        StringBuilder builder = new StringBuilder(field);
+    protected void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder) {
+        InListValues values = InListValues.of(value);
+        if (values != null) {
+            queryBuilder.getInListStrategy(values).append(queryBuilder, builder, field, in, values);
+            return;
+        }
+
+        builder.append(field);
         if (in) {
             builder.append(" IN ");
         } else {
@@ -71,18 +109,11 @@ public class InFilter extends CompareFilter {
         }
         builder.append("(");
         if (subQuery != null) {
-            builder.append(subQuery.buildQuery());
-        } else if (value instanceof List) {
-            List list = (List) value;
-            builder.append(queryBuilder.formatValue(list.get(0)));
-            int count = list.size();
-            for (int i = 1; i < count; i++) {
-                builder.append(", ").append(queryBuilder.formatValue(list.get(i)));
-            }
+            queryBuilder.appendSubQuery(builder, subQuery);
         } else {
-            builder.append(queryBuilder.formatValue(value));
+            queryBuilder.appendValue(builder, value);
         }
-        return builder.append(")").toString();
+        builder.append(")");
     }
 
     public InFilter and(String field, Object value) {
@@ -128,10 +159,32 @@ public class InFilter extends CompareFilter {
 
 
     @Override
+    protected boolean nodeHasSubQuery() {
+        return subQuery != null || super.nodeHasSubQuery();
+    }
+
+    @Override
+    protected boolean canCacheHash() {
+        return subQuery == null && super.canCacheHash();
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
     public InFilter clone() {
-        InFilter clone = (InFilter) super.clone();
-        clone.in = this.in;
-        clone.subQuery = this.subQuery;
-        return clone;
+        return new InFilter(this);
+    }
+
+    @Override
+    protected boolean nodeEquals(@Nonnull Filter other) {
+        InFilter that = (InFilter) other;
+        return super.nodeEquals(other) && in == that.in && QueryUtil.valueEquals(subQuery, that.subQuery);
+    }
+
+    @Override
+    protected int nodeHashCode() {
+        int result = super.nodeHashCode();
+        result = 31 * result + (in ? 1 : 0);
+        result = 31 * result + QueryUtil.valueHashCode(subQuery);
+        return result;
     }
 }
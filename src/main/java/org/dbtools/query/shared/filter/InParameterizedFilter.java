@@ -1,5 +1,6 @@
 package org.dbtools.query.shared.filter;
 
+import org.dbtools.query.shared.ParameterBuckets;
 import org.dbtools.query.shared.QueryBuilder;
 
 import javax.annotation.Nonnull;
@@ -9,15 +10,22 @@ public class InParameterizedFilter extends InFilter {
     private int numParams;
 
     public static InParameterizedFilter create(String field, int numParams) {
-        InParameterizedFilter filterFormatter = new InParameterizedFilter();
-        filterFormatter.filter = InParameterizedFilter.newInstance(field, true, numParams);
-        return filterFormatter;
+        return InParameterizedFilter.newInstance(field, true, numParams);
     }
 
     public static InParameterizedFilter create(String field, boolean in, int numParams) {
-        InParameterizedFilter filterFormatter = new InParameterizedFilter();
-        filterFormatter.filter = InParameterizedFilter.newInstance(field, in, numParams);
-        return filterFormatter;
+        return InParameterizedFilter.newInstance(field, in, numParams);
+    }
+
+    /**
+     * Rounds numParams up to a bucket size (pad the values with buckets.pad()).
+     */
+    public static InParameterizedFilter create(String field, int numParams, @Nonnull ParameterBuckets buckets) {
+        return InParameterizedFilter.newInstance(field, true, buckets.bucketSize(numParams));
+    }
+
+    public static InParameterizedFilter create(String field, boolean in, int numParams, @Nonnull ParameterBuckets buckets) {
+        return InParameterizedFilter.newInstance(field, in, buckets.bucketSize(numParams));
     }
 
     private static InParameterizedFilter newInstance(String field, boolean in, int numParams) {
@@ -36,20 +44,26 @@ public class InParameterizedFilter extends InFilter {
         this.numParams = numParams;
     }
 
+    protected InParameterizedFilter(@Nonnull InParameterizedFilter source) {
+        super(source);
+        this.numParams = source.numParams;
+    }
+
     @Override
-    public String build(@Nonnull QueryBuilder queryBuilder) {
-        StringBuilder builder = new StringBuilder(field);
+    protected void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder) {
+        builder.append(field);
         if (in) {
             builder.append(" IN ");
         } else {
             builder.append(" NOT IN ");
         }
-        builder.append("(").append(queryBuilder.getQueryParameter());
+        builder.append("(");
+        queryBuilder.appendParameter(builder, null);
         for (int i = 1; i < numParams; i++) {
-            builder.append(", ").append(queryBuilder.getQueryParameter());
+            builder.append(", ");
+            queryBuilder.appendParameter(builder, null);
         }
         builder.append(")");
-        return builder.toString();
     }
 
     public InParameterizedFilter and(String field, int numParams) {
@@ -73,9 +87,18 @@ public class InParameterizedFilter extends InFilter {
     }
 
     @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
     public InParameterizedFilter clone() {
-        InParameterizedFilter clone = (InParameterizedFilter) super.clone();
-        clone.numParams = this.numParams;
-        return clone;
+        return new InParameterizedFilter(this);
+    }
+
+    @Override
+    protected boolean nodeEquals(@Nonnull Filter other) {
+        return super.nodeEquals(other) && numParams == ((InParameterizedFilter) other).numParams;
+    }
+
+    @Override
+    protected int nodeHashCode() {
+        return 31 * super.nodeHashCode() + numParams;
     }
 }
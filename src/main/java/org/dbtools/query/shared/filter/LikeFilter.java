@@ -1,24 +1,23 @@
 package org.dbtools.query.shared.filter;
 
 
+import org.dbtools.query.shared.Parameter;
 import org.dbtools.query.shared.QueryBuilder;
 
 import javax.annotation.Nonnull;
 
 public class LikeFilter extends CompareFilter {
 
+    private static final String PARAMETER_MARKER = "\u0000";
+
     protected boolean ignoreCase;
 
     public static LikeFilter create(String field, Object value) {
-        LikeFilter filterFormatter = new LikeFilter();
-        filterFormatter.filter = LikeFilter.newInstance(field, value);
-        return filterFormatter;
+        return LikeFilter.newInstance(field, value);
     }
 
     public static LikeFilter create(String field, Object value, boolean ignoreCase) {
-        LikeFilter filterFormatter = new LikeFilter();
-        filterFormatter.filter = LikeFilter.newInstance(field, value, ignoreCase);
-        return filterFormatter;
+        return LikeFilter.newInstance(field, value, ignoreCase);
     }
 
     private static LikeFilter newInstance(String field, Object value) {
@@ -38,15 +37,34 @@ public class LikeFilter extends CompareFilter {
         this.ignoreCase = ignoreCase;
     }
 
+    protected LikeFilter(@Nonnull LikeFilter source) {
+        super(source);
+        this.ignoreCase = source.ignoreCase;
+    }
+
     @Override
-    public String build(@Nonnull QueryBuilder queryBuilder) {
-        String clause;
+    protected void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder) {
+        if (value instanceof Parameter || queryBuilder.getQueryParameter().equals(value)) {
+            // the query parameter is written by the query builder (so it can be numbered / named)
+            String clause = formatLikeClause(queryBuilder, PARAMETER_MARKER);
+            int index = clause.indexOf(PARAMETER_MARKER);
+            if (index >= 0 && clause.indexOf(PARAMETER_MARKER, index + 1) < 0) {
+                builder.append(clause, 0, index);
+                queryBuilder.appendValue(builder, value);
+                builder.append(clause, index + PARAMETER_MARKER.length(), clause.length());
+                return;
+            }
+        }
+
+        builder.append(formatLikeClause(queryBuilder, String.valueOf(queryBuilder.formatValue(value))));
+    }
+
+    private String formatLikeClause(QueryBuilder queryBuilder, String value) {
         if (ignoreCase) {
-            clause = queryBuilder.formatIgnoreCaseLikeClause(field, String.valueOf(queryBuilder.formatValue(value)));
+            return queryBuilder.formatIgnoreCaseLikeClause(field, value);
         } else {
-            clause = queryBuilder.formatLikeClause(field, String.valueOf(queryBuilder.formatValue(value)));
+            return queryBuilder.formatLikeClause(field, value);
         }
-        return clause;
     }
 
     public LikeFilter and(String field, Object value) {
@@ -70,9 +88,18 @@ public class LikeFilter extends CompareFilter {
     }
 
     @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
     public LikeFilter clone() {
-        LikeFilter clone = (LikeFilter) super.clone();
-        clone.ignoreCase = this.ignoreCase;
-        return clone;
+        return new LikeFilter(this);
+    }
+
+    @Override
+    protected boolean nodeEquals(@Nonnull Filter other) {
+        return super.nodeEquals(other) && ignoreCase == ((LikeFilter) other).ignoreCase;
+    }
+
+    @Override
+    protected int nodeHashCode() {
+        return 31 * super.nodeHashCode() + (ignoreCase ? 1 : 0);
     }
 }
@@ -9,15 +9,11 @@ public class NullFilter extends CompareFilter {
     private boolean isNull;
 
     public static NullFilter create(String field) {
-        NullFilter filterFormatter = new NullFilter();
-        filterFormatter.filter = NullFilter.newInstance(field, true);
-        return filterFormatter;
+        return NullFilter.newInstance(field, true);
     }
 
     public static NullFilter create(String field, boolean isNull) {
-        NullFilter filterFormatter = new NullFilter();
-        filterFormatter.filter = NullFilter.newInstance(field, isNull);
-        return filterFormatter;
+        return NullFilter.newInstance(field, isNull);
     }
 
     private static NullFilter newInstance(String field, boolean isNull) {
@@ -33,15 +29,19 @@ public class NullFilter extends CompareFilter {
         this.isNull = isNull;
     }
 
+    protected NullFilter(@Nonnull NullFilter source) {
+        super(source);
+        this.isNull = source.isNull;
+    }
+
     @Override
-    public String build(@Nonnull QueryBuilder queryBuilder) {
-        StringBuilder builder = new StringBuilder(field);
+    protected void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder) {
+        builder.append(field);
         if (isNull) {
             builder.append(" IS NULL");
         } else {
             builder.append(" NOT NULL");
         }
-        return builder.toString();
     }
 
     public NullFilter and(String field) {
@@ -65,9 +65,18 @@ public class NullFilter extends CompareFilter {
     }
 
     @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
     public NullFilter clone() {
-        NullFilter clone = (NullFilter) super.clone();
-        clone.isNull = this.isNull;
-        return clone;
+        return new NullFilter(this);
+    }
+
+    @Override
+    protected boolean nodeEquals(@Nonnull Filter other) {
+        return super.nodeEquals(other) && isNull == ((NullFilter) other).isNull;
+    }
+
+    @Override
+    protected int nodeHashCode() {
+        return 31 * super.nodeHashCode() + (isNull ? 1 : 0);
     }
 }
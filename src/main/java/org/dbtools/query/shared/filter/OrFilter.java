@@ -7,15 +7,11 @@ import javax.annotation.Nonnull;
 public class OrFilter extends ConjunctionFilter {
 
     public static OrFilter create(Filter... filters) {
-        OrFilter orFilter = new OrFilter();
-        orFilter.filter = OrFilter.newInstance(filters);
-        return orFilter;
+        return OrFilter.newInstance(filters);
     }
 
     public static OrFilter create(Filter filter, Filter[] filters) {
-        OrFilter orFilter = new OrFilter();
-        orFilter.filter = OrFilter.newInstance(filter, filters);
-        return orFilter;
+        return OrFilter.newInstance(filter, filters);
     }
 
     private static OrFilter newInstance(Filter... filters) {
@@ -39,24 +35,22 @@ public class OrFilter extends ConjunctionFilter {
 
     protected OrFilter() {}
 
+    protected OrFilter(@Nonnull OrFilter source) {
+        super(source);
+    }
+
     @Override
-    protected String build(@Nonnull QueryBuilder queryBuilder) {
-        StringBuilder builder = new StringBuilder();
-        boolean isFirst = true;
-        for (Filter filter : filters) {
-            if (!isFirst) {
-                builder.append(" OR ");
-            }
-            boolean wrap = filter instanceof ConjunctionFilter || filter.filter instanceof ConjunctionFilter;
-            String tmp = filter.buildFilter(queryBuilder);
-            if (wrap && tmp.length() >0) {
-                builder.append('(').append(tmp).append(')');
-            } else {
-                builder.append(tmp);
-            }
-            isFirst = false;
-        }
-        return builder.toString();
+    protected OrFilter detach() {
+        // move the children to the new node... no need to copy them
+        OrFilter detached = new OrFilter();
+        detached.filters.addAll(filters);
+        filters.clear();
+        return detached;
+    }
+
+    @Override
+    protected void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder) {
+        appendFilters(queryBuilder, builder, " OR ");
     }
 
     @Override
@@ -88,7 +82,8 @@ public class OrFilter extends ConjunctionFilter {
     }
 
     @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
     public OrFilter clone() {
-        return (OrFilter) super.clone();
+        return new OrFilter(this);
     }
 }
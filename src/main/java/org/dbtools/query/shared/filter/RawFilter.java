@@ -1,6 +1,7 @@
 package org.dbtools.query.shared.filter;
 
 import org.dbtools.query.shared.QueryBuilder;
+import org.dbtools.query.shared.QueryUtil;
 
 import javax.annotation.Nonnull;
 
@@ -8,9 +9,7 @@ public class RawFilter extends Filter {
     private String filterString;
 
     public static RawFilter create(String filterString) {
-        RawFilter rawFilterFormatter = new RawFilter();
-        rawFilterFormatter.filter = newInstance(filterString);
-        return rawFilterFormatter;
+        return newInstance(filterString);
     }
 
     private static RawFilter newInstance(String filterString) {
@@ -24,9 +23,14 @@ public class RawFilter extends Filter {
         this.filterString = filterString;
     }
 
+    protected RawFilter(@Nonnull RawFilter source) {
+        super(source);
+        this.filterString = source.filterString;
+    }
+
     @Override
-    public String build(@Nonnull QueryBuilder queryBuilder) {
-        return filterString;
+    protected void append(@Nonnull QueryBuilder queryBuilder, @Nonnull StringBuilder builder) {
+        builder.append(filterString);
     }
 
     public RawFilter and(String filterString) {
@@ -40,9 +44,28 @@ public class RawFilter extends Filter {
     }
 
     @Override
+    protected boolean nodeHasSubQuery() {
+        return QueryUtil.containsSelect(filterString);
+    }
+
+    @Override
+    protected boolean canCacheHash() {
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
     public RawFilter clone() {
-        RawFilter clone = (RawFilter) super.clone();
-        clone.filterString = this.filterString;
-        return clone;
+        return new RawFilter(this);
+    }
+
+    @Override
+    protected boolean nodeEquals(@Nonnull Filter other) {
+        return QueryUtil.valueEquals(filterString, ((RawFilter) other).filterString);
+    }
+
+    @Override
+    protected int nodeHashCode() {
+        return QueryUtil.valueHashCode(filterString);
     }
 }
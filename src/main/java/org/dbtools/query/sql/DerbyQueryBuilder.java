@@ -10,6 +10,10 @@
 package org.dbtools.query.sql;
 
 import org.dbtools.query.shared.DerbyUtil;
+import org.dbtools.query.shared.QueryBuilder;
+
+import javax.annotation.Nonnull;
+import java.util.List;
 
 /**
  *
@@ -17,6 +21,66 @@ import org.dbtools.query.shared.DerbyUtil;
  */
 public class DerbyQueryBuilder extends SQLQueryBuilder {
 
+    public DerbyQueryBuilder() {
+    }
+
+    protected DerbyQueryBuilder(@Nonnull DerbyQueryBuilder source) {
+        super(source);
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public DerbyQueryBuilder clone() {
+        if (getClass() != DerbyQueryBuilder.class) {
+            return (DerbyQueryBuilder) cloneSubclass();
+        }
+        return new DerbyQueryBuilder(this);
+    }
+
+    /**
+     * MERGE INTO table dst USING SYSIBM.SYSDUMMY1 ON key WHEN MATCHED THEN UPDATE ... WHEN NOT MATCHED THEN INSERT ...
+     * (Derby 10.11+).  Derby only merges from a table, so the values are written where they are used (a value can be
+     * written more than once).
+     */
+    @Override
+    protected void appendUpsert(StringBuilder builder, SQLUpsertBuilder upsert, QueryBuilder formatter) {
+        builder.append("MERGE INTO ").append(upsert.getTable()).append(" dst USING SYSIBM.SYSDUMMY1 ON ");
+        List<String> keyColumns = upsert.getKeyColumns();
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (i > 0) {
+                builder.append(" AND ");
+            }
+            builder.append("dst.").append(keyColumns.get(i)).append(" = ");
+            upsert.appendValue(builder, formatter, upsert.getValue(keyColumns.get(i)));
+        }
+
+        List<String> updateColumns = upsert.getUpdateColumns();
+        if (!updateColumns.isEmpty()) {
+            builder.append(" WHEN MATCHED THEN UPDATE SET ");
+            for (int i = 0; i < updateColumns.size(); i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append(updateColumns.get(i)).append(" = ");
+                upsert.appendValue(builder, formatter, upsert.getValue(updateColumns.get(i)));
+            }
+        }
+
+        builder.append(" WHEN NOT MATCHED THEN INSERT (");
+        upsert.appendColumns(builder, upsert.getColumns(), null);
+        builder.append(") VALUES (");
+        upsert.appendValues(builder, formatter);
+        builder.append(')');
+    }
+
+    /**
+     * " OFFSET m ROWS FETCH FIRST n ROWS ONLY"
+     */
+    @Override
+    protected void appendLimitAfterOrderBy(StringBuilder query, QueryBuilder formatter) {
+        appendOffsetFetch(query, formatter);
+    }
+
     @Override
     public String formatIgnoreCaseLikeClause(String column, String value) {
         return DerbyUtil.formatIgnoreCaseLikeClause(column, value);
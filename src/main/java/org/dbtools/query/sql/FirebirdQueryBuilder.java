@@ -10,6 +10,11 @@
 package org.dbtools.query.sql;
 
 import org.dbtools.query.shared.FirebirdUtil;
+import org.dbtools.query.shared.InListStrategy;
+import org.dbtools.query.shared.InListValues;
+import org.dbtools.query.shared.QueryBuilder;
+
+import javax.annotation.Nonnull;
 
 /**
  *
@@ -17,6 +22,75 @@ import org.dbtools.query.shared.FirebirdUtil;
  */
 public class FirebirdQueryBuilder extends SQLQueryBuilder {
 
+    public static final int MAX_IN_LIST_SIZE = 1500;
+
+    public FirebirdQueryBuilder() {
+    }
+
+    protected FirebirdQueryBuilder(@Nonnull FirebirdQueryBuilder source) {
+        super(source);
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public FirebirdQueryBuilder clone() {
+        if (getClass() != FirebirdQueryBuilder.class) {
+            return (FirebirdQueryBuilder) cloneSubclass();
+        }
+        return new FirebirdQueryBuilder(this);
+    }
+
+    /**
+     * Firebird (before 5.0) allows at most 1500 expressions in an IN list and has no VALUES table
+     */
+    @Override
+    protected InListStrategy getInListStrategy(InListValues values, boolean bindingValues) {
+        return InListStrategy.chunked(MAX_IN_LIST_SIZE);
+    }
+
+    /**
+     * Firebird has no multi-row VALUES... rows are inserted one per statement, batched with addBatch()
+     */
+    @Override
+    public int getMaxInsertRows() {
+        return 1;
+    }
+
+    /**
+     * UPDATE OR INSERT INTO table (columns) VALUES (values) MATCHING (key)... every column is updated when the row exists
+     */
+    @Override
+    protected void appendUpsert(StringBuilder builder, SQLUpsertBuilder upsert, QueryBuilder formatter) {
+        builder.append("UPDATE OR INSERT INTO ").append(upsert.getTable()).append(" (");
+        upsert.appendColumns(builder, upsert.getColumns(), null);
+        builder.append(") VALUES (");
+        upsert.appendValues(builder, formatter);
+        builder.append(") MATCHING (");
+        upsert.appendColumns(builder, upsert.getKeyColumns(), null);
+        builder.append(')');
+    }
+
+    /**
+     * "SELECT FIRST n SKIP m ..."
+     */
+    @Override
+    protected void appendLimitAfterSelect(StringBuilder query, QueryBuilder formatter) {
+        if (getLimit() >= 0) {
+            query.append("FIRST ");
+            formatter.appendValue(query, getLimit());
+            query.append(' ');
+        }
+        if (getOffset() > 0) {
+            query.append("SKIP ");
+            formatter.appendValue(query, getOffset());
+            query.append(' ');
+        }
+    }
+
+    @Override
+    protected void appendLimitAfterOrderBy(StringBuilder query, QueryBuilder formatter) {
+    }
+
     @Override
     public String formatIgnoreCaseLikeClause(String column, String value) {
         return FirebirdUtil.formatIgnoreCaseLikeClause(column, value);
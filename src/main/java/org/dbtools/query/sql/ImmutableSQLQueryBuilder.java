@@ -0,0 +1,461 @@
+package org.dbtools.query.sql;
+
+import org.dbtools.query.shared.CompareType;
+import org.dbtools.query.shared.CompiledPage;
+import org.dbtools.query.shared.CompiledQuery;
+import org.dbtools.query.shared.Join;
+import org.dbtools.query.shared.JoinType;
+import org.dbtools.query.shared.PersistentList;
+import org.dbtools.query.shared.QueryUtil;
+import org.dbtools.query.shared.filter.AndFilter;
+import org.dbtools.query.shared.filter.CompareFilter;
+import org.dbtools.query.shared.filter.Filter;
+import org.dbtools.query.shared.filter.RawFilter;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+/**
+ * Immutable version of SQLQueryBuilder.  Every method returns a new builder and leaves this one untouched.
+ * Sections are kept in PersistentLists, so deriving a variant from a base query is O(1) and shares
+ * every untouched section (and the filters) with the base query.
+ *
+ * Filters (and sub-queries) added to this builder are shared by every derived builder and must not be changed afterwards.
+ *
+ * Example:
+ * <pre>
+ * ImmutableSQLQueryBuilder base = ImmutableSQLQueryBuilder.create().table("Car").field("Name");
+ * String fords = base.filter("Car.MAKE", "'Ford'").buildQuery();
+ * </pre>
+ */
+public final class ImmutableSQLQueryBuilder {
+
+    private final SQLQueryBuilder dialect; // empty builder, only used for formatting... never modified
+    private final boolean distinct;
+    private final PersistentList<SQLQueryBuilder.Field> fields;
+    private final PersistentList<String> tables;
+    private final PersistentList<Join> joins;
+    private final PersistentList<Filter> filters;
+    private final PersistentList<String> groupBys;
+    private final PersistentList<Filter> havings;
+    private final PersistentList<String> orderBys;
+    private final Object[] seekValues; // see seekAfter() (null if the query does not seek)
+    private final int limit; // -1: no limit
+    private final int offset;
+
+    private volatile CompiledQuery compiledQuery;
+    private int hash = 0; // structural hash... computed on first use (racy single-check, like String.hashCode())
+
+    private ImmutableSQLQueryBuilder(SQLQueryBuilder dialect, boolean distinct, PersistentList<SQLQueryBuilder.Field> fields,
+                                     PersistentList<String> tables, PersistentList<Join> joins, PersistentList<Filter> filters,
+                                     PersistentList<String> groupBys, PersistentList<Filter> havings, PersistentList<String> orderBys,
+                                     Object[] seekValues, int limit, int offset) {
+        this.dialect = dialect;
+        this.distinct = distinct;
+        this.fields = fields;
+        this.tables = tables;
+        this.joins = joins;
+        this.filters = filters;
+        this.groupBys = groupBys;
+        this.havings = havings;
+        this.orderBys = orderBys;
+        this.seekValues = seekValues;
+        this.limit = limit;
+        this.offset = offset;
+    }
+
+    public static ImmutableSQLQueryBuilder create() {
+        return create(new SQLQueryBuilder());
+    }
+
+    /**
+     * Creates an immutable copy of the given builder.  The given builder is not changed and
+     * can still be used as a mutable builder afterwards.
+     *
+     * @param sqlQueryBuilder builder (or dialect subclass such as PostgresqlQueryBuilder) to copy
+     */
+    public static ImmutableSQLQueryBuilder create(@Nonnull SQLQueryBuilder sqlQueryBuilder) {
+        SQLQueryBuilder copy = sqlQueryBuilder.clone();
+        SQLQueryBuilder dialect = sqlQueryBuilder.clone();
+        dialect.reset(); // the sections, seek values, limit and offset are kept by the immutable builder
+
+        PersistentList<Filter> filters = PersistentList.empty();
+        if (copy.getFilter() != null) {
+            filters = filters.add(copy.getFilter());
+        }
+        PersistentList<Filter> havings = PersistentList.empty();
+        if (copy.getHaving() != null) {
+            havings = havings.add(copy.getHaving());
+        }
+
+        return new ImmutableSQLQueryBuilder(dialect, copy.isDistinct(),
+                PersistentList.copyOf(copy.getFields()),
+                PersistentList.copyOf(copy.getTables()),
+                PersistentList.copyOf(copy.getJoins()),
+                filters,
+                PersistentList.copyOf(copy.getGroupBys()),
+                havings,
+                PersistentList.copyOf(copy.getOrderBys()),
+                copy.getSeekValues(),
+                copy.getLimit(),
+                copy.getOffset());
+    }
+
+    public ImmutableSQLQueryBuilder distinct(boolean distinct) {
+        return new ImmutableSQLQueryBuilder(dialect, distinct, fields, tables, joins, filters, groupBys, havings, orderBys, seekValues, limit, offset);
+    }
+
+    private ImmutableSQLQueryBuilder withFields(PersistentList<SQLQueryBuilder.Field> fields) {
+        return new ImmutableSQLQueryBuilder(dialect, distinct, fields, tables, joins, filters, groupBys, havings, orderBys, seekValues, limit, offset);
+    }
+
+    private ImmutableSQLQueryBuilder withTables(PersistentList<String> tables) {
+        return new ImmutableSQLQueryBuilder(dialect, distinct, fields, tables, joins, filters, groupBys, havings, orderBys, seekValues, limit, offset);
+    }
+
+    private ImmutableSQLQueryBuilder withJoins(PersistentList<Join> joins) {
+        return new ImmutableSQLQueryBuilder(dialect, distinct, fields, tables, joins, filters, groupBys, havings, orderBys, seekValues, limit, offset);
+    }
+
+    private ImmutableSQLQueryBuilder withFilters(PersistentList<Filter> filters) {
+        return new ImmutableSQLQueryBuilder(dialect, distinct, fields, tables, joins, filters, groupBys, havings, orderBys, seekValues, limit, offset);
+    }
+
+    private ImmutableSQLQueryBuilder withGroupBys(PersistentList<String> groupBys) {
+        return new ImmutableSQLQueryBuilder(dialect, distinct, fields, tables, joins, filters, groupBys, havings, orderBys, seekValues, limit, offset);
+    }
+
+    private ImmutableSQLQueryBuilder withHavings(PersistentList<Filter> havings) {
+        return new ImmutableSQLQueryBuilder(dialect, distinct, fields, tables, joins, filters, groupBys, havings, orderBys, seekValues, limit, offset);
+    }
+
+    private ImmutableSQLQueryBuilder withOrderBys(PersistentList<String> orderBys) {
+        return new ImmutableSQLQueryBuilder(dialect, distinct, fields, tables, joins, filters, groupBys, havings, orderBys, seekValues, limit, offset);
+    }
+
+    /**
+     * Adds all sections of the given builder to the sections of this builder.
+     */
+    public ImmutableSQLQueryBuilder apply(@Nonnull ImmutableSQLQueryBuilder other) {
+        return new ImmutableSQLQueryBuilder(dialect, distinct || other.distinct,
+                fields.addAll(other.fields),
+                tables.addAll(other.tables),
+                joins.addAll(other.joins),
+                filters.addAll(other.filters),
+                groupBys.addAll(other.groupBys),
+                havings.addAll(other.havings),
+                orderBys.addAll(other.orderBys),
+                seekValues, limit, offset);
+    }
+
+    public ImmutableSQLQueryBuilder field(String fieldName) {
+        return withFields(fields.add(new SQLQueryBuilder.Field(fieldName)));
+    }
+
+    public ImmutableSQLQueryBuilder field(String fieldName, String alias) {
+        return withFields(fields.add(new SQLQueryBuilder.Field(fieldName, alias)));
+    }
+
+    public ImmutableSQLQueryBuilder field(String tablename, String fieldName, String alias) {
+        return withFields(fields.add(new SQLQueryBuilder.Field(tablename + "." + fieldName, alias)));
+    }
+
+    public ImmutableSQLQueryBuilder fields(String... fieldNames) {
+        PersistentList<SQLQueryBuilder.Field> newFields = fields;
+        for (String fieldName : fieldNames) {
+            newFields = newFields.add(new SQLQueryBuilder.Field(fieldName));
+        }
+        return withFields(newFields);
+    }
+
+    public ImmutableSQLQueryBuilder table(String tableName) {
+        return withTables(tables.add(tableName));
+    }
+
+    public ImmutableSQLQueryBuilder table(String tableName, String alias) {
+        return withTables(tables.add(tableName + " " + alias));
+    }
+
+    public ImmutableSQLQueryBuilder join(String field1, String field2) {
+        return filter(CompareFilter.create(field1, field2));
+    }
+
+    public ImmutableSQLQueryBuilder join(String tableName, String field1, String field2) {
+        return join(JoinType.JOIN, tableName, field1, field2);
+    }
+
+    public ImmutableSQLQueryBuilder join(JoinType joinType, String tableName, String field1, String field2) {
+        return join(new Join(joinType, tableName, CompareFilter.create(field1, field2)));
+    }
+
+    public ImmutableSQLQueryBuilder join(String tableName, Filter... filters) {
+        return join(JoinType.JOIN, tableName, filters);
+    }
+
+    public ImmutableSQLQueryBuilder join(JoinType joinType, String tableName, Filter... filters) {
+        return join(new Join(joinType, tableName, AndFilter.create(filters)));
+    }
+
+    public ImmutableSQLQueryBuilder join(Join join) {
+        return withJoins(joins.add(join));
+    }
+
+    public ImmutableSQLQueryBuilder filter(String field, Object value) {
+        return filter(CompareFilter.create(field, value));
+    }
+
+    public ImmutableSQLQueryBuilder filter(String field, CompareType compare, Object value) {
+        return filter(CompareFilter.create(field, compare, value));
+    }
+
+    public ImmutableSQLQueryBuilder filter(String field, CompareType compare) {
+        return filter(CompareFilter.create(field, compare));
+    }
+
+    public ImmutableSQLQueryBuilder filter(String filter) {
+        return filter(RawFilter.create(filter));
+    }
+
+    /**
+     * Adds a filter (ANDed with the existing filters).  The filter must not be changed after it is added.
+     */
+    public ImmutableSQLQueryBuilder filter(Filter filter) {
+        return withFilters(filters.add(filter));
+    }
+
+    public ImmutableSQLQueryBuilder groupBy(String item) {
+        return withGroupBys(groupBys.add(item));
+    }
+
+    public ImmutableSQLQueryBuilder having(String field, Object value) {
+        return having(CompareFilter.create(field, value));
+    }
+
+    public ImmutableSQLQueryBuilder having(String field, CompareType compare, Object value) {
+        return having(CompareFilter.create(field, compare, value));
+    }
+
+    public ImmutableSQLQueryBuilder having(String field, CompareType compare) {
+        return having(CompareFilter.create(field, compare));
+    }
+
+    public ImmutableSQLQueryBuilder having(String filter) {
+        return having(RawFilter.create(filter));
+    }
+
+    /**
+     * Adds a having filter (ANDed with the existing having filters).  The filter must not be changed after it is added.
+     */
+    public ImmutableSQLQueryBuilder having(Filter having) {
+        return withHavings(havings.add(having));
+    }
+
+    public ImmutableSQLQueryBuilder orderBy(String item) {
+        return withOrderBys(orderBys.add(item));
+    }
+
+    public ImmutableSQLQueryBuilder orderBy(String... items) {
+        PersistentList<String> newOrderBys = orderBys;
+        for (String item : items) {
+            newOrderBys = newOrderBys.add(item);
+        }
+        return withOrderBys(newOrderBys);
+    }
+
+    public ImmutableSQLQueryBuilder orderBy(String item, boolean ascending) {
+        String direction = ascending ? "ASC" : "DESC";
+        return withOrderBys(orderBys.add(item + " " + direction));
+    }
+
+    /**
+     * Keyset (seek) pagination (see SQLQueryBuilder.seekAfter()).
+     *
+     * @param lastRowValues value of each orderBy() of the last row of the previous page, in order (none for the first page)
+     */
+    public ImmutableSQLQueryBuilder seekAfter(Object... lastRowValues) {
+        return new ImmutableSQLQueryBuilder(dialect, distinct, fields, tables, joins, filters, groupBys, havings, orderBys,
+                lastRowValues.length > 0 ? lastRowValues.clone() : null, limit, offset);
+    }
+
+    /**
+     * Max number of rows (see SQLQueryBuilder.limit()).
+     *
+     * @param limit max number of rows (-1 for no limit)
+     */
+    public ImmutableSQLQueryBuilder limit(int limit) {
+        return new ImmutableSQLQueryBuilder(dialect, distinct, fields, tables, joins, filters, groupBys, havings, orderBys, seekValues, limit, offset);
+    }
+
+    /**
+     * Number of rows to skip (see SQLQueryBuilder.offset()).
+     */
+    public ImmutableSQLQueryBuilder offset(int offset) {
+        return new ImmutableSQLQueryBuilder(dialect, distinct, fields, tables, joins, filters, groupBys, havings, orderBys, seekValues, limit, offset);
+    }
+
+    /**
+     * @return a new mutable builder containing copies of the sections of this builder
+     */
+    public SQLQueryBuilder toBuilder() {
+        return view().clone();
+    }
+
+    /**
+     * Mutable builder that reads directly from the sections of this builder (nothing is copied).  Only used for rendering.
+     */
+    private SQLQueryBuilder view() {
+        SQLQueryBuilder view = dialect.clone();
+        view.setSections(distinct, fields.asList(), tables.asList(), joins.asList(), combine(filters),
+                groupBys.asList(), combine(havings), orderBys.asList());
+        if (seekValues != null) {
+            view.seekAfter(seekValues);
+        }
+        view.limit(limit).offset(offset);
+        return view;
+    }
+
+    /**
+     * ANDs the filters together without changing any of them.
+     */
+    private static Filter combine(PersistentList<Filter> filters) {
+        switch (filters.size()) {
+            case 0:
+                return null;
+            case 1:
+                return filters.asList().get(0);
+            default:
+                List<Filter> filterList = filters.asList();
+                return AndFilter.create(filterList.toArray(new Filter[filterList.size()]));
+        }
+    }
+
+    /**
+     * @return the compiled query (rendered only once for each ImmutableSQLQueryBuilder)
+     */
+    public CompiledQuery compile() {
+        CompiledQuery result = compiledQuery;
+        if (result == null) {
+            result = view().compile();
+            compiledQuery = result;
+        }
+        return result;
+    }
+
+    public CompiledQuery compile(boolean countOnly) {
+        return countOnly ? view().compile(true) : compile();
+    }
+
+    /**
+     * @return page query and count query rendered in one pass
+     */
+    public CompiledPage compilePage() {
+        return view().compilePage();
+    }
+
+    public String buildQuery() {
+        return compile().getQuery();
+    }
+
+    public String buildQuery(boolean countOnly) {
+        return compile(countOnly).getQuery();
+    }
+
+    public boolean isDistinct() {
+        return distinct;
+    }
+
+    public List<String> getTables() {
+        return tables.asList();
+    }
+
+    public List<Join> getJoins() {
+        return joins.asList();
+    }
+
+    public List<Filter> getFilters() {
+        return filters.asList();
+    }
+
+    public List<String> getGroupBys() {
+        return groupBys.asList();
+    }
+
+    public List<Filter> getHavings() {
+        return havings.asList();
+    }
+
+    public List<String> getOrderBys() {
+        return orderBys.asList();
+    }
+
+    /**
+     * @return values given to seekAfter() (null if the query does not seek)
+     */
+    public Object[] getSeekValues() {
+        return seekValues != null ? seekValues.clone() : null;
+    }
+
+    /**
+     * @return max number of rows (-1 if there is no limit)
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Structural equality: same dialect and equal sections.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImmutableSQLQueryBuilder)) {
+            return false;
+        }
+        ImmutableSQLQueryBuilder that = (ImmutableSQLQueryBuilder) o;
+        return hashCode() == that.hashCode()
+                && distinct == that.distinct
+                && dialect.equals(that.dialect)
+                && fields.equals(that.fields)
+                && tables.equals(that.tables)
+                && joins.equals(that.joins)
+                && filters.equals(that.filters)
+                && groupBys.equals(that.groupBys)
+                && havings.equals(that.havings)
+                && orderBys.equals(that.orderBys)
+                && QueryUtil.valueEquals(seekValues, that.seekValues)
+                && limit == that.limit
+                && offset == that.offset;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            result = dialect.hashCode();
+            result = 31 * result + (distinct ? 1 : 0);
+            result = 31 * result + fields.hashCode();
+            result = 31 * result + tables.hashCode();
+            result = 31 * result + joins.hashCode();
+            result = 31 * result + filters.hashCode();
+            result = 31 * result + groupBys.hashCode();
+            result = 31 * result + havings.hashCode();
+            result = 31 * result + orderBys.hashCode();
+            result = 31 * result + QueryUtil.valueHashCode(seekValues);
+            result = 31 * result + limit;
+            result = 31 * result + offset;
+            hash = result;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return buildQuery();
+    }
+}
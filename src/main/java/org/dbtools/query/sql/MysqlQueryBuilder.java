@@ -10,23 +10,137 @@
 
 package org.dbtools.query.sql;
 
+import org.dbtools.query.shared.InListStrategy;
+import org.dbtools.query.shared.InListValues;
+import org.dbtools.query.shared.QueryBuilder;
 import org.dbtools.query.shared.QueryUtil;
 
+import javax.annotation.Nonnull;
+import java.util.List;
+
 /**
  *
  * @author Jeff
  */
 public class MysqlQueryBuilder extends SQLQueryBuilder {
 
+    public MysqlQueryBuilder() {
+    }
+
+    protected MysqlQueryBuilder(@Nonnull MysqlQueryBuilder source) {
+        super(source);
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public MysqlQueryBuilder clone() {
+        if (getClass() != MysqlQueryBuilder.class) {
+            return (MysqlQueryBuilder) cloneSubclass();
+        }
+        return new MysqlQueryBuilder(this);
+    }
+
     @Override
     public String formatLikeClause(String column, String value) {
         return QueryUtil.formatLikeClause(column, value);
     }
     
+    @Override
+    public boolean supportsRowValues() {
+        return true;
+    }
+
+    /**
+     * MySQL also reads a backslash in a literal as an escape (unless NO_BACKSLASH_ESCAPES is set), so it is doubled
+     */
+    @Override
+    public void appendString(StringBuilder builder, String value) {
+        builder.append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\'' || c == '\\') {
+                builder.append(c);
+            }
+            builder.append(c);
+        }
+        builder.append('\'');
+    }
+
+    /**
+     * " LIMIT n OFFSET m" (MySQL needs a LIMIT for an OFFSET... the largest row count is used for no limit)
+     */
+    @Override
+    protected void appendLimitAfterOrderBy(StringBuilder query, QueryBuilder formatter) {
+        query.append(" LIMIT ");
+        if (getLimit() >= 0) {
+            formatter.appendValue(query, getLimit());
+        } else {
+            query.append("18446744073709551615");
+        }
+        if (getOffset() > 0) {
+            query.append(" OFFSET ");
+            formatter.appendValue(query, getOffset());
+        }
+    }
+
     @Override
     public String formatIgnoreCaseLikeClause(String column, String value) {
         return formatLikeClause(column, value);
     }
+
+    /**
+     * No limit on rows (other than max_allowed_packet), at most 65535 query parameters
+     */
+    @Override
+    public int getMaxInsertRows() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int getMaxQueryParameters() {
+        return 65535;
+    }
+
+    /**
+     * Connector/J reads the whole result into memory unless the fetch size is Integer.MIN_VALUE (row by row streaming)
+     */
+    @Override
+    public int getFetchSize() {
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * INSERT ... ON DUPLICATE KEY UPDATE column = VALUES(column) (the row conflicts on any unique key)
+     */
+    @Override
+    protected void appendUpsert(StringBuilder builder, SQLUpsertBuilder upsert, QueryBuilder formatter) {
+        upsert.appendInsert(builder, formatter);
+        builder.append(" ON DUPLICATE KEY UPDATE ");
+
+        List<String> updateColumns = upsert.getUpdateColumns();
+        if (updateColumns.isEmpty()) {
+            // leave the existing row as it is
+            String key = upsert.getKeyColumns().get(0);
+            builder.append(key).append(" = ").append(key);
+            return;
+        }
+
+        for (int i = 0; i < updateColumns.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            String column = updateColumns.get(i);
+            builder.append(column).append(" = VALUES(").append(column).append(')');
+        }
+    }
+
+    /**
+     * MySQL has no limit on IN lists (other than max_allowed_packet) and only supports VALUES tables (as VALUES ROW(...)) since 8.0.19
+     */
+    @Override
+    protected InListStrategy getInListStrategy(InListValues values, boolean bindingValues) {
+        return InListStrategy.inline();
+    }
     
     
 }
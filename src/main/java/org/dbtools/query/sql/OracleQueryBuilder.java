@@ -5,7 +5,14 @@
  */
 package org.dbtools.query.sql;
 
+import org.dbtools.query.shared.InListStrategy;
+import org.dbtools.query.shared.InListValues;
 import org.dbtools.query.shared.OracleUtil;
+import org.dbtools.query.shared.ParameterStyle;
+import org.dbtools.query.shared.QueryBuilder;
+
+import javax.annotation.Nonnull;
+import java.util.List;
 
 /**
  *
@@ -13,6 +20,162 @@ import org.dbtools.query.shared.OracleUtil;
  */
 public class OracleQueryBuilder extends SQLQueryBuilder {
 
+    public static final int MAX_IN_LIST_SIZE = 1000;
+
+    private boolean rownumLimit = false;
+
+    public OracleQueryBuilder() {
+    }
+
+    protected OracleQueryBuilder(@Nonnull OracleQueryBuilder source) {
+        super(source);
+        rownumLimit = source.rownumLimit;
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public OracleQueryBuilder clone() {
+        if (getClass() != OracleQueryBuilder.class) {
+            OracleQueryBuilder clone = (OracleQueryBuilder) cloneSubclass();
+            clone.rownumLimit = rownumLimit;
+            return clone;
+        }
+        return new OracleQueryBuilder(this);
+    }
+
+    @Override
+    public ParameterStyle getNativeParameterStyle() {
+        return ParameterStyle.COLON_NUMBERED;
+    }
+
+    /**
+     * Oracle allows at most 1000 expressions in an IN list (ORA-01795)
+     */
+    @Override
+    protected InListStrategy getInListStrategy(InListValues values, boolean bindingValues) {
+        return InListStrategy.chunked(MAX_IN_LIST_SIZE);
+    }
+
+    /**
+     * Oracle has no multi-row VALUES (before 23c)... rows are inserted one per statement, batched with addBatch()
+     */
+    @Override
+    public int getMaxInsertRows() {
+        return 1;
+    }
+
+    @Override
+    public int getMaxQueryParameters() {
+        return 65535;
+    }
+
+    /**
+     * The Oracle driver fetches 10 rows per round trip by default
+     */
+    @Override
+    public int getFetchSize() {
+        return 500;
+    }
+
+    /**
+     * MERGE INTO table dst USING (SELECT values FROM DUAL) src ON (key) WHEN MATCHED THEN UPDATE ... WHEN NOT MATCHED THEN INSERT ...
+     */
+    @Override
+    protected void appendUpsert(StringBuilder builder, SQLUpsertBuilder upsert, QueryBuilder formatter) {
+        List<String> columns = upsert.getColumns();
+        builder.append("MERGE INTO ").append(upsert.getTable()).append(" dst USING (SELECT ");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            upsert.appendValue(builder, formatter, upsert.getValue(columns.get(i)));
+            builder.append(" AS ").append(columns.get(i));
+        }
+        builder.append(" FROM DUAL) src ON (");
+
+        List<String> keyColumns = upsert.getKeyColumns();
+        for (int i = 0; i < keyColumns.size(); i++) {
+            if (i > 0) {
+                builder.append(" AND ");
+            }
+            builder.append("dst.").append(keyColumns.get(i)).append(" = src.").append(keyColumns.get(i));
+        }
+        builder.append(')');
+
+        List<String> updateColumns = upsert.getUpdateColumns();
+        if (!updateColumns.isEmpty()) {
+            builder.append(" WHEN MATCHED THEN UPDATE SET ");
+            for (int i = 0; i < updateColumns.size(); i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append("dst.").append(updateColumns.get(i)).append(" = src.").append(updateColumns.get(i));
+            }
+        }
+
+        builder.append(" WHEN NOT MATCHED THEN INSERT (");
+        upsert.appendColumns(builder, columns, null);
+        builder.append(") VALUES (");
+        upsert.appendColumns(builder, columns, "src.");
+        builder.append(')');
+    }
+
+    /**
+     * Limits queries with ROWNUM (Oracle before 12c) instead of OFFSET / FETCH FIRST.
+     */
+    public OracleQueryBuilder rownumLimit(boolean rownumLimit) {
+        this.rownumLimit = rownumLimit;
+        return this;
+    }
+
+    public boolean isRownumLimit() {
+        return rownumLimit;
+    }
+
+    /**
+     * ROWNUM: "SELECT * FROM (SELECT rownumQuery.*, ROWNUM rownumIndex FROM (query) rownumQuery WHERE ROWNUM <= offset + n) WHERE rownumIndex > offset"
+     */
+    @Override
+    protected void appendLimitBeforeSelect(StringBuilder query, QueryBuilder formatter) {
+        if (rownumLimit) {
+            query.append(getOffset() > 0 ? "SELECT * FROM (SELECT rownumQuery.*, ROWNUM rownumIndex FROM (" : "SELECT * FROM (");
+        }
+    }
+
+    /**
+     * " OFFSET m ROWS FETCH FIRST n ROWS ONLY" (12c+), or the end of the ROWNUM query
+     */
+    @Override
+    protected void appendLimitAfterOrderBy(StringBuilder query, QueryBuilder formatter) {
+        if (!rownumLimit) {
+            appendOffsetFetch(query, formatter);
+            return;
+        }
+
+        if (getOffset() > 0) {
+            query.append(") rownumQuery");
+            if (getLimit() >= 0) {
+                query.append(" WHERE ROWNUM <= ");
+                formatter.appendValue(query, getOffset() + getLimit());
+            }
+            query.append(") WHERE rownumIndex > ");
+            formatter.appendValue(query, getOffset());
+        } else {
+            query.append(") WHERE ROWNUM <= ");
+            formatter.appendValue(query, getLimit());
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && rownumLimit == ((OracleQueryBuilder) o).rownumLimit;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + (rownumLimit ? 1 : 0);
+    }
+
     @Override
     public String formatIgnoreCaseLikeClause(String column, String value) {
         return OracleUtil.formatIgnoreCaseLikeClause(column, value);
@@ -10,7 +10,13 @@
 
 package org.dbtools.query.sql;
 
+import org.dbtools.query.shared.InListStrategy;
+import org.dbtools.query.shared.InListValues;
+import org.dbtools.query.shared.ParameterStyle;
 import org.dbtools.query.shared.PostgresqlUtil;
+import org.dbtools.query.shared.QueryBuilder;
+
+import javax.annotation.Nonnull;
 
 /**
  *
@@ -18,6 +24,116 @@ import org.dbtools.query.shared.PostgresqlUtil;
  */
 public class PostgresqlQueryBuilder extends SQLQueryBuilder {
 
+    public PostgresqlQueryBuilder() {
+    }
+
+    protected PostgresqlQueryBuilder(@Nonnull PostgresqlQueryBuilder source) {
+        super(source);
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public PostgresqlQueryBuilder clone() {
+        if (getClass() != PostgresqlQueryBuilder.class) {
+            return (PostgresqlQueryBuilder) cloneSubclass();
+        }
+        return new PostgresqlQueryBuilder(this);
+    }
+
+    @Override
+    public ParameterStyle getNativeParameterStyle() {
+        return ParameterStyle.DOLLAR_NUMBERED;
+    }
+
+    /**
+     * Bound lists of numbers are bound as one array ("field = ANY(?)"), so every size of list has the same query.
+     */
+    @Override
+    protected InListStrategy getInListStrategy(InListValues values, boolean bindingValues) {
+        String arrayType = bindingValues ? getArrayType(values) : null;
+        return arrayType != null ? InListStrategy.array(arrayType) : super.getInListStrategy(values, bindingValues);
+    }
+
+    /**
+     * @return array type for the values, null if the values do not fit one numeric type
+     */
+    private static String getArrayType(InListValues values) {
+        if (values.getPrimitiveType() == long.class) {
+            return "int8";
+        } else if (values.getPrimitiveType() == int.class) {
+            return "int4";
+        }
+
+        String type = null;
+        int count = values.size();
+        for (int i = 0; i < count; i++) {
+            Object value = values.get(i);
+            String valueType;
+            if (value instanceof Long) {
+                valueType = "int8";
+            } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                valueType = "int4";
+            } else if (value instanceof Double || value instanceof Float) {
+                valueType = "float8";
+            } else {
+                return null;
+            }
+
+            if (type == null || "int4".equals(type) && "int8".equals(valueType)) {
+                type = valueType;
+            } else if (!type.equals(valueType) && !("int8".equals(type) && "int4".equals(valueType))) {
+                return null;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * No limit on rows... the wire protocol allows at most 32767 query parameters (pgjdbc)
+     */
+    @Override
+    public int getMaxInsertRows() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public int getMaxQueryParameters() {
+        return 32767;
+    }
+
+    /**
+     * pgjdbc reads the whole result into memory unless a fetch size is set (and auto-commit is off)
+     */
+    @Override
+    public int getFetchSize() {
+        return 1000;
+    }
+
+    @Override
+    public boolean isFetchSizeTransactional() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsRowValues() {
+        return true;
+    }
+
+    /**
+     * " LIMIT n OFFSET m"
+     */
+    @Override
+    protected void appendLimitAfterOrderBy(StringBuilder query, QueryBuilder formatter) {
+        if (getLimit() >= 0) {
+            query.append(" LIMIT ");
+            formatter.appendValue(query, getLimit());
+        }
+        if (getOffset() > 0) {
+            query.append(" OFFSET ");
+            formatter.appendValue(query, getOffset());
+        }
+    }
+
     @Override
     public String formatIgnoreCaseLikeClause(String column, String value) {
         return PostgresqlUtil.formatIgnoreCaseLikeClause(column, value);
@@ -0,0 +1,74 @@
+package org.dbtools.query.sql;
+
+import org.dbtools.query.shared.CompareType;
+import org.dbtools.query.shared.QueryBuilder;
+import org.dbtools.query.shared.filter.CompareFilter;
+import org.dbtools.query.shared.filter.Filter;
+import org.dbtools.query.shared.filter.RawFilter;
+
+import javax.annotation.Nonnull;
+
+/**
+ * DELETE FROM table WHERE filter
+ */
+public class SQLDeleteBuilder extends SQLWriteBuilder {
+
+    public SQLDeleteBuilder(@Nonnull String table) {
+        this(new SQLQueryBuilder(), table);
+    }
+
+    /**
+     * @param dialect formats the statement (see SQLQueryBuilder.deleteFrom())
+     */
+    public SQLDeleteBuilder(@Nonnull SQLQueryBuilder dialect, @Nonnull String table) {
+        super(dialect, table);
+    }
+
+    protected SQLDeleteBuilder(@Nonnull SQLDeleteBuilder source) {
+        super(source);
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public SQLDeleteBuilder clone() {
+        return new SQLDeleteBuilder(this);
+    }
+
+    public SQLDeleteBuilder filter(String field, Object value) {
+        return filter(CompareFilter.create(field, value));
+    }
+
+    public SQLDeleteBuilder filter(String field, CompareType compare, Object value) {
+        return filter(CompareFilter.create(field, compare, value));
+    }
+
+    public SQLDeleteBuilder filter(String field, CompareType compare) {
+        switch (compare) {
+            case IS_NULL:
+            case NOT_NULL:
+                return filter(CompareFilter.create(field, compare, null));
+            default:
+                throw new IllegalArgumentException("Illegal 1 argument compare " + compare.toString());
+        }
+    }
+
+    public SQLDeleteBuilder filter(String filter) {
+        return filter(RawFilter.create(filter));
+    }
+
+    public SQLDeleteBuilder filter(Filter filter) {
+        addFilter(filter);
+        return this;
+    }
+
+    @Override
+    protected void appendStatement(StringBuilder builder, QueryBuilder formatter) {
+        builder.append("DELETE FROM ").append(table);
+        appendWhere(builder, formatter);
+    }
+
+    @Override
+    protected int estimateLength() {
+        return 32 + table.length() + (filter != null ? 64 : 0);
+    }
+}
@@ -0,0 +1,179 @@
+package org.dbtools.query.sql;
+
+import org.dbtools.query.shared.BindingQueryBuilder;
+import org.dbtools.query.shared.Bindings;
+import org.dbtools.query.shared.CompiledBatch;
+import org.dbtools.query.shared.CompiledQuery;
+import org.dbtools.query.shared.QueryBuilder;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * INSERT INTO table (columns) VALUES (row 1), (row 2), ...
+ * <pre>
+ * SQLInsertBuilder insert = new PostgresqlQueryBuilder().parameterize(true).insertInto("Car");
+ * insert.columns("NAME", "WHEELS");
+ * insert.values("Civic", 4);
+ * insert.values("Bus", 6);
+ * for (CompiledBatch batch : insert.compileBatches()) {
+ *     ...prepare batch.getQuery(), batch.addBatch(statement), statement.executeBatch()
+ * }
+ * </pre>
+ */
+public class SQLInsertBuilder extends SQLWriteBuilder {
+
+    // NOTE: if any NEW variables are added BE SURE TO PUT IT INTO THE copy constructor
+    private List<String> columns = new ArrayList<String>();
+    private List<Object[]> rows = new ArrayList<Object[]>();
+
+    public SQLInsertBuilder(@Nonnull String table) {
+        this(new SQLQueryBuilder(), table);
+    }
+
+    /**
+     * @param dialect formats the statement (see SQLQueryBuilder.insertInto())
+     */
+    public SQLInsertBuilder(@Nonnull SQLQueryBuilder dialect, @Nonnull String table) {
+        super(dialect, table);
+    }
+
+    protected SQLInsertBuilder(@Nonnull SQLInsertBuilder source) {
+        super(source);
+        columns = new ArrayList<String>(source.columns);
+        rows = new ArrayList<Object[]>(source.rows.size());
+        for (Object[] row : source.rows) {
+            rows.add(row.clone());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public SQLInsertBuilder clone() {
+        return new SQLInsertBuilder(this);
+    }
+
+    public SQLInsertBuilder columns(String... columns) {
+        Collections.addAll(this.columns, columns);
+        return this;
+    }
+
+    /**
+     * Adds a row (one value for each column).
+     */
+    public SQLInsertBuilder values(Object... values) {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Row has " + values.length + " values for " + columns.size() + " columns");
+        }
+        rows.add(values.clone());
+        return this;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    /**
+     * @return max number of rows written into one statement by compileBatches(), limited by the dialect
+     * (see SQLQueryBuilder.getMaxInsertRows() and getMaxQueryParameters())
+     */
+    public int getRowsPerStatement() {
+        int rowsPerStatement = dialect.getMaxInsertRows();
+        if (dialect.isParameterized() && columns.size() > 0) {
+            rowsPerStatement = Math.min(rowsPerStatement, dialect.getMaxQueryParameters() / columns.size());
+        }
+        return Math.max(1, rowsPerStatement);
+    }
+
+    /**
+     * Splits the rows into statements of at most getRowsPerStatement() rows.  Statements with the same SQL (such as
+     * every full statement of a parameterized insert) are grouped, so each CompiledBatch is one prepared statement.
+     *
+     * @throws IllegalArgumentException if a query parameter has no value (such as a raw "?")
+     */
+    public List<CompiledBatch> compileBatches() {
+        checkRows();
+        int rowsPerStatement = getRowsPerStatement();
+        Map<String, List<Bindings>> statements = new LinkedHashMap<String, List<Bindings>>();
+        Map<String, Object> noNamedValues = Collections.emptyMap();
+        for (int start = 0; start < rows.size(); start += rowsPerStatement) {
+            BindingQueryBuilder binder = newBindingQueryBuilder();
+            StringBuilder builder = new StringBuilder(estimateLength());
+            appendStatement(builder, binder, start, Math.min(start + rowsPerStatement, rows.size()));
+            CompiledQuery statement = binder.compile(builder.toString(), 0);
+
+            List<Bindings> bindings = statements.get(statement.getQuery());
+            if (bindings == null) {
+                bindings = new ArrayList<Bindings>();
+                statements.put(statement.getQuery(), bindings);
+            }
+            bindings.add(statement.bind(noNamedValues));
+        }
+
+        List<CompiledBatch> batches = new ArrayList<CompiledBatch>(statements.size());
+        for (Map.Entry<String, List<Bindings>> entry : statements.entrySet()) {
+            batches.add(new CompiledBatch(entry.getKey(), entry.getValue()));
+        }
+        return batches;
+    }
+
+    private void checkRows() {
+        if (columns.isEmpty() || rows.isEmpty()) {
+            throw new IllegalStateException("INSERT INTO " + table + " needs columns and at least one row");
+        }
+    }
+
+    /**
+     * Renders every row into one statement (see compileBatches() to stay within the limits of the database).
+     */
+    @Override
+    protected void appendStatement(StringBuilder builder, QueryBuilder formatter) {
+        checkRows();
+        appendStatement(builder, formatter, 0, rows.size());
+    }
+
+    private void appendStatement(StringBuilder builder, QueryBuilder formatter, int fromRow, int toRow) {
+        builder.append("INSERT INTO ").append(table).append(" (");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(columns.get(i));
+        }
+        builder.append(") VALUES ");
+
+        for (int row = fromRow; row < toRow; row++) {
+            if (row > fromRow) {
+                builder.append(", ");
+            }
+            builder.append('(');
+            Object[] values = rows.get(row);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                appendValue(builder, formatter, values[i]);
+            }
+            builder.append(')');
+        }
+    }
+
+    @Override
+    protected int estimateLength() {
+        return 32 + table.length() + (columns.size() * 16) + Math.min(rows.size(), getRowsPerStatement()) * (columns.size() * 8 + 4);
+    }
+
+    @Override
+    public String toString() {
+        // an incomplete insert can not be rendered
+        return columns.isEmpty() || rows.isEmpty() ? "INSERT INTO " + table + " " + columns : buildQuery();
+    }
+}
@@ -9,16 +9,25 @@
  */
 package org.dbtools.query.sql;
 
+import org.dbtools.query.shared.BindingQueryBuilder;
 import org.dbtools.query.shared.CompareType;
+import org.dbtools.query.shared.CompiledPage;
+import org.dbtools.query.shared.CompiledQuery;
+import org.dbtools.query.shared.InListStrategy;
+import org.dbtools.query.shared.InListValues;
 import org.dbtools.query.shared.Join;
 import org.dbtools.query.shared.JoinType;
+import org.dbtools.query.shared.ParameterStyle;
 import org.dbtools.query.shared.QueryBuilder;
+import org.dbtools.query.shared.QueryCache;
 import org.dbtools.query.shared.QueryUtil;
 import org.dbtools.query.shared.filter.AndFilter;
 import org.dbtools.query.shared.filter.CompareFilter;
 import org.dbtools.query.shared.filter.Filter;
 import org.dbtools.query.shared.filter.RawFilter;
 
+import javax.annotation.Nonnull;
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -29,7 +38,7 @@ public class SQLQueryBuilder extends QueryBuilder implements Cloneable {
 
     public static final String DEFAULT_QUERY_PARAMETER = "?";
 
-    // NOTE: if any NEW variables are added BE SURE TO PUT IT INTO THE clone() method
+    // NOTE: if any NEW variables are added BE SURE TO PUT IT INTO THE copy constructor
     private Boolean distinct = null;
     private List<Field> fields;
     private List<String> tables;
@@ -38,51 +47,85 @@ public class SQLQueryBuilder extends QueryBuilder implements Cloneable {
     private List<String> groupBys;
     private Filter having;
     private List<String> orderBys;
-    private String selectClause;
-    private String postSelectClause;
+    private Object[] seekValues; // keyset pagination: order by values of the last row of the previous page
+    private int limit = -1; // max rows (-1: no limit)
+    private int offset = 0;
     private String queryParameter = DEFAULT_QUERY_PARAMETER;
+    private boolean parameterize = false;
+    private ParameterStyle parameterStyle = ParameterStyle.QUESTION_MARK;
 
     public SQLQueryBuilder() {
         reset();
     }
 
-    public static SQLQueryBuilder build() {
-        return new SQLQueryBuilder();
+    /**
+     * Copy constructor (used by clone()).  Subclasses should provide their own copy constructor and override clone()
+     * (see cloneSubclass()).
+     */
+    protected SQLQueryBuilder(@Nonnull SQLQueryBuilder source) {
+        copy(source);
     }
 
-    @Override
-    public SQLQueryBuilder clone() {
-        Class thisClass = this.getClass();
-
-        SQLQueryBuilder clone;
-        try {
-            clone = (SQLQueryBuilder) thisClass.newInstance();
-        } catch (Exception e) {
-            throw new IllegalStateException("Could not clone QueryBuilder", e);
-        }
-
+    private void copy(SQLQueryBuilder source) {
         // mutable.... create new objects!
-        clone.distinct = this.distinct;
-        clone.fields = new ArrayList<Field>(fields);
-        clone.tables = new ArrayList<String>(tables);
+        distinct = source.distinct;
+        fields = new ArrayList<Field>(source.fields);
+        tables = new ArrayList<String>(source.tables);
 
-        clone.joins = new ArrayList<Join>(this.joins);
+        joins = new ArrayList<Join>(source.joins);
 
-        if (this.filter != null) {
-            clone.filter = this.filter.clone();
+        if (source.filter != null) {
+            filter = source.filter.clone();
         }
 
-        clone.groupBys = new ArrayList<String>(groupBys);
-        if (this.having != null) {
-            clone.having = this.having.clone();
+        groupBys = new ArrayList<String>(source.groupBys);
+        if (source.having != null) {
+            having = source.having.clone();
         }
 
-        clone.orderBys = new ArrayList<String>(orderBys);
+        orderBys = new ArrayList<String>(source.orderBys);
+        if (source.seekValues != null) {
+            seekValues = source.seekValues.clone();
+        }
+        limit = source.limit;
+        offset = source.offset;
 
         // immutable.... just assign
-        clone.selectClause = selectClause;
-        clone.postSelectClause = postSelectClause;
+        queryParameter = source.queryParameter;
+        parameterize = source.parameterize;
+        parameterStyle = source.parameterStyle;
+    }
+
+    public static SQLQueryBuilder build() {
+        return new SQLQueryBuilder();
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public SQLQueryBuilder clone() {
+        if (getClass() != SQLQueryBuilder.class) {
+            return cloneSubclass();
+        }
+        return new SQLQueryBuilder(this);
+    }
 
+    /**
+     * Clone of a subclass that does not override clone(): a new instance (made with its no-argument constructor)
+     * holding a copy of the state of this class... the state of the subclass itself is not copied.
+     *
+     * @throws IllegalStateException if the subclass has no no-argument constructor (such as an anonymous class that
+     *                               is declared in an instance method), it must override clone()
+     */
+    protected SQLQueryBuilder cloneSubclass() {
+        SQLQueryBuilder clone;
+        try {
+            Constructor<? extends SQLQueryBuilder> constructor = getClass().getDeclaredConstructor();
+            constructor.setAccessible(true);
+            clone = constructor.newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not clone " + getClass().getName() + ": override clone() with a copy constructor", e);
+        }
+        clone.copy(this);
         return clone;
     }
 
@@ -94,9 +137,24 @@ public class SQLQueryBuilder extends QueryBuilder implements Cloneable {
         filter = null;
         groupBys = new ArrayList<String>();
         orderBys = new ArrayList<String>();
+        seekValues = null;
+        limit = -1;
+        offset = 0;
+    }
 
-        selectClause = "";
-        postSelectClause = "";
+    /**
+     * Points this builder at the given sections without copying them (used to render an ImmutableSQLQueryBuilder).
+     */
+    void setSections(Boolean distinct, List<Field> fields, List<String> tables, List<Join> joins, Filter filter,
+                     List<String> groupBys, Filter having, List<String> orderBys) {
+        this.distinct = distinct;
+        this.fields = fields;
+        this.tables = tables;
+        this.joins = joins;
+        this.filter = filter;
+        this.groupBys = groupBys;
+        this.having = having;
+        this.orderBys = orderBys;
     }
 
     public SQLQueryBuilder apply(SQLQueryBuilder sqlQueryBuilder) {
@@ -312,69 +370,541 @@ public class SQLQueryBuilder extends QueryBuilder implements Cloneable {
         return this;
     }
 
+    /**
+     * Keyset (seek) pagination: only rows that come after the last row of the previous page in the ORDER BY order.
+     * Unlike OFFSET, the database can seek straight to the page with an index on the order by columns.
+     * "(a, b) > (?, ?)" is rendered if the dialect supports row values and all order bys are in the same
+     * direction, otherwise "(a > ? OR (a = ? AND b > ?))".  Order by columns must not be null (and should be unique together).
+     *
+     * @param lastRowValues value of each orderBy() of the last row of the previous page, in order (none for the first page)
+     */
+    public SQLQueryBuilder seekAfter(Object... lastRowValues) {
+        this.seekValues = lastRowValues.length > 0 ? lastRowValues.clone() : null;
+        return this;
+    }
+
+    /**
+     * Max number of rows, rendered by the dialect (LIMIT, FETCH FIRST, FIRST or ROWNUM).  Not part of the count query.
+     *
+     * @param limit max number of rows (-1 for no limit)
+     */
+    public SQLQueryBuilder limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Number of rows to skip, rendered by the dialect (OFFSET, SKIP or ROWNUM).  Not part of the count query.
+     * See seekAfter() to page through large tables.
+     */
+    public SQLQueryBuilder offset(int offset) {
+        this.offset = offset;
+        return this;
+    }
+
+    /**
+     * @return max number of rows (-1 if there is no limit)
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    protected boolean hasLimit() {
+        return limit >= 0 || offset > 0;
+    }
+
+    /**
+     * Appends what the dialect needs in front of a limited query (such as wrapping the query for ROWNUM).
+     */
+    protected void appendLimitBeforeSelect(StringBuilder query, QueryBuilder formatter) {
+    }
+
+    /**
+     * Appends what the dialect needs right after "SELECT " of a limited query (such as FIRST and SKIP).
+     */
+    protected void appendLimitAfterSelect(StringBuilder query, QueryBuilder formatter) {
+    }
+
+    /**
+     * Appends what the dialect needs at the end of a limited query: " LIMIT n OFFSET m" (SQLite).
+     */
+    protected void appendLimitAfterOrderBy(StringBuilder query, QueryBuilder formatter) {
+        query.append(" LIMIT ");
+        if (limit >= 0) {
+            formatter.appendValue(query, limit);
+        } else {
+            query.append("-1");
+        }
+        if (offset > 0) {
+            query.append(" OFFSET ");
+            formatter.appendValue(query, offset);
+        }
+    }
+
+    /**
+     * Appends " OFFSET m ROWS FETCH FIRST n ROWS ONLY" (SQL:2008, used by Derby and Oracle 12c+).
+     */
+    protected void appendOffsetFetch(StringBuilder query, QueryBuilder formatter) {
+        if (offset > 0) {
+            query.append(" OFFSET ");
+            formatter.appendValue(query, offset);
+            query.append(" ROWS");
+        }
+        if (limit >= 0) {
+            query.append(" FETCH FIRST ");
+            formatter.appendValue(query, limit);
+            query.append(" ROWS ONLY");
+        }
+    }
+
+    /**
+     * @return true if the database can compare row values ("(a, b) > (?, ?)")
+     */
+    public boolean supportsRowValues() {
+        return false;
+    }
+
     @Override
     public String buildQuery() {
         return buildQuery(false);
     }
 
+    /**
+     * Renders the query.  If countOnly is true, the count(*) query for the same rows is rendered:
+     * DISTINCT and GROUP BY queries are counted over a sub-query and ORDER BY, limit and offset are left out.
+     * Rendering does not change this builder, so a builder that is no longer being
+     * changed can be rendered by any number of threads at the same time.
+     */
     public String buildQuery(boolean countOnly) {
-        selectClause = "";
-        postSelectClause = "";
+        if (countOnly || !isPlainRender() || getQueryCache() != null) {
+            return compile(countOnly).getQuery();
+        }
+
+        StringBuilder builder = new StringBuilder(estimateQueryLength());
+        appendQuery(builder, null, this);
+        return builder.toString();
+    }
+
+    @Override
+    public void appendQuery(StringBuilder builder) {
+        appendQuery(builder, null, isPlainRender() ? this : newBindingQueryBuilder());
+    }
+
+    @Override
+    public void appendQuery(StringBuilder builder, QueryBuilder formatter) {
+        appendQuery(builder, null, formatter);
+    }
+
+    /**
+     * @return true if values and query parameters are written as is (no need to keep track of the query parameters)
+     */
+    private boolean isPlainRender() {
+        return !parameterize && parameterStyle == ParameterStyle.QUESTION_MARK;
+    }
 
-        StringBuilder query = new StringBuilder("SELECT ");
+    private BindingQueryBuilder newBindingQueryBuilder() {
+        return new BindingQueryBuilder(this, parameterize, parameterStyle);
+    }
+
+    /**
+     * Renders the page query into the given builder.
+     *
+     * @param layout if not null, receives the position of each section in the builder
+     * @param formatter formats the values of the filters (this builder, or a BindingQueryBuilder)
+     * @return length of the select section
+     */
+    private int appendQuery(StringBuilder query, Layout layout, QueryBuilder formatter) {
+        int queryStart = query.length();
+        boolean limited = hasLimit();
+        if (limited) {
+            appendLimitBeforeSelect(query, formatter);
+        }
+
+        int start = query.length();
+        query.append("SELECT ");
+
+        int limitStart = query.length();
+        if (limited) {
+            appendLimitAfterSelect(query, formatter);
+        }
+        int limitEnd = query.length();
 
         if (distinct) {
             query.append("DISTINCT ");
         }
 
         // fields
-        if (countOnly) {
-            query.append("count(*)");
+        int fieldsStart = query.length();
+        if (fields.size() > 0) {
+            addFields(query);
         } else {
-            if (fields.size() > 0) {
-                addListItems(query, fields, 0);
-            } else {
-                query.append("*");
-            }
+            query.append("*");
         }
 
-        // save select portion
-        selectClause = query.toString();
+        // end of select portion
+        int selectLength = query.length() - queryStart;
+
+        if (layout != null) {
+            layout.start = start;
+            layout.limitStart = limitStart;
+            layout.limitEnd = limitEnd;
+            layout.fieldsStart = fieldsStart;
+            layout.fromStart = query.length();
+        }
 
         // table names
-        query = new StringBuilder();
         query.append(" FROM ");
         addListItems(query, tables, 0);
 
-        for (Join join : joins) {
-            query.append(" ").append(join.buildJoin(this));
+        for (int i = 0; i < joins.size(); i++) {
+            if (layout != null) {
+                layout.joinStarts[i] = query.length();
+            }
+            query.append(' ');
+            joins.get(i).appendTo(formatter, query);
+        }
+
+        if (layout != null) {
+            layout.whereStart = query.length();
+        }
+
+        if (seekValues != null) {
+            query.append(" WHERE ");
+            if (filter != null) {
+                // the filter may be an OR
+                query.append('(');
+                filter.appendTo(formatter, query);
+                query.append(") AND ");
+            }
+            appendSeek(query, formatter);
+        } else if (filter != null) {
+            query.append(" WHERE ");
+            filter.appendTo(formatter, query);
         }
 
-        if (filter != null) {
-            query.append(" WHERE ").append(filter.buildFilter(this));
+        if (layout != null) {
+            layout.groupByStart = query.length();
         }
 
         int groupBySectionCount = 0;
         // add groupbys and having
-        if (groupBys.size() > 0 && !countOnly) {
+        if (groupBys.size() > 0) {
             query.append(" GROUP BY ");
             addListItems(query, groupBys, groupBySectionCount);
             if (having != null) {
-                query.append(" HAVING ").append(having.buildFilter(this));
+                query.append(" HAVING ");
+                having.appendTo(formatter, query);
             }
         }
 
+        if (layout != null) {
+            layout.orderByStart = query.length();
+        }
+
         int orderBySectionCount = 0;
         // add orderbys
-        if (orderBys.size() > 0 && !countOnly) {
+        if (orderBys.size() > 0) {
             query.append(" ORDER BY ");
             addListItems(query, orderBys, orderBySectionCount);
 
         }
 
-        postSelectClause = query.toString();
+        if (limited) {
+            appendLimitAfterOrderBy(query, formatter);
+        }
 
-        return selectClause + postSelectClause;
+        return selectLength;
+    }
+
+    private void appendSeek(StringBuilder query, QueryBuilder formatter) {
+        int count = orderBys.size();
+        if (seekValues.length != count) {
+            throw new IllegalStateException("seekAfter() needs one value for each orderBy() (" + seekValues.length + " values for " + count + " order bys)");
+        }
+
+        String[] columns = new String[count];
+        boolean[] descending = new boolean[count];
+        boolean mixed = false;
+        for (int i = 0; i < count; i++) {
+            String item = orderBys.get(i).trim();
+            String upper = item.toUpperCase();
+            if (upper.endsWith(" DESC")) {
+                columns[i] = item.substring(0, item.length() - 5).trim();
+                descending[i] = true;
+            } else if (upper.endsWith(" ASC")) {
+                columns[i] = item.substring(0, item.length() - 4).trim();
+            } else {
+                columns[i] = item;
+            }
+            mixed |= descending[i] != descending[0];
+        }
+
+        if (count == 1) {
+            query.append(columns[0]).append(descending[0] ? " < " : " > ");
+            formatter.appendValue(query, seekValues[0]);
+        } else if (!mixed && supportsRowValues()) {
+            query.append('(');
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    query.append(", ");
+                }
+                query.append(columns[i]);
+            }
+            query.append(descending[0] ? ") < (" : ") > (");
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    query.append(", ");
+                }
+                formatter.appendValue(query, seekValues[i]);
+            }
+            query.append(')');
+        } else {
+            // (a > ? OR (a = ? AND b > ?) OR (a = ? AND b = ? AND c > ?))
+            query.append('(');
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    query.append(" OR (");
+                }
+                for (int j = 0; j < i; j++) {
+                    query.append(columns[j]).append(" = ");
+                    formatter.appendValue(query, seekValues[j]);
+                    query.append(" AND ");
+                }
+                query.append(columns[i]).append(descending[i] ? " < " : " > ");
+                formatter.appendValue(query, seekValues[i]);
+                if (i > 0) {
+                    query.append(')');
+                }
+            }
+            query.append(')');
+        }
+    }
+
+    /**
+     * Derives the count query from the rendered page query (nothing is rendered again).
+     * A plain query becomes "SELECT count(*) FROM ... WHERE ...".  DISTINCT and GROUP BY queries are
+     * counted over a sub-query (without ORDER BY) so that distinct rows / groups are counted, and
+     * LEFT JOINs that are not referenced by the rest of that query are left out of the sub-query.
+     *
+     * @param pageBinder binder used to render the page query
+     * @param countBinder binder for the count query (writes the query parameters of the page query again, numbered for the count query)
+     * @return length of the select section of the count query
+     */
+    private int appendCountQuery(StringBuilder count, CharSequence page, Layout layout,
+                                 BindingQueryBuilder pageBinder, BindingQueryBuilder countBinder) {
+        int start = count.length();
+        count.append("SELECT count(*)");
+        int selectLength = count.length() - start;
+
+        if (!distinct && groupBys.isEmpty()) {
+            countBinder.appendSlice(count, page, layout.fromStart, layout.groupByStart, pageBinder);
+            return selectLength;
+        }
+
+        count.append(" FROM (");
+        boolean[] unusedJoins = findUnusedLeftJoins(page, layout);
+        countBinder.appendSlice(count, page, layout.start, layout.limitStart, pageBinder);
+        int position = layout.limitEnd; // leave out FIRST / SKIP
+        for (int i = 0; i < unusedJoins.length; i++) {
+            if (unusedJoins[i]) {
+                countBinder.appendSlice(count, page, position, layout.joinStarts[i], pageBinder);
+                position = layout.joinEnd(i);
+            }
+        }
+        countBinder.appendSlice(count, page, position, layout.orderByStart, pageBinder);
+        count.append(") countQuery");
+
+        return selectLength;
+    }
+
+    /**
+     * Finds the LEFT JOINs that can be left out of a DISTINCT / GROUP BY count: a LEFT JOIN never removes rows,
+     * so if its table is not referenced by the select list, the filters or another join,
+     * the number of distinct rows / groups is the same without it.
+     * The select list stays in the sub-query, so it is checked for GROUP BY queries too.
+     * Columns of a LEFT JOINed table must be qualified with the table name (or alias) to be found.
+     */
+    private boolean[] findUnusedLeftJoins(CharSequence page, Layout layout) {
+        boolean[] unused = new boolean[joins.size()];
+
+        // HAVING can test aggregates (ie: count(*)) that change with the rows a to-many LEFT JOIN adds to a group
+        if (having != null) {
+            return unused;
+        }
+        String select = page.subSequence(layout.fieldsStart, layout.fromStart).toString();
+        if (fields.isEmpty() || select.indexOf('*') >= 0) {
+            return unused; // every column of every table is part of each row (or a count(*) is selected)
+        }
+        String filters = page.subSequence(layout.whereStart, layout.orderByStart).toString();
+
+        // later joins can only reference earlier joins... so start with the last join
+        for (int i = joins.size() - 1; i >= 0; i--) {
+            Join join = joins.get(i);
+            if (join.getJoinType() != JoinType.LEFT_JOIN) {
+                continue;
+            }
+
+            boolean referenced = references(select, join) || references(filters, join);
+            for (int j = i + 1; j < joins.size() && !referenced; j++) {
+                referenced = !unused[j] && references(page.subSequence(layout.joinStarts[j], layout.joinEnd(j)).toString(), join);
+            }
+            unused[i] = !referenced;
+        }
+
+        return unused;
+    }
+
+    /**
+     * @return true if the text contains a column qualified with the table name or alias of the join (ie: "o.NAME" for "Owner o")
+     */
+    private static boolean references(String text, Join join) {
+        String table = join.getTable().trim();
+        int aliasStart = table.lastIndexOf(' ') + 1;
+        if (containsQualifier(text, table.substring(aliasStart))) {
+            return true;
+        }
+        return aliasStart > 0 && containsQualifier(text, table.substring(0, table.indexOf(' ')));
+    }
+
+    private static boolean containsQualifier(String text, String name) {
+        int nameLength = name.length();
+        for (int i = text.indexOf('.'); i >= 0; i = text.indexOf('.', i + 1)) {
+            int nameStart = i - nameLength;
+            if (nameStart >= 0 && text.regionMatches(true, nameStart, name, 0, nameLength)
+                    && (nameStart == 0 || !Character.isJavaIdentifierPart(text.charAt(nameStart - 1)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Position of each section of a rendered page query (used to derive the count query).
+     */
+    private static final class Layout {
+        private int start;
+        private int limitStart;
+        private int limitEnd;
+        private int fieldsStart;
+        private int fromStart;
+        private final int[] joinStarts;
+        private int whereStart;
+        private int groupByStart;
+        private int orderByStart;
+
+        private Layout(int joinCount) {
+            joinStarts = new int[joinCount];
+        }
+
+        private int joinEnd(int index) {
+            return index + 1 < joinStarts.length ? joinStarts[index + 1] : whereStart;
+        }
+    }
+
+    /**
+     * Rough size of the rendered query so the buffer does not have to grow for typical queries.
+     */
+    private int estimateQueryLength() {
+        int sectionItems = fields.size() + tables.size() + groupBys.size() + orderBys.size();
+        return 64 + (sectionItems * 24) + (joins.size() * 64) + (filter != null ? 64 : 0) + (having != null ? 32 : 0);
+    }
+
+    /**
+     * Renders this query once into an immutable CompiledQuery that can be shared and reused
+     * without walking the builder again.  The CompiledQuery holds both the select and post-select parts.
+     * Like buildQuery(), this does not change the builder and is safe to call from several threads.
+     */
+    public CompiledQuery compile() {
+        return compile(false);
+    }
+
+    /**
+     * Renders the page query and its count query (see buildQuery(true)) in one pass.
+     * The query cache is not used.
+     */
+    public CompiledPage compilePage() {
+        BindingQueryBuilder pageBinder = newBindingQueryBuilder();
+        StringBuilder page = new StringBuilder(estimateQueryLength());
+        Layout layout = new Layout(joins.size());
+        int selectClauseLength = appendQuery(page, layout, pageBinder);
+
+        BindingQueryBuilder countBinder = newBindingQueryBuilder();
+        StringBuilder count = new StringBuilder(page.length() + 32);
+        int countSelectClauseLength = appendCountQuery(count, page, layout, pageBinder, countBinder);
+
+        return new CompiledPage(pageBinder.compile(page.toString(), selectClauseLength),
+                countBinder.compile(count.toString(), countSelectClauseLength));
+    }
+
+    public CompiledQuery compile(boolean countOnly) {
+        QueryCache cache = getQueryCache();
+        return cache != null ? cache.compile(this, countOnly) : render(countOnly);
+    }
+
+    @Override
+    protected CompiledQuery render(boolean countOnly) {
+        if (countOnly) {
+            // the count query is derived from the rendered page query
+            return compilePage().getCountQuery();
+        }
+
+        BindingQueryBuilder binder = newBindingQueryBuilder();
+        StringBuilder builder = new StringBuilder(estimateQueryLength());
+        int selectClauseLength = appendQuery(builder, null, binder);
+        return binder.compile(builder.toString(), selectClauseLength);
+    }
+
+    /**
+     * Structural equality: builders are equal when they are the same dialect and all sections are equal
+     * (they render the same query).  Builders are mutable, so the hash is not cached.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SQLQueryBuilder that = (SQLQueryBuilder) o;
+        return QueryUtil.valueEquals(distinct, that.distinct)
+                && QueryUtil.valueEquals(fields, that.fields)
+                && QueryUtil.valueEquals(tables, that.tables)
+                && QueryUtil.valueEquals(joins, that.joins)
+                && QueryUtil.valueEquals(filter, that.filter)
+                && QueryUtil.valueEquals(groupBys, that.groupBys)
+                && QueryUtil.valueEquals(having, that.having)
+                && QueryUtil.valueEquals(orderBys, that.orderBys)
+                && QueryUtil.valueEquals(seekValues, that.seekValues)
+                && limit == that.limit
+                && offset == that.offset
+                && QueryUtil.valueEquals(queryParameter, that.queryParameter)
+                && parameterize == that.parameterize
+                && parameterStyle == that.parameterStyle;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = getClass().getName().hashCode();
+        result = 31 * result + QueryUtil.valueHashCode(distinct);
+        result = 31 * result + QueryUtil.valueHashCode(fields);
+        result = 31 * result + QueryUtil.valueHashCode(tables);
+        result = 31 * result + QueryUtil.valueHashCode(joins);
+        result = 31 * result + QueryUtil.valueHashCode(filter);
+        result = 31 * result + QueryUtil.valueHashCode(groupBys);
+        result = 31 * result + QueryUtil.valueHashCode(having);
+        result = 31 * result + QueryUtil.valueHashCode(orderBys);
+        result = 31 * result + QueryUtil.valueHashCode(seekValues);
+        result = 31 * result + limit;
+        result = 31 * result + offset;
+        result = 31 * result + QueryUtil.valueHashCode(queryParameter);
+        result = 31 * result + (parameterize ? 1 : 0);
+        result = 31 * result + parameterStyle.hashCode();
+        return result;
     }
 
     @Override
@@ -382,6 +912,15 @@ public class SQLQueryBuilder extends QueryBuilder implements Cloneable {
         return buildQuery();
     }
 
+    private void addFields(StringBuilder query) {
+        for (int i = 0; i < fields.size(); i++) {
+            if (i > 0) {
+                query.append(", ");
+            }
+            fields.get(i).appendTo(query);
+        }
+    }
+
     private int addListItems(StringBuilder query, List list, int sectionItemCount) {
         return addListItems(query, list, ", ", sectionItemCount);
     }
@@ -402,7 +941,7 @@ public class SQLQueryBuilder extends QueryBuilder implements Cloneable {
         return newSectionCount;
     }
 
-    private class Field {
+    static class Field {
 
         private String name;
         private String alias;
@@ -416,15 +955,54 @@ public class SQLQueryBuilder extends QueryBuilder implements Cloneable {
             this.alias = alias;
         }
 
+        /**
+         * @return label of the column in the result (ResultSetMetaData.getColumnLabel()): the alias, else the
+         * column name without its table (an expression is returned as written)
+         */
+        public String getColumnLabel() {
+            if (alias != null && !alias.equals("")) {
+                return alias;
+            }
+            int start = name.lastIndexOf('.') + 1;
+            for (int i = 0; i < name.length(); i++) {
+                char c = name.charAt(i);
+                if (c != '.' && c != '_' && c != '$' && !Character.isLetterOrDigit(c)) {
+                    return name;
+                }
+            }
+            return name.substring(start);
+        }
+
+        public void appendTo(StringBuilder query) {
+            query.append(name);
+
+            if (alias != null && !alias.equals("")) {
+                query.append(" AS ").append(alias);
+            }
+        }
+
         @Override
         public String toString() {
-            String fieldStr = name;
+            StringBuilder fieldStr = new StringBuilder();
+            appendTo(fieldStr);
+            return fieldStr.toString();
+        }
 
-            if (alias != null && !alias.equals("")) {
-                fieldStr += " AS " + alias;
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
             }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Field field = (Field) o;
+            return QueryUtil.valueEquals(name, field.name) && QueryUtil.valueEquals(alias, field.alias);
+        }
 
-            return fieldStr;
+        @Override
+        public int hashCode() {
+            return 31 * QueryUtil.valueHashCode(name) + QueryUtil.valueHashCode(alias);
         }
     }
 
@@ -437,16 +1015,12 @@ public class SQLQueryBuilder extends QueryBuilder implements Cloneable {
     }
 
     /**
-     * Getter for property selectClause.
+     * Renders the query and returns the select portion (use compile() to get both portions from one render).
      *
-     * @return Value of property selectClause.
+     * @return select portion of the query
      */
     public java.lang.String getSelectClause() {
-        if (selectClause.length() == 0) {
-            buildQuery();
-        }
-
-        return selectClause;
+        return compile().getSelectClause();
     }
 
     public static String union(SQLQueryBuilder... sqlQueryBuilders) {
@@ -471,7 +1045,7 @@ public class SQLQueryBuilder extends QueryBuilder implements Cloneable {
                 query.append(unionAll ? " UNION ALL " : " UNION ");
             }
 
-            query.append(sql.toString());
+            sql.appendQuery(query);
 
             count++;
         }
@@ -481,12 +1055,12 @@ public class SQLQueryBuilder extends QueryBuilder implements Cloneable {
     }
 
     /**
-     * Getter for property postSelectClause.
+     * Renders the query and returns everything after the select portion (use compile() to get both portions from one render).
      *
-     * @return Value of property postSelectClause.
+     * @return post-select portion of the query
      */
     public java.lang.String getPostSelectClause() {
-        return postSelectClause;
+        return compile().getPostSelectClause();
     }
 
     @Override
@@ -509,6 +1083,138 @@ public class SQLQueryBuilder extends QueryBuilder implements Cloneable {
         this.queryParameter = queryParameter;
     }
 
+    /**
+     * When true, literal (non-String) filter values are rendered as the query parameter instead of being written
+     * into the query, and compile() returns the values in order (CompiledQuery.getParameterValues() / bindParameters()).
+     * All queries that only differ by their values then render the same SQL.
+     * Strings are SQL, not values ("'Ford'" is still written into the query)... and hand written query parameters
+     * (such as filter("Car.ID", "?")) have no value in the list, so they should not be mixed with parameterized values.
+     */
+    public SQLQueryBuilder parameterize(boolean parameterize) {
+        this.parameterize = parameterize;
+        return this;
+    }
+
+    public boolean isParameterized() {
+        return parameterize;
+    }
+
+    /**
+     * Sets how query parameters are written: query parameters (such as "?" used as a filter value or a Parameter)
+     * and parameterized values are numbered in the order they are rendered, and the position of each named
+     * Parameter is available from the CompiledQuery (so it can be bound again without rendering again).
+     * Query parameters written in raw SQL (such as RawFilter) are only supported with QUESTION_MARK.
+     */
+    public SQLQueryBuilder parameterStyle(@Nonnull ParameterStyle parameterStyle) {
+        this.parameterStyle = parameterStyle;
+        return this;
+    }
+
+    public ParameterStyle getParameterStyle() {
+        return parameterStyle;
+    }
+
+    /**
+     * @return numbered ParameterStyle of the database (QUESTION_MARK if the database does not number query parameters)
+     */
+    public ParameterStyle getNativeParameterStyle() {
+        return ParameterStyle.QUESTION_MARK;
+    }
+
+    /**
+     * Lists of more than this many values are rendered as a VALUES derived table, unless the dialect picks another InListStrategy
+     */
+    public static final int MAX_INLINE_IN_LIST_SIZE = 1000;
+
+    @Override
+    protected InListStrategy getInListStrategy(InListValues values, boolean bindingValues) {
+        return values.size() > MAX_INLINE_IN_LIST_SIZE ? InListStrategy.values() : InListStrategy.inline();
+    }
+
+    /**
+     * @return max number of rows in one INSERT ... VALUES (...), (...) statement, 1 if the database can only insert one
+     * row per statement (defaults are the SQLite limits... SQLITE_MAX_COMPOUND_SELECT)
+     */
+    public int getMaxInsertRows() {
+        return 500;
+    }
+
+    /**
+     * @return max number of query parameters in one statement (SQLITE_MAX_VARIABLE_NUMBER before SQLite 3.32)
+     */
+    public int getMaxQueryParameters() {
+        return 999;
+    }
+
+    /**
+     * @return JDBC fetch size to use when reading the results of this query, 0 to keep the driver default
+     * (the SQLite driver reads rows one step at a time already)
+     */
+    public int getFetchSize() {
+        return 0;
+    }
+
+    /**
+     * @return true if the driver only honors the fetch size inside a transaction (auto-commit off)
+     */
+    public boolean isFetchSizeTransactional() {
+        return false;
+    }
+
+    /**
+     * @return INSERT builder that is formatted (and parameterized) by this builder
+     */
+    public SQLInsertBuilder insertInto(String table) {
+        return new SQLInsertBuilder(this, table);
+    }
+
+    /**
+     * @return UPDATE builder that is formatted (and parameterized) by this builder
+     */
+    public SQLUpdateBuilder update(String table) {
+        return new SQLUpdateBuilder(this, table);
+    }
+
+    /**
+     * @return DELETE builder that is formatted (and parameterized) by this builder
+     */
+    public SQLDeleteBuilder deleteFrom(String table) {
+        return new SQLDeleteBuilder(this, table);
+    }
+
+    /**
+     * @return upsert builder (insert, or update the row with the same key) that is rendered by this builder
+     */
+    public SQLUpsertBuilder upsertInto(String table) {
+        return new SQLUpsertBuilder(this, table);
+    }
+
+    /**
+     * Renders an upsert in the form of this database:
+     * INSERT ... ON CONFLICT (key) DO UPDATE SET column = excluded.column (SQLite 3.24+ and PostgreSQL).
+     */
+    protected void appendUpsert(StringBuilder builder, SQLUpsertBuilder upsert, QueryBuilder formatter) {
+        upsert.appendInsert(builder, formatter);
+        builder.append(" ON CONFLICT (");
+        upsert.appendColumns(builder, upsert.getKeyColumns(), null);
+        builder.append(')');
+
+        List<String> updateColumns = upsert.getUpdateColumns();
+        if (updateColumns.isEmpty()) {
+            builder.append(" DO NOTHING");
+            return;
+        }
+
+        builder.append(" DO UPDATE SET ");
+        for (int i = 0; i < updateColumns.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            String column = updateColumns.get(i);
+            builder.append(column).append(" = EXCLUDED.").append(column);
+        }
+    }
+
     public boolean isDistinct() {
         return distinct;
     }
@@ -522,6 +1228,18 @@ public class SQLQueryBuilder extends QueryBuilder implements Cloneable {
         return fields;
     }
 
+    /**
+     * @return label of each field (see ResultSetMetaData.getColumnLabel()), in select order... the label at index i
+     * is column i + 1 of the result.  Empty if no fields were added (SELECT *).
+     */
+    public List<String> getColumnLabels() {
+        List<String> labels = new ArrayList<String>(fields.size());
+        for (Field field : fields) {
+            labels.add(field.getColumnLabel());
+        }
+        return labels;
+    }
+
     public List<String> getTables() {
         return tables;
     }
@@ -545,4 +1263,11 @@ public class SQLQueryBuilder extends QueryBuilder implements Cloneable {
     public List<String> getOrderBys() {
         return orderBys;
     }
+
+    /**
+     * @return values given to seekAfter() (null if the query does not seek)
+     */
+    public Object[] getSeekValues() {
+        return seekValues != null ? seekValues.clone() : null;
+    }
 }
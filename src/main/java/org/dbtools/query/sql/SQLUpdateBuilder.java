@@ -0,0 +1,109 @@
+package org.dbtools.query.sql;
+
+import org.dbtools.query.shared.CompareType;
+import org.dbtools.query.shared.QueryBuilder;
+import org.dbtools.query.shared.filter.CompareFilter;
+import org.dbtools.query.shared.filter.Filter;
+import org.dbtools.query.shared.filter.RawFilter;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * UPDATE table SET column = value, ... WHERE filter
+ */
+public class SQLUpdateBuilder extends SQLWriteBuilder {
+
+    // NOTE: if any NEW variables are added BE SURE TO PUT IT INTO THE copy constructor
+    private List<String> columns = new ArrayList<String>();
+    private List<Object> values = new ArrayList<Object>();
+
+    public SQLUpdateBuilder(@Nonnull String table) {
+        this(new SQLQueryBuilder(), table);
+    }
+
+    /**
+     * @param dialect formats the statement (see SQLQueryBuilder.update())
+     */
+    public SQLUpdateBuilder(@Nonnull SQLQueryBuilder dialect, @Nonnull String table) {
+        super(dialect, table);
+    }
+
+    protected SQLUpdateBuilder(@Nonnull SQLUpdateBuilder source) {
+        super(source);
+        columns = new ArrayList<String>(source.columns);
+        values = new ArrayList<Object>(source.values);
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public SQLUpdateBuilder clone() {
+        return new SQLUpdateBuilder(this);
+    }
+
+    public SQLUpdateBuilder set(String column, Object value) {
+        columns.add(column);
+        values.add(value);
+        return this;
+    }
+
+    public SQLUpdateBuilder filter(String field, Object value) {
+        return filter(CompareFilter.create(field, value));
+    }
+
+    public SQLUpdateBuilder filter(String field, CompareType compare, Object value) {
+        return filter(CompareFilter.create(field, compare, value));
+    }
+
+    public SQLUpdateBuilder filter(String field, CompareType compare) {
+        switch (compare) {
+            case IS_NULL:
+            case NOT_NULL:
+                return filter(CompareFilter.create(field, compare, null));
+            default:
+                throw new IllegalArgumentException("Illegal 1 argument compare " + compare.toString());
+        }
+    }
+
+    public SQLUpdateBuilder filter(String filter) {
+        return filter(RawFilter.create(filter));
+    }
+
+    public SQLUpdateBuilder filter(Filter filter) {
+        addFilter(filter);
+        return this;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    @Override
+    protected void appendStatement(StringBuilder builder, QueryBuilder formatter) {
+        if (columns.isEmpty()) {
+            throw new IllegalStateException("UPDATE " + table + " needs at least one column to set");
+        }
+
+        builder.append("UPDATE ").append(table).append(" SET ");
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(columns.get(i)).append(" = ");
+            appendValue(builder, formatter, values.get(i));
+        }
+        appendWhere(builder, formatter);
+    }
+
+    @Override
+    protected int estimateLength() {
+        return 32 + table.length() + (columns.size() * 24) + (filter != null ? 64 : 0);
+    }
+
+    @Override
+    public String toString() {
+        // an update without columns can not be rendered
+        return columns.isEmpty() ? "UPDATE " + table : buildQuery();
+    }
+}
@@ -0,0 +1,182 @@
+package org.dbtools.query.sql;
+
+import org.dbtools.query.shared.QueryBuilder;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Inserts a row, or updates the existing row with the same key, in one statement.  Each dialect renders its own form
+ * (see SQLQueryBuilder.appendUpsert()): ON CONFLICT (SQLite, PostgreSQL), ON DUPLICATE KEY UPDATE (MySQL),
+ * MERGE INTO (Oracle, Derby) or UPDATE OR INSERT (Firebird).
+ * <pre>
+ * // PostgreSQL: "INSERT INTO Car (ID, NAME) VALUES (?, ?) ON CONFLICT (ID) DO UPDATE SET NAME = EXCLUDED.NAME"
+ * new PostgresqlQueryBuilder().upsertInto("Car").columns("ID", "NAME").values("?", "?").key("ID");
+ * </pre>
+ */
+public class SQLUpsertBuilder extends SQLWriteBuilder {
+
+    // NOTE: if any NEW variables are added BE SURE TO PUT IT INTO THE copy constructor
+    private List<String> columns = new ArrayList<String>();
+    private List<Object> values = new ArrayList<Object>();
+    private List<String> keyColumns = new ArrayList<String>();
+    private List<String> updateColumns = null; // null: every column that is not a key column
+
+    public SQLUpsertBuilder(@Nonnull String table) {
+        this(new SQLQueryBuilder(), table);
+    }
+
+    /**
+     * @param dialect renders the statement (see SQLQueryBuilder.upsertInto())
+     */
+    public SQLUpsertBuilder(@Nonnull SQLQueryBuilder dialect, @Nonnull String table) {
+        super(dialect, table);
+    }
+
+    protected SQLUpsertBuilder(@Nonnull SQLUpsertBuilder source) {
+        super(source);
+        columns = new ArrayList<String>(source.columns);
+        values = new ArrayList<Object>(source.values);
+        keyColumns = new ArrayList<String>(source.keyColumns);
+        if (source.updateColumns != null) {
+            updateColumns = new ArrayList<String>(source.updateColumns);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("CloneDoesntCallSuperClone")
+    public SQLUpsertBuilder clone() {
+        return new SQLUpsertBuilder(this);
+    }
+
+    public SQLUpsertBuilder columns(String... columns) {
+        Collections.addAll(this.columns, columns);
+        return this;
+    }
+
+    /**
+     * Sets the row (one value for each column).
+     */
+    public SQLUpsertBuilder values(Object... values) {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Row has " + values.length + " values for " + columns.size() + " columns");
+        }
+        this.values = new ArrayList<Object>(Arrays.asList(values));
+        return this;
+    }
+
+    /**
+     * Columns that identify an existing row (a primary key or unique constraint).
+     * MySQL uses whichever unique key conflicts, so they are not rendered for MySQL.
+     */
+    public SQLUpsertBuilder key(String... keyColumns) {
+        Collections.addAll(this.keyColumns, keyColumns);
+        return this;
+    }
+
+    /**
+     * Columns to update when the row exists (default: every column that is not a key column).
+     * Firebird (UPDATE OR INSERT) always updates every column.
+     */
+    public SQLUpsertBuilder update(String... updateColumns) {
+        if (this.updateColumns == null) {
+            this.updateColumns = new ArrayList<String>();
+        }
+        Collections.addAll(this.updateColumns, updateColumns);
+        return this;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public List<String> getKeyColumns() {
+        return keyColumns;
+    }
+
+    /**
+     * @return columns to update when the row exists (empty if the existing row is left as it is)
+     */
+    public List<String> getUpdateColumns() {
+        if (updateColumns != null) {
+            return updateColumns;
+        }
+        List<String> result = new ArrayList<String>(columns);
+        result.removeAll(keyColumns);
+        return result;
+    }
+
+    /**
+     * @return value of the column (as given to values())
+     */
+    public Object getValue(String column) {
+        int index = columns.indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown column " + column);
+        }
+        return values.get(index);
+    }
+
+    /**
+     * Appends the columns, separated by ", ", each one prefixed (such as "src.") if prefix is not null.
+     */
+    public void appendColumns(StringBuilder builder, List<String> columns, String prefix) {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            if (prefix != null) {
+                builder.append(prefix);
+            }
+            builder.append(columns.get(i));
+        }
+    }
+
+    /**
+     * Appends the values of all columns, separated by ", ".
+     */
+    public void appendValues(StringBuilder builder, QueryBuilder formatter) {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            appendValue(builder, formatter, values.get(i));
+        }
+    }
+
+    /**
+     * Appends "INSERT INTO table (columns) VALUES (values)".
+     */
+    public void appendInsert(StringBuilder builder, QueryBuilder formatter) {
+        builder.append("INSERT INTO ").append(table).append(" (");
+        appendColumns(builder, columns, null);
+        builder.append(") VALUES (");
+        appendValues(builder, formatter);
+        builder.append(')');
+    }
+
+    @Override
+    protected void appendStatement(StringBuilder builder, QueryBuilder formatter) {
+        if (columns.isEmpty() || values.size() != columns.size()) {
+            throw new IllegalStateException("Upsert into " + table + " needs columns and their values");
+        }
+        if (keyColumns.isEmpty() || !columns.containsAll(keyColumns)) {
+            throw new IllegalStateException("Upsert into " + table + " needs key columns that are part of the columns");
+        }
+        dialect.appendUpsert(builder, this, formatter);
+    }
+
+    @Override
+    protected int estimateLength() {
+        return 64 + table.length() + (columns.size() * 48);
+    }
+
+    @Override
+    public String toString() {
+        // an incomplete upsert can not be rendered
+        return columns.isEmpty() || values.isEmpty() || keyColumns.isEmpty() ? "UPSERT " + table + " " + columns : buildQuery();
+    }
+}
@@ -0,0 +1,143 @@
+package org.dbtools.query.sql;
+
+import org.dbtools.query.shared.BindingQueryBuilder;
+import org.dbtools.query.shared.CompiledBatch;
+import org.dbtools.query.shared.CompiledQuery;
+import org.dbtools.query.shared.ParameterStyle;
+import org.dbtools.query.shared.QueryBuilder;
+import org.dbtools.query.shared.filter.Filter;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+/**
+ * Base of the INSERT, UPDATE and DELETE builders.  Everything is formatted by the dialect builder (a SQLQueryBuilder
+ * or one of its subclasses), which also decides whether values are parameterized and which ParameterStyle is used.
+ * Column values are data: Strings are bound (or written as quoted literals if the dialect is not parameterized),
+ * except for the query parameter of the dialect ("?").  Use SQL.raw() to write SQL (such as "now()") as a value.
+ * Filter values are written like those of a query (Strings are SQL).
+ *
+ * A write builder is not a QueryBuilder: statements have no count query, so they only have buildQuery() and compile().
+ */
+public abstract class SQLWriteBuilder implements Cloneable {
+
+    // NOTE: if any NEW variables are added BE SURE TO PUT IT INTO THE copy constructor
+    protected final SQLQueryBuilder dialect;
+    protected final String table;
+    protected Filter filter;
+
+    protected SQLWriteBuilder(@Nonnull SQLQueryBuilder dialect, @Nonnull String table) {
+        this.dialect = dialect;
+        this.table = table;
+    }
+
+    /**
+     * Copy constructor (used by clone()).  Subclasses must provide their own copy constructor and override clone().
+     */
+    protected SQLWriteBuilder(@Nonnull SQLWriteBuilder source) {
+        dialect = source.dialect;
+        table = source.table;
+        if (source.filter != null) {
+            filter = source.filter.clone();
+        }
+    }
+
+    /**
+     * Renders the statement.
+     *
+     * @param formatter formats the values (the dialect, or a BindingQueryBuilder)
+     */
+    protected abstract void appendStatement(StringBuilder builder, QueryBuilder formatter);
+
+    /**
+     * Rough size of the rendered statement so the buffer does not have to grow for typical statements.
+     */
+    protected abstract int estimateLength();
+
+    protected void addFilter(Filter filter) {
+        if (this.filter == null) {
+            this.filter = filter;
+        } else {
+            this.filter.and(filter);
+        }
+    }
+
+    /**
+     * Appends a column value: a String is data (see the class comment), a SQL.raw() value is written as is and
+     * anything else is written like a filter value.
+     */
+    public void appendValue(StringBuilder builder, QueryBuilder formatter, Object value) {
+        if (value instanceof String && !value.equals(dialect.getQueryParameter())) {
+            formatter.appendString(builder, (String) value);
+        } else {
+            formatter.appendValue(builder, value);
+        }
+    }
+
+    protected void appendWhere(StringBuilder builder, QueryBuilder formatter) {
+        if (filter != null) {
+            builder.append(" WHERE ");
+            filter.appendTo(formatter, builder);
+        }
+    }
+
+    /**
+     * @return true if values and query parameters are written as is (no need to keep track of the query parameters)
+     */
+    protected boolean isPlainRender() {
+        return !dialect.isParameterized() && dialect.getParameterStyle() == ParameterStyle.QUESTION_MARK;
+    }
+
+    protected BindingQueryBuilder newBindingQueryBuilder() {
+        return new BindingQueryBuilder(dialect, dialect.isParameterized(), dialect.getParameterStyle());
+    }
+
+    public String buildQuery() {
+        if (!isPlainRender()) {
+            return compile().getQuery();
+        }
+
+        StringBuilder builder = new StringBuilder(estimateLength());
+        appendStatement(builder, dialect);
+        return builder.toString();
+    }
+
+    /**
+     * Renders the statement once into an immutable CompiledQuery (with the values of a parameterized statement).
+     */
+    public CompiledQuery compile() {
+        BindingQueryBuilder binder = newBindingQueryBuilder();
+        StringBuilder builder = new StringBuilder(estimateLength());
+        appendStatement(builder, binder);
+        return binder.compile(builder.toString(), 0);
+    }
+
+    /**
+     * Executes the statement once for each map of named parameter values (see Parameter.named()).
+     *
+     * @throws IllegalArgumentException if a query parameter has no value
+     */
+    public CompiledBatch compileBatch(@Nonnull Iterable<? extends Map<String, ?>> namedValues) {
+        return CompiledBatch.of(compile(), namedValues);
+    }
+
+    public SQLQueryBuilder getDialect() {
+        return dialect;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public Filter getFilter() {
+        return filter;
+    }
+
+    @Override
+    public abstract SQLWriteBuilder clone();
+
+    @Override
+    public String toString() {
+        return buildQuery();
+    }
+}
@@ -2,9 +2,19 @@ package com.jdc.db.jpa.query;
 
 import org.dbtools.query.jpa.JPAQueryBuilder;
 import org.dbtools.query.shared.CompareType;
+import org.dbtools.query.shared.CompiledQuery;
+import org.dbtools.query.shared.Parameter;
+import org.dbtools.query.shared.ParameterStyle;
 import org.dbtools.query.sql.SQLQueryBuilder;
 import org.junit.*;
 
+import javax.persistence.Query;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 
@@ -170,4 +180,93 @@ public class JPAQueryBuilderTest {
         qb2.having(p, "name", "?");
         assertNotEquals(qb1.buildQuery(), qb2.buildQuery());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCompile() {
+        JPAQueryBuilder qb = new JPAQueryBuilder();
+        String c = qb.object("Car", "c");
+        qb.filter(c, "id", "?");
+
+        CompiledQuery compiledQuery = qb.compile();
+        assertEquals("SELECT c FROM Car c WHERE c.id = ?", compiledQuery.getQuery());
+        assertEquals("SELECT c", compiledQuery.getSelectClause());
+        assertEquals(" FROM Car c WHERE c.id = ?", compiledQuery.getPostSelectClause());
+        assertEquals(1, compiledQuery.getParameterCount());
+    }
+
+    @Test
+    public void testDistinctCount() {
+        JPAQueryBuilder qb = new JPAQueryBuilder();
+        String c = qb.object("Car", "c");
+        qb.distinct(true);
+        qb.filter(c, "wheels", 4);
+        assertEquals("SELECT DISTINCT c FROM Car c WHERE c.wheels = 4", qb.buildQuery());
+        assertEquals("SELECT count(DISTINCT c) FROM Car c WHERE c.wheels = 4", qb.buildQuery(true));
+    }
+
+    @Test
+    public void testParameterStyle() {
+        JPAQueryBuilder qb = new JPAQueryBuilder();
+        qb.parameterStyle(qb.getNativeParameterStyle());
+        String c = qb.object("Car", "c");
+        qb.filter(c, "id", "?");
+        qb.filter(c, "name", CompareType.LIKE, "?");
+        assertEquals("SELECT c FROM Car c WHERE c.id = ?1 AND c.name LIKE ?2", qb.buildQuery());
+
+        JPAQueryBuilder namedQb = new JPAQueryBuilder();
+        namedQb.parameterStyle(ParameterStyle.NAMED);
+        c = namedQb.object("Car", "c");
+        namedQb.filter(c, "owner", Parameter.named("owner"));
+        namedQb.filter(c, "id", "?");
+        CompiledQuery compiledQuery = namedQb.compile();
+        assertEquals("SELECT c FROM Car c WHERE c.owner = :owner AND c.id = :p2", compiledQuery.getQuery());
+        assertEquals("owner", compiledQuery.getParameterName(0));
+        assertEquals(1, compiledQuery.getParameterIndexes("owner")[0]);
+    }
+
+    @Test
+    public void testApplyLimit() {
+        final Map<String, Object> calls = new HashMap<String, Object>();
+        Query query = (Query) Proxy.newProxyInstance(Query.class.getClassLoader(), new Class[]{Query.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                calls.put(method.getName(), args[0]);
+                return proxy;
+            }
+        });
+
+        JPAQueryBuilder<?> qb = new JPAQueryBuilder();
+        qb.object("Person");
+        qb.limit(10).offset(20);
+        assertEquals("SELECT o FROM Person o", qb.buildQuery());
+
+        qb.applyLimit(query);
+        assertEquals(10, calls.get("setMaxResults"));
+        assertEquals(20, calls.get("setFirstResult"));
+
+        calls.clear();
+        new JPAQueryBuilder().applyLimit(query);
+        assertEquals(0, calls.size());
+    }
+
+    @Test
+    public void testCloneSubclass() {
+        JPAQueryBuilder<?> qb = createUpperLikeQueryBuilder();
+        String c = qb.object("Car", "c");
+        qb.filter(c, "name", CompareType.LIKE_IGNORECASE, "?");
+
+        JPAQueryBuilder<?> clone = qb.clone();
+        assertEquals(qb.getClass(), clone.getClass());
+        assertEquals("SELECT c FROM Car c WHERE UPPER(c.name) LIKE UPPER(?)", clone.buildQuery());
+    }
+
+    // declared in a static method, so it has a no-argument constructor
+    private static JPAQueryBuilder<?> createUpperLikeQueryBuilder() {
+        return new JPAQueryBuilder<Object>() {
+            @Override
+            public String formatIgnoreCaseLikeClause(String column, String value) {
+                return "UPPER(" + column + ") LIKE UPPER(" + value + ")";
+            }
+        };
+    }
+}
@@ -0,0 +1,125 @@
+package com.jdc.db.sql;
+
+import org.dbtools.query.shared.CompareType;
+import org.dbtools.query.shared.JoinType;
+import org.dbtools.query.shared.filter.CompareFilter;
+import org.dbtools.query.sql.ImmutableSQLQueryBuilder;
+import org.dbtools.query.sql.PostgresqlQueryBuilder;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ImmutableSQLQueryBuilderTest {
+
+    @Test
+    public void testBasicQuery() {
+        ImmutableSQLQueryBuilder sql = ImmutableSQLQueryBuilder.create()
+                .table("Car")
+                .join(JoinType.LEFT_JOIN, "Owner", "Owner.ID", "Car.OWNER_ID")
+                .fields("Name", "Color")
+                .filter("Car.WHEELS", CompareType.GREATERTHAN, 4)
+                .filter(CompareFilter.create("Car.ID", "?").or("Car.NAME", "'Ford'"))
+                .groupBy("Name")
+                .having("count(*)", CompareType.GREATERTHAN, 1)
+                .orderBy("Name", false);
+
+        assertEquals("SELECT Name, Color FROM Car LEFT JOIN Owner ON Owner.ID = Car.OWNER_ID WHERE Car.WHEELS > 4 AND (Car.ID = ? OR Car.NAME = 'Ford') "
+                + "GROUP BY Name HAVING count(*) > 1 ORDER BY Name DESC", sql.buildQuery());
+    }
+
+    @Test
+    public void testDerivedQueriesDoNotChangeBase() {
+        ImmutableSQLQueryBuilder base = ImmutableSQLQueryBuilder.create()
+                .table("Car")
+                .field("Name")
+                .filter("Car.WHEELS", 4);
+
+        ImmutableSQLQueryBuilder fords = base.filter("Car.MAKE", "'Ford'").orderBy("Name");
+        ImmutableSQLQueryBuilder chevys = base.filter("Car.MAKE", "'Chevy'");
+
+        assertEquals("SELECT Name FROM Car WHERE Car.WHEELS = 4", base.buildQuery());
+        assertEquals("SELECT Name FROM Car WHERE Car.WHEELS = 4 AND Car.MAKE = 'Ford' ORDER BY Name", fords.buildQuery());
+        assertEquals("SELECT Name FROM Car WHERE Car.WHEELS = 4 AND Car.MAKE = 'Chevy'", chevys.buildQuery());
+        assertEquals("SELECT Name FROM Car WHERE Car.WHEELS = 4", base.buildQuery());
+
+        // untouched sections are shared
+        assertSame(base.getTables(), chevys.getTables());
+        assertSame(base.getFilters().get(0), chevys.getFilters().get(0));
+    }
+
+    @Test
+    public void testCreateFromBuilder() {
+        SQLQueryBuilder sql = new PostgresqlQueryBuilder();
+        sql.table("Car");
+        sql.filter("Car.NAME", CompareType.LIKE_IGNORECASE, "'f%'");
+
+        ImmutableSQLQueryBuilder immutable = ImmutableSQLQueryBuilder.create(sql);
+        sql.filter("Car.WHEELS", 4);
+
+        assertEquals("SELECT * FROM Car WHERE Car.NAME ilike 'f%'", immutable.buildQuery());
+        assertEquals("SELECT count(*) FROM Car WHERE Car.NAME ilike 'f%'", immutable.buildQuery(true));
+        assertSame(immutable.compile(), immutable.compile());
+
+        SQLQueryBuilder mutable = immutable.toBuilder();
+        mutable.filter("Car.WHEELS", 2);
+        assertEquals("SELECT * FROM Car WHERE Car.NAME ilike 'f%' AND Car.WHEELS = 2", mutable.buildQuery());
+        assertEquals("SELECT * FROM Car WHERE Car.NAME ilike 'f%'", immutable.buildQuery());
+    }
+
+    @Test
+    public void testApply() {
+        ImmutableSQLQueryBuilder tables = ImmutableSQLQueryBuilder.create().table("Car");
+        ImmutableSQLQueryBuilder columns = ImmutableSQLQueryBuilder.create().field("Car.NAME").field("Car.TYPE", "CAR_TYPE");
+        ImmutableSQLQueryBuilder filters = ImmutableSQLQueryBuilder.create().filter("Car.ID", "?").filter("Car.IS_COOL", true);
+
+        assertEquals("SELECT Car.NAME, Car.TYPE AS CAR_TYPE FROM Car WHERE Car.ID = ? AND Car.IS_COOL = 1",
+                tables.apply(filters).apply(columns).buildQuery());
+    }
+
+    @Test
+    public void testSeekAfter() {
+        SQLQueryBuilder sql = new SQLQueryBuilder();
+        sql.table("AuditLog");
+        sql.orderBy("CREATED");
+        sql.seekAfter("?");
+
+        ImmutableSQLQueryBuilder immutable = ImmutableSQLQueryBuilder.create(sql);
+        assertEquals("SELECT * FROM AuditLog WHERE CREATED > ? ORDER BY CREATED", immutable.buildQuery());
+        assertEquals("SELECT * FROM AuditLog WHERE CREATED > ? ORDER BY CREATED", immutable.toBuilder().buildQuery());
+        assertArrayEquals(new Object[]{"?"}, immutable.getSeekValues());
+
+        // first page
+        ImmutableSQLQueryBuilder firstPage = immutable.seekAfter();
+        assertNull(firstPage.getSeekValues());
+        assertEquals("SELECT * FROM AuditLog ORDER BY CREATED", firstPage.buildQuery());
+        assertEquals(immutable, firstPage.seekAfter("?"));
+        assertNotEquals(immutable, firstPage);
+    }
+
+    @Test
+    public void testLimit() {
+        SQLQueryBuilder sql = new PostgresqlQueryBuilder();
+        sql.table("Car");
+        sql.orderBy("NAME");
+        sql.limit(10).offset(20);
+
+        ImmutableSQLQueryBuilder immutable = ImmutableSQLQueryBuilder.create(sql);
+        assertEquals(10, immutable.getLimit());
+        assertEquals(20, immutable.getOffset());
+        assertEquals("SELECT * FROM Car ORDER BY NAME LIMIT 10 OFFSET 20", immutable.buildQuery());
+        assertEquals("SELECT count(*) FROM Car", immutable.buildQuery(true));
+        assertEquals("SELECT * FROM Car ORDER BY NAME LIMIT 10 OFFSET 20", immutable.toBuilder().buildQuery());
+
+        ImmutableSQLQueryBuilder nextPage = immutable.offset(30);
+        assertEquals("SELECT * FROM Car ORDER BY NAME LIMIT 10 OFFSET 30", nextPage.buildQuery());
+        assertEquals("SELECT * FROM Car ORDER BY NAME OFFSET 20", immutable.limit(-1).buildQuery());
+        assertEquals("SELECT * FROM Car ORDER BY NAME LIMIT 10 OFFSET 20", immutable.buildQuery());
+        assertNotEquals(immutable, nextPage);
+        assertEquals(immutable, nextPage.offset(20));
+    }
+}
@@ -0,0 +1,117 @@
+package com.jdc.db.sql;
+
+import org.dbtools.query.jpa.JPAQueryBuilder;
+import org.dbtools.query.shared.CompareType;
+import org.dbtools.query.shared.CompiledQuery;
+import org.dbtools.query.shared.JoinType;
+import org.dbtools.query.shared.filter.CompareFilter;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Renders one shared builder from many threads at once (mixing count and normal queries)
+ * and checks every thread always gets the right query.
+ */
+public class QueryBuilderConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ITERATIONS = 2000;
+
+    @Test
+    public void testSharedSQLQueryBuilder() throws Exception {
+        final SQLQueryBuilder sql = new SQLQueryBuilder();
+        sql.table("Car");
+        sql.field("Name");
+        sql.join(JoinType.LEFT_JOIN, "Owner", "Owner.ID", "Car.OWNER_ID");
+        sql.filter(CompareFilter.create("Car.WHEELS", CompareType.GREATERTHAN, 2).or("Car.NAME", CompareType.LIKE, "'F%'"));
+        sql.filter("Car.ID", CompareType.IN, sub());
+        sql.orderBy("Name");
+
+        final String expectedQuery = "SELECT Name FROM Car LEFT JOIN Owner ON Owner.ID = Car.OWNER_ID "
+                + "WHERE (Car.WHEELS > 2 OR Car.NAME LIKE 'F%') AND Car.ID IN (SELECT CAR_ID FROM Fleet) ORDER BY Name";
+        final String expectedCount = "SELECT count(*) FROM Car LEFT JOIN Owner ON Owner.ID = Car.OWNER_ID "
+                + "WHERE (Car.WHEELS > 2 OR Car.NAME LIKE 'F%') AND Car.ID IN (SELECT CAR_ID FROM Fleet)";
+
+        runConcurrently(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                for (int i = 0; i < ITERATIONS; i++) {
+                    boolean countOnly = i % 2 == 0;
+                    assertEquals(countOnly ? expectedCount : expectedQuery, sql.buildQuery(countOnly));
+
+                    CompiledQuery compiledQuery = sql.compile(!countOnly);
+                    assertEquals(countOnly ? "SELECT Name" : "SELECT count(*)", compiledQuery.getSelectClause());
+                    assertEquals(countOnly ? expectedQuery : expectedCount, compiledQuery.getQuery());
+                    assertEquals("SELECT Name", sql.getSelectClause());
+                }
+                return null;
+            }
+        });
+    }
+
+    @Test
+    public void testSharedJPAQueryBuilder() throws Exception {
+        final JPAQueryBuilder<Object> jpa = new JPAQueryBuilder<Object>();
+        String c = jpa.object("Car", "c");
+        jpa.field(c, "name");
+        jpa.filter(c, "wheels", CompareType.GREATERTHAN, 2);
+        jpa.orderBy(c, "name");
+
+        final String expectedQuery = "SELECT c.name FROM Car c WHERE c.wheels > 2 ORDER BY c.name ASC";
+        final String expectedCount = "SELECT count(*) FROM Car c WHERE c.wheels > 2";
+
+        runConcurrently(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                for (int i = 0; i < ITERATIONS; i++) {
+                    boolean countOnly = i % 2 == 0;
+                    assertEquals(countOnly ? expectedCount : expectedQuery, jpa.buildQuery(countOnly));
+                    assertEquals(" FROM Car c WHERE c.wheels > 2 ORDER BY c.name ASC", jpa.getPostSelectClause());
+                }
+                return null;
+            }
+        });
+    }
+
+    private static SQLQueryBuilder sub() {
+        SQLQueryBuilder sub = new SQLQueryBuilder();
+        sub.table("Fleet");
+        sub.field("CAR_ID");
+        return sub;
+    }
+
+    private static void runConcurrently(final Callable<Void> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        return task.call();
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (Future<Void> result : results) {
+                result.get(60, TimeUnit.SECONDS); // rethrows any assertion failure
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
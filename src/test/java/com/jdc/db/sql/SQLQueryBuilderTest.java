@@ -1,13 +1,34 @@
 package com.jdc.db.sql;
 
 import org.dbtools.query.shared.CompareType;
+import org.dbtools.query.shared.CompiledPage;
+import org.dbtools.query.shared.CompiledQuery;
 import org.dbtools.query.shared.JoinType;
+import org.dbtools.query.shared.Parameter;
+import org.dbtools.query.shared.ParameterStyle;
+import org.dbtools.query.shared.QueryBuilder;
+import org.dbtools.query.shared.QueryCache;
 import org.dbtools.query.shared.filter.CompareFilter;
+import org.dbtools.query.shared.filter.InFilter;
+import org.dbtools.query.shared.filter.InParameterizedFilter;
+import org.dbtools.query.shared.filter.OrFilter;
+import org.dbtools.query.sql.DerbyQueryBuilder;
+import org.dbtools.query.sql.FirebirdQueryBuilder;
+import org.dbtools.query.sql.MysqlQueryBuilder;
+import org.dbtools.query.sql.OracleQueryBuilder;
+import org.dbtools.query.sql.PostgresqlQueryBuilder;
 import org.dbtools.query.sql.SQLQueryBuilder;
 import org.junit.*;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author Jeff
@@ -442,4 +463,430 @@ public class SQLQueryBuilderTest {
         assertNotEquals(sql1.buildQuery(), sql2.buildQuery());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testCompile() {
+        SQLQueryBuilder sql = new SQLQueryBuilder();
+        sql.table("Car");
+        sql.field("Name");
+        sql.filter("Car.ID", "?");
+        sql.filter("Car.NAME", "'Why?'");
+        sql.filter("Car.WHEELS", CompareType.GREATERTHAN, "?");
+
+        CompiledQuery compiledQuery = sql.compile();
+        assertEquals("SELECT Name FROM Car WHERE Car.ID = ? AND Car.NAME = 'Why?' AND Car.WHEELS > ?", compiledQuery.getQuery());
+        assertEquals("SELECT Name", compiledQuery.getSelectClause());
+        assertEquals(" FROM Car WHERE Car.ID = ? AND Car.NAME = 'Why?' AND Car.WHEELS > ?", compiledQuery.getPostSelectClause());
+        assertEquals(2, compiledQuery.getParameterCount());
+        assertEquals(compiledQuery.getQuery().indexOf("?"), compiledQuery.getParameterOffset(0));
+        assertEquals(compiledQuery.getQuery().lastIndexOf("?"), compiledQuery.getParameterOffset(1));
+
+        // changes to the builder do not change the compiled query
+        sql.filter("Car.IS_COOL", true);
+        assertEquals("SELECT Name FROM Car WHERE Car.ID = ? AND Car.NAME = 'Why?' AND Car.WHEELS > ?", compiledQuery.getQuery());
+
+        assertEquals("SELECT count(*) FROM Car WHERE Car.ID = ? AND Car.NAME = 'Why?' AND Car.WHEELS > ? AND Car.IS_COOL = 1", sql.compile(true).getQuery());
+    }
+
+    @Test
+    public void testCloneDialect() {
+        SQLQueryBuilder sql = new PostgresqlQueryBuilder();
+        sql.setQueryParameter(":p");
+        sql.table("Car");
+        sql.filter(CompareFilter.create("Car.NAME", CompareType.LIKE_IGNORECASE, ":p").or("Car.ID", ":p"));
+
+        SQLQueryBuilder clone = sql.clone();
+        assertEquals(PostgresqlQueryBuilder.class, clone.getClass());
+        assertEquals(":p", clone.getQueryParameter());
+        assertEquals(sql.buildQuery(), clone.buildQuery());
+
+        // filters are deep copied
+        clone.getFilter().and(CompareFilter.create("Car.WHEELS", 4));
+        assertEquals("SELECT * FROM Car WHERE Car.NAME ilike :p OR Car.ID = :p", sql.buildQuery());
+        assertEquals("SELECT * FROM Car WHERE (Car.NAME ilike :p OR Car.ID = :p) AND Car.WHEELS = 4", clone.buildQuery());
+    }
+
+    @Test
+    public void testCloneSubclass() {
+        SQLQueryBuilder sql = createUpperLikeQueryBuilder();
+        sql.table("Car");
+        sql.filter(CompareFilter.create("Car.NAME", CompareType.LIKE_IGNORECASE, "'civic'"));
+
+        SQLQueryBuilder clone = sql.clone();
+        assertEquals(sql.getClass(), clone.getClass());
+        assertEquals("SELECT * FROM Car WHERE UPPER(Car.NAME) LIKE UPPER('civic')", clone.buildQuery());
+
+        // subclass of a dialect
+        SQLQueryBuilder derby = createDerbySubclass();
+        derby.table("Car");
+        derby.limit(10);
+        SQLQueryBuilder derbyClone = derby.clone();
+        assertEquals(derby.getClass(), derbyClone.getClass());
+        assertEquals(derby.buildQuery(), derbyClone.buildQuery());
+    }
+
+    // declared in static methods, so they have a no-argument constructor
+
+    private static SQLQueryBuilder createUpperLikeQueryBuilder() {
+        return new SQLQueryBuilder() {
+            @Override
+            public String formatIgnoreCaseLikeClause(String column, String value) {
+                return "UPPER(" + column + ") LIKE UPPER(" + value + ")";
+            }
+        };
+    }
+
+    private static SQLQueryBuilder createDerbySubclass() {
+        return new DerbyQueryBuilder() {
+        };
+    }
+
+    @Test
+    public void testEqualsHashCode() {
+        SQLQueryBuilder sql1 = createCarQuery(new SQLQueryBuilder());
+        SQLQueryBuilder sql2 = createCarQuery(new SQLQueryBuilder());
+        assertEquals(sql1, sql2);
+        assertEquals(sql1.hashCode(), sql2.hashCode());
+        assertEquals(sql1, sql1.clone());
+
+        // dialect is part of the structure
+        assertNotEquals(sql1, createCarQuery(new PostgresqlQueryBuilder()));
+
+        sql2.orderBy("Car.NAME");
+        assertNotEquals(sql1, sql2);
+    }
+
+    @Test
+    public void testQueryCache() {
+        QueryCache cache = new QueryCache(2);
+        QueryBuilder.setQueryCache(cache);
+        try {
+            SQLQueryBuilder sql1 = createCarQuery(new SQLQueryBuilder());
+            CompiledQuery compiledQuery = sql1.compile();
+            assertEquals("SELECT Car.NAME FROM Car JOIN Owner ON Owner.CAR_ID = Car.ID WHERE Car.WHEELS > 2", compiledQuery.getQuery());
+            assertEquals(1, cache.getMissCount());
+
+            // an independently built query with the same structure is not rendered again
+            assertSame(compiledQuery, createCarQuery(new SQLQueryBuilder()).compile());
+            assertEquals(compiledQuery.getQuery(), createCarQuery(new SQLQueryBuilder()).buildQuery());
+            assertEquals(2, cache.getHitCount());
+
+            // changes made after rendering do not change the cached query
+            sql1.filter("Car.WHEELS", CompareType.LESSTHAN, 10);
+            assertEquals("SELECT Car.NAME FROM Car JOIN Owner ON Owner.CAR_ID = Car.ID WHERE Car.WHEELS > 2 AND Car.WHEELS < 10", sql1.buildQuery());
+            assertEquals("SELECT count(*) FROM Car JOIN Owner ON Owner.CAR_ID = Car.ID WHERE Car.WHEELS > 2", createCarQuery(new SQLQueryBuilder()).buildQuery(true));
+            assertEquals(3, cache.getMissCount());
+
+            // the first query was the least recently used, so it was dropped
+            assertEquals(2, cache.size());
+            createCarQuery(new SQLQueryBuilder()).compile();
+            assertEquals(4, cache.getMissCount());
+        } finally {
+            QueryBuilder.setQueryCache(null);
+        }
+    }
+
+    private static SQLQueryBuilder createCarQuery(SQLQueryBuilder sql) {
+        sql.field("Car.NAME");
+        sql.table("Car");
+        sql.join("Owner", "Owner.CAR_ID", "Car.ID");
+        sql.filter("Car.WHEELS", CompareType.GREATERTHAN, 2);
+        return sql;
+    }
+
+    @Test
+    public void testCountQuery() {
+        SQLQueryBuilder sql = new SQLQueryBuilder();
+        sql.field("c.NAME");
+        sql.table("Car c");
+        sql.join(JoinType.LEFT_JOIN, "Owner o", "o.CAR_ID", "c.ID");
+        sql.join(JoinType.LEFT_JOIN, "Dealer d", "d.ID", "c.DEALER_ID");
+        sql.filter("d.STATE", "'UT'");
+        sql.orderBy("c.NAME");
+
+        // plain query... same rows, no ORDER BY
+        assertEquals("SELECT count(*) FROM Car c LEFT JOIN Owner o ON o.CAR_ID = c.ID LEFT JOIN Dealer d ON d.ID = c.DEALER_ID WHERE d.STATE = 'UT'", sql.buildQuery(true));
+
+        // distinct rows are counted in a sub-query, without the unused LEFT JOIN
+        sql.distinct(true);
+        assertEquals("SELECT count(*) FROM (SELECT DISTINCT c.NAME FROM Car c LEFT JOIN Dealer d ON d.ID = c.DEALER_ID WHERE d.STATE = 'UT') countQuery", sql.buildQuery(true));
+
+        // groups are counted (not rows)
+        SQLQueryBuilder groupSql = new SQLQueryBuilder();
+        groupSql.field("c.MAKE");
+        groupSql.field("count(o.ID)", "owners");
+        groupSql.table("Car c");
+        groupSql.join(JoinType.LEFT_JOIN, "Owner o", "o.CAR_ID", "c.ID");
+        groupSql.join(JoinType.LEFT_JOIN, "Dealer", "Dealer.ID", "c.DEALER_ID");
+        groupSql.join(JoinType.LEFT_JOIN, "Region r", "r.ID", "Dealer.REGION_ID");
+        groupSql.groupBy("c.MAKE");
+        groupSql.having("r.NAME", "'West'");
+        assertEquals("SELECT count(*) FROM (SELECT c.MAKE, count(o.ID) AS owners FROM Car c LEFT JOIN Owner o ON o.CAR_ID = c.ID LEFT JOIN Dealer ON Dealer.ID = c.DEALER_ID LEFT JOIN Region r ON r.ID = Dealer.REGION_ID GROUP BY c.MAKE HAVING r.NAME = 'West') countQuery", groupSql.buildQuery(true));
+
+        // LEFT JOINs that are not referenced do not change the number of groups
+        SQLQueryBuilder unusedSql = new SQLQueryBuilder();
+        unusedSql.field("c.NAME");
+        unusedSql.table("Car c");
+        unusedSql.join(JoinType.LEFT_JOIN, "Owner o", "o.CAR_ID", "c.ID");
+        unusedSql.groupBy("c.NAME");
+        assertEquals("SELECT count(*) FROM (SELECT c.NAME FROM Car c GROUP BY c.NAME) countQuery", unusedSql.buildQuery(true));
+
+        // SELECT DISTINCT * includes the columns of every join
+        SQLQueryBuilder allSql = new SQLQueryBuilder();
+        allSql.distinct(true);
+        allSql.table("Car c");
+        allSql.join(JoinType.LEFT_JOIN, "Owner o", "o.CAR_ID", "c.ID");
+        assertEquals("SELECT count(*) FROM (SELECT DISTINCT * FROM Car c LEFT JOIN Owner o ON o.CAR_ID = c.ID) countQuery", allSql.buildQuery(true));
+    }
+
+    @Test
+    public void testGroupByCountQueryKeepsLeftJoins() {
+        // the select list stays in the count sub-query
+        SQLQueryBuilder selectSql = new SQLQueryBuilder();
+        selectSql.field("c.NAME");
+        selectSql.field("max(o.NAME)");
+        selectSql.table("CAR c");
+        selectSql.join(JoinType.LEFT_JOIN, "OWNER o", "o.CAR_ID", "c.ID");
+        selectSql.groupBy("c.NAME");
+        assertEquals("SELECT count(*) FROM (SELECT c.NAME, max(o.NAME) FROM CAR c LEFT JOIN OWNER o ON o.CAR_ID = c.ID GROUP BY c.NAME) countQuery",
+                selectSql.buildQuery(true));
+
+        // a to-many LEFT JOIN changes count(*)... so it changes which groups HAVING keeps
+        SQLQueryBuilder havingSql = new SQLQueryBuilder();
+        havingSql.field("c.NAME");
+        havingSql.table("CAR c");
+        havingSql.join(JoinType.LEFT_JOIN, "OWNER o", "o.CAR_ID", "c.ID");
+        havingSql.groupBy("c.NAME");
+        havingSql.having("count(*) > 1");
+        assertEquals("SELECT count(*) FROM (SELECT c.NAME FROM CAR c LEFT JOIN OWNER o ON o.CAR_ID = c.ID GROUP BY c.NAME HAVING count(*) > 1) countQuery",
+                havingSql.buildQuery(true));
+    }
+
+    @Test
+    public void testCompilePage() {
+        SQLQueryBuilder sql = new SQLQueryBuilder();
+        sql.distinct(true);
+        sql.field("c.NAME");
+        sql.table("Car c");
+        sql.join(JoinType.LEFT_JOIN, "Owner o", "o.CAR_ID", "c.ID");
+        sql.filter("c.ID", CompareType.GREATERTHAN, "?");
+        sql.orderBy("c.NAME");
+
+        CompiledPage page = sql.compilePage();
+        assertEquals(sql.buildQuery(), page.getQuery().getQuery());
+        assertEquals(sql.buildQuery(true), page.getCountQuery().getQuery());
+        assertEquals("SELECT count(*)", page.getCountQuery().getSelectClause());
+        assertEquals(1, page.getCountQuery().getParameterCount());
+    }
+
+    @Test
+    public void testParameterize() {
+        SQLQueryBuilder ownerSql = new SQLQueryBuilder();
+        ownerSql.field("CAR_ID");
+        ownerSql.table("Owner");
+        ownerSql.filter("Owner.AGE", CompareType.GREATERTHAN, 21);
+
+        SQLQueryBuilder sql = new SQLQueryBuilder().parameterize(true);
+        sql.table("Car");
+        sql.filter("Car.WHEELS", 4);
+        sql.filter("Car.MAKE", "'Ford'");
+        sql.filter("Car.IS_COOL", true);
+        sql.filter(InFilter.create("Car.COLOR", Arrays.asList(1, 2)));
+        sql.filter(InFilter.create("Car.ID", ownerSql));
+        sql.filter("Car.YEAR", CompareType.LESSTHAN, 2000);
+
+        CompiledQuery compiledQuery = sql.compile();
+        assertEquals("SELECT * FROM Car WHERE Car.WHEELS = ? AND Car.MAKE = 'Ford' AND Car.IS_COOL = ? AND Car.COLOR IN (?, ?)"
+                + " AND Car.ID IN (SELECT CAR_ID FROM Owner WHERE Owner.AGE > ?) AND Car.YEAR < ?", compiledQuery.getQuery());
+        assertEquals(Arrays.<Object>asList(4, 1, 1, 2, 21, 2000), compiledQuery.getParameterValues());
+        assertEquals(compiledQuery.getParameterValues().size(), compiledQuery.getParameterCount());
+        assertEquals(compiledQuery.getQuery(), sql.buildQuery());
+
+        // same SQL for different values
+        SQLQueryBuilder otherSql = new SQLQueryBuilder().parameterize(true);
+        otherSql.table("Car");
+        otherSql.filter("Car.WHEELS", 3);
+        assertEquals("SELECT * FROM Car WHERE Car.WHEELS = ?", otherSql.buildQuery());
+        assertEquals(Arrays.<Object>asList(3), otherSql.compile().getParameterValues());
+        assertEquals(0, new SQLQueryBuilder().table("Car").filter("Car.WHEELS", 3).compile().getParameterValues().size());
+    }
+
+    @Test
+    public void testParameterizeCount() {
+        SQLQueryBuilder sql = new SQLQueryBuilder().parameterize(true);
+        sql.distinct(true);
+        sql.field("c.NAME");
+        sql.table("Car c");
+        sql.join(JoinType.LEFT_JOIN, "Owner o", CompareFilter.create("o.CAR_ID", "c.ID"), CompareFilter.create("o.AGE", CompareType.GREATERTHAN, 21));
+        sql.filter("c.WHEELS", 4);
+
+        CompiledPage page = sql.compilePage();
+        assertEquals(Arrays.<Object>asList(21, 4), page.getQuery().getParameterValues());
+
+        // the LEFT JOIN (and its value) is not part of the count query
+        assertEquals("SELECT count(*) FROM (SELECT DISTINCT c.NAME FROM Car c WHERE c.WHEELS = ?) countQuery", page.getCountQuery().getQuery());
+        assertEquals(Arrays.<Object>asList(4), page.getCountQuery().getParameterValues());
+        assertEquals(page.getCountQuery().getParameterValues(), sql.compile(true).getParameterValues());
+    }
+
+    @Test
+    public void testParameterStyle() {
+        SQLQueryBuilder sql = new PostgresqlQueryBuilder();
+        sql.parameterStyle(sql.getNativeParameterStyle());
+        sql.table("Car");
+        sql.filter("Car.OWNER_ID", Parameter.named("ownerId"));
+        sql.filter(InParameterizedFilter.create("Car.COLOR", 2));
+        sql.filter("Car.NAME", CompareType.LIKE_IGNORECASE, "?");
+        sql.filter(CompareFilter.create("Car.DRIVER_ID", Parameter.named("ownerId")).or("Car.ID", "?"));
+
+        CompiledQuery compiledQuery = sql.compile();
+        assertEquals("SELECT * FROM Car WHERE Car.OWNER_ID = $1 AND Car.COLOR IN ($2, $3) AND Car.NAME ilike $4 AND (Car.DRIVER_ID = $5 OR Car.ID = $6)",
+                compiledQuery.getQuery());
+        assertEquals(ParameterStyle.DOLLAR_NUMBERED, compiledQuery.getParameterStyle());
+        assertEquals(6, compiledQuery.getParameterCount());
+        assertArrayEquals(new int[]{1, 5}, compiledQuery.getParameterIndexes("ownerId"));
+        assertEquals(compiledQuery.getQuery().indexOf("$5"), compiledQuery.getParameterOffset(4));
+
+        // plain query parameters are still tracked by name
+        sql.parameterStyle(ParameterStyle.QUESTION_MARK);
+        compiledQuery = sql.compile();
+        assertEquals("SELECT * FROM Car WHERE Car.OWNER_ID = ? AND Car.COLOR IN (?, ?) AND Car.NAME ilike ? AND (Car.DRIVER_ID = ? OR Car.ID = ?)",
+                compiledQuery.getQuery());
+        assertArrayEquals(new int[]{1, 5}, compiledQuery.getParameterIndexes("ownerId"));
+    }
+
+    @Test
+    public void testParameterStyleCount() {
+        SQLQueryBuilder sql = new OracleQueryBuilder().parameterize(true);
+        sql.parameterStyle(sql.getNativeParameterStyle());
+        sql.distinct(true);
+        sql.field("c.NAME");
+        sql.table("Car c");
+        sql.join(JoinType.LEFT_JOIN, "Owner o", CompareFilter.create("o.CAR_ID", "c.ID"), CompareFilter.create("o.AGE", CompareType.GREATERTHAN, 21));
+        sql.filter("c.WHEELS", 4);
+        sql.filter("c.MAKE_ID", Parameter.named("makeId"));
+
+        CompiledPage page = sql.compilePage();
+        assertEquals("SELECT DISTINCT c.NAME FROM Car c LEFT JOIN Owner o ON o.CAR_ID = c.ID AND o.AGE > :1 WHERE c.WHEELS = :2 AND c.MAKE_ID = :3",
+                page.getQuery().getQuery());
+
+        // query parameters of the count query are numbered again
+        CompiledQuery countQuery = page.getCountQuery();
+        assertEquals("SELECT count(*) FROM (SELECT DISTINCT c.NAME FROM Car c WHERE c.WHEELS = :1 AND c.MAKE_ID = :2) countQuery", countQuery.getQuery());
+        assertArrayEquals(new int[]{2}, countQuery.getParameterIndexes("makeId"));
+
+        // bind again by name, without rendering again
+        Map<String, Object> namedValues = new HashMap<String, Object>();
+        namedValues.put("makeId", 7L);
+        assertEquals("[4, 7]", countQuery.bind(namedValues).toString());
+        namedValues.put("makeId", 8L);
+        assertEquals("[21, 4, 8]", page.getQuery().bind(namedValues).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBindMissingParameter() {
+        SQLQueryBuilder sql = new SQLQueryBuilder();
+        sql.table("Car");
+        sql.filter("Car.MAKE_ID", Parameter.named("makeId"));
+        sql.compile().bind(new HashMap<String, Object>());
+    }
+
+    @Test
+    public void testSeekAfter() {
+        SQLQueryBuilder sql = new SQLQueryBuilder();
+        sql.table("AuditLog");
+        sql.orderBy("CREATED");
+        sql.seekAfter("?");
+        assertEquals("SELECT * FROM AuditLog WHERE CREATED > ? ORDER BY CREATED", sql.buildQuery());
+
+        // row values
+        SQLQueryBuilder postgres = new PostgresqlQueryBuilder();
+        postgres.table("AuditLog");
+        postgres.filter("TYPE", 1);
+        postgres.filter(OrFilter.create(CompareFilter.create("A", 1), CompareFilter.create("B", 2)));
+        postgres.orderBy("CREATED DESC", "ID DESC");
+        postgres.seekAfter("?", "?");
+        assertEquals("SELECT * FROM AuditLog WHERE (TYPE = 1 AND (A = 1 OR B = 2)) AND (CREATED, ID) < (?, ?) ORDER BY CREATED DESC, ID DESC", postgres.buildQuery());
+
+        // no row values: OR chain
+        SQLQueryBuilder oracle = new OracleQueryBuilder();
+        oracle.table("AuditLog");
+        oracle.orderBy("CREATED DESC", "ID DESC");
+        oracle.seekAfter(Parameter.named("created"), Parameter.named("id"));
+        assertEquals("SELECT * FROM AuditLog WHERE (CREATED < ? OR (CREATED = ? AND ID < ?)) ORDER BY CREATED DESC, ID DESC", oracle.buildQuery());
+
+        // mixed directions
+        SQLQueryBuilder mixed = new PostgresqlQueryBuilder().parameterize(true);
+        mixed.table("AuditLog");
+        mixed.orderBy("USER_ID");
+        mixed.orderBy("CREATED", false);
+        mixed.orderBy("ID ASC");
+        mixed.seekAfter(5, 1000L, 42L);
+        CompiledQuery compiledQuery = mixed.compile();
+        assertEquals("SELECT * FROM AuditLog WHERE (USER_ID > ? OR (USER_ID = ? AND CREATED < ?) OR (USER_ID = ? AND CREATED = ? AND ID > ?))"
+                + " ORDER BY USER_ID, CREATED DESC, ID ASC", compiledQuery.getQuery());
+        assertEquals(Arrays.<Object>asList(5, 5, 1000L, 5, 1000L, 42L), compiledQuery.getParameterValues());
+
+        // first page
+        mixed.seekAfter();
+        assertEquals("SELECT * FROM AuditLog ORDER BY USER_ID, CREATED DESC, ID ASC", mixed.buildQuery());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSeekAfterWrongValueCount() {
+        new SQLQueryBuilder().table("AuditLog").orderBy("CREATED", "ID").seekAfter("?").buildQuery();
+    }
+
+    @Test
+    public void testLimit() {
+        assertEquals("SELECT * FROM Car ORDER BY NAME LIMIT 10 OFFSET 20", createLimitQuery(new SQLQueryBuilder()).buildQuery());
+        assertEquals("SELECT * FROM Car ORDER BY NAME LIMIT -1 OFFSET 20", createLimitQuery(new SQLQueryBuilder()).limit(-1).buildQuery());
+        assertEquals("SELECT * FROM Car ORDER BY NAME LIMIT 10 OFFSET 20", createLimitQuery(new PostgresqlQueryBuilder()).buildQuery());
+        assertEquals("SELECT * FROM Car ORDER BY NAME OFFSET 20", createLimitQuery(new PostgresqlQueryBuilder()).limit(-1).buildQuery());
+        assertEquals("SELECT * FROM Car ORDER BY NAME LIMIT 10 OFFSET 20", createLimitQuery(new MysqlQueryBuilder()).buildQuery());
+        assertEquals("SELECT * FROM Car ORDER BY NAME LIMIT 18446744073709551615 OFFSET 20", createLimitQuery(new MysqlQueryBuilder()).limit(-1).buildQuery());
+        assertEquals("SELECT * FROM Car ORDER BY NAME OFFSET 20 ROWS FETCH FIRST 10 ROWS ONLY", createLimitQuery(new DerbyQueryBuilder()).buildQuery());
+        assertEquals("SELECT * FROM Car ORDER BY NAME OFFSET 20 ROWS FETCH FIRST 10 ROWS ONLY", createLimitQuery(new OracleQueryBuilder()).buildQuery());
+        assertEquals("SELECT FIRST 10 SKIP 20 * FROM Car ORDER BY NAME", createLimitQuery(new FirebirdQueryBuilder()).buildQuery());
+
+        assertEquals("SELECT * FROM (SELECT rownumQuery.*, ROWNUM rownumIndex FROM (SELECT * FROM Car ORDER BY NAME) rownumQuery"
+                + " WHERE ROWNUM <= 30) WHERE rownumIndex > 20", createLimitQuery(new OracleQueryBuilder().rownumLimit(true)).buildQuery());
+        assertEquals("SELECT * FROM (SELECT * FROM Car ORDER BY NAME) WHERE ROWNUM <= 10",
+                createLimitQuery(new OracleQueryBuilder().rownumLimit(true)).offset(0).buildQuery());
+        assertNotEquals(createLimitQuery(new OracleQueryBuilder()), createLimitQuery(new OracleQueryBuilder().rownumLimit(true)));
+
+        // bound limit, left out of the count query
+        SQLQueryBuilder firebird = new FirebirdQueryBuilder().parameterize(true);
+        firebird.distinct(true);
+        firebird.field("NAME");
+        firebird.table("Car");
+        firebird.filter("WHEELS", 4);
+        firebird.orderBy("NAME");
+        firebird.limit(10).offset(20);
+        CompiledPage page = firebird.compilePage();
+        assertEquals("SELECT FIRST ? SKIP ? DISTINCT NAME FROM Car WHERE WHEELS = ? ORDER BY NAME", page.getQuery().getQuery());
+        assertEquals(Arrays.<Object>asList(10, 20, 4), page.getQuery().getParameterValues());
+        assertEquals("SELECT count(*) FROM (SELECT DISTINCT NAME FROM Car WHERE WHEELS = ?) countQuery", page.getCountQuery().getQuery());
+        assertEquals(Arrays.<Object>asList(4), page.getCountQuery().getParameterValues());
+
+        assertEquals("SELECT count(*) FROM Car", createLimitQuery(new OracleQueryBuilder().rownumLimit(true)).buildQuery(true));
+    }
+
+    @Test
+    public void testColumnLabels() {
+        SQLQueryBuilder sql = new SQLQueryBuilder();
+        sql.table("Car");
+        assertEquals(Collections.<String>emptyList(), sql.getColumnLabels());
+
+        sql.field("Car.ID");
+        sql.field("NAME", "CAR_NAME");
+        sql.field("Car", "WHEELS", "");
+        sql.field("count(*)");
+        assertEquals(Arrays.asList("ID", "CAR_NAME", "WHEELS", "count(*)"), sql.getColumnLabels());
+    }
+
+    private static SQLQueryBuilder createLimitQuery(SQLQueryBuilder sql) {
+        sql.table("Car");
+        sql.orderBy("NAME");
+        return sql.limit(10).offset(20);
+    }
+}
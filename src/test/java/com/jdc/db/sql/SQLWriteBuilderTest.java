@@ -0,0 +1,217 @@
+package com.jdc.db.sql;
+
+import org.dbtools.query.shared.CompareType;
+import org.dbtools.query.shared.CompiledBatch;
+import org.dbtools.query.shared.CompiledQuery;
+import org.dbtools.query.shared.Parameter;
+import org.dbtools.query.shared.ParameterStyle;
+import org.dbtools.query.shared.SQL;
+import org.dbtools.query.shared.filter.InFilter;
+import org.dbtools.query.sql.DerbyQueryBuilder;
+import org.dbtools.query.sql.FirebirdQueryBuilder;
+import org.dbtools.query.sql.MysqlQueryBuilder;
+import org.dbtools.query.sql.OracleQueryBuilder;
+import org.dbtools.query.sql.PostgresqlQueryBuilder;
+import org.dbtools.query.sql.SQLDeleteBuilder;
+import org.dbtools.query.sql.SQLInsertBuilder;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.dbtools.query.sql.SQLUpdateBuilder;
+import org.dbtools.query.sql.SQLUpsertBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class SQLWriteBuilderTest {
+
+    @Test
+    public void testInsert() {
+        SQLInsertBuilder insert = new SQLQueryBuilder().insertInto("Car");
+        insert.columns("NAME", "WHEELS");
+        insert.values("Civic", 4);
+        insert.values("Bus", 6);
+        assertEquals("INSERT INTO Car (NAME, WHEELS) VALUES ('Civic', 4), ('Bus', 6)", insert.buildQuery());
+
+        SQLInsertBuilder copy = insert.clone();
+        copy.values("Truck", 18);
+        assertEquals(2, insert.getRowCount());
+        assertEquals(3, copy.getRowCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInsertWrongValueCount() {
+        new SQLInsertBuilder("Car").columns("NAME", "WHEELS").values("Civic");
+    }
+
+    @Test
+    public void testInsertBatches() {
+        // 999 parameters / 2 columns = 499 rows per statement
+        SQLInsertBuilder insert = new SQLQueryBuilder().parameterize(true).insertInto("Car");
+        insert.columns("ID", "WHEELS");
+        for (int i = 0; i < 1000; i++) {
+            insert.values(i, 4);
+        }
+        assertEquals(499, insert.getRowsPerStatement());
+
+        List<CompiledBatch> batches = insert.compileBatches();
+        assertEquals(2, batches.size());
+        assertEquals(2, batches.get(0).size()); // 2 x 499 rows with the same SQL
+        assertEquals(1, batches.get(1).size()); // the last 2 rows
+        assertEquals("INSERT INTO Car (ID, WHEELS) VALUES (?, ?), (?, ?)", batches.get(1).getQuery());
+        assertEquals("[998, 4, 999, 4]", batches.get(1).getBindings(0).toString());
+        assertEquals(998, batches.get(0).getBindings(0).size());
+
+        // one row per statement
+        SQLInsertBuilder oracleInsert = new OracleQueryBuilder().parameterize(true).insertInto("Car");
+        oracleInsert.columns("ID", "WHEELS");
+        oracleInsert.values(1, 4);
+        oracleInsert.values(2, 6);
+        batches = oracleInsert.compileBatches();
+        assertEquals(1, batches.size());
+        assertEquals("INSERT INTO Car (ID, WHEELS) VALUES (?, ?)", batches.get(0).getQuery());
+        assertEquals(2, batches.get(0).size());
+        assertEquals("[2, 6]", batches.get(0).getBindings(1).toString());
+    }
+
+    @Test
+    public void testInsertStrings() {
+        // Strings are data: bound when parameterized, so rows with different Strings are one statement
+        SQLInsertBuilder insert = new PostgresqlQueryBuilder().parameterize(true).insertInto("Car");
+        insert.columns("NAME", "WHEELS", "CREATED");
+        insert.values("Civic", 4, SQL.raw("now()"));
+        insert.values("O'Brien's Bus", 6, SQL.raw("now()"));
+        List<CompiledBatch> batches = insert.compileBatches();
+        assertEquals(1, batches.size());
+        assertEquals("INSERT INTO Car (NAME, WHEELS, CREATED) VALUES (?, ?, now()), (?, ?, now())", batches.get(0).getQuery());
+        assertEquals("[Civic, 4, O'Brien's Bus, 6]", batches.get(0).getBindings(0).toString());
+
+        SQLInsertBuilder oracleInsert = new OracleQueryBuilder().parameterize(true).insertInto("Car");
+        oracleInsert.columns("NAME", "WHEELS");
+        oracleInsert.values("Civic", 4);
+        oracleInsert.values("Bus", 6);
+        batches = oracleInsert.compileBatches();
+        assertEquals(1, batches.size());
+        assertEquals("INSERT INTO Car (NAME, WHEELS) VALUES (?, ?)", batches.get(0).getQuery());
+        assertEquals(2, batches.get(0).size());
+        assertEquals("[Bus, 6]", batches.get(0).getBindings(1).toString());
+
+        // quoted literals when not parameterized
+        SQLInsertBuilder plain = new SQLQueryBuilder().insertInto("Car").columns("NAME").values("O'Brien");
+        assertEquals("INSERT INTO Car (NAME) VALUES ('O''Brien')", plain.buildQuery());
+        assertEquals("INSERT INTO Car (NAME) VALUES ('O''Brien')", plain.compileBatches().get(0).getQuery());
+        SQLInsertBuilder mysql = new MysqlQueryBuilder().insertInto("Car").columns("NAME").values("C:\\Cars\\O'Brien");
+        assertEquals("INSERT INTO Car (NAME) VALUES ('C:\\\\Cars\\\\O''Brien')", mysql.buildQuery());
+    }
+
+    @Test
+    public void testNamedBatch() {
+        SQLInsertBuilder insert = new PostgresqlQueryBuilder().insertInto("Car");
+        insert.columns("ID", "NAME");
+        insert.values(Parameter.named("id"), Parameter.named("name"));
+
+        Map<String, Object> row1 = new HashMap<String, Object>();
+        row1.put("id", 1L);
+        row1.put("name", "Civic");
+        Map<String, Object> row2 = new HashMap<String, Object>();
+        row2.put("id", 2L);
+        row2.put("name", "Bus");
+
+        CompiledBatch batch = insert.compileBatch(Arrays.asList(row1, row2));
+        assertEquals("INSERT INTO Car (ID, NAME) VALUES (?, ?)", batch.getQuery());
+        assertEquals(2, batch.size());
+        assertEquals("[2, Bus]", batch.getBindings(1).toString());
+    }
+
+    @Test
+    public void testUpdate() {
+        SQLUpdateBuilder update = new SQLQueryBuilder().update("Car");
+        update.set("NAME", "Civic");
+        update.set("WHEELS", 4);
+        update.filter("ID", 7);
+        update.filter("WHEELS", CompareType.GREATERTHAN, 2);
+        assertEquals("UPDATE Car SET NAME = 'Civic', WHEELS = 4 WHERE ID = 7 AND WHEELS > 2", update.buildQuery());
+
+        SQLUpdateBuilder parameterized = new PostgresqlQueryBuilder().parameterize(true).parameterStyle(ParameterStyle.DOLLAR_NUMBERED).update("Car");
+        parameterized.set("WHEELS", 4);
+        parameterized.filter(InFilter.create("ID", new long[]{1, 2}));
+        CompiledQuery compiledQuery = parameterized.compile();
+        assertEquals("UPDATE Car SET WHEELS = $1 WHERE ID = ANY($2)", compiledQuery.getQuery());
+        assertEquals(2, compiledQuery.getParameterCount());
+    }
+
+    @Test
+    public void testUpdateStrings() {
+        SQLUpdateBuilder update = new SQLQueryBuilder().parameterize(true).update("Car");
+        update.set("NAME", "O'Brien");
+        update.set("MODIFIED", SQL.raw("CURRENT_TIMESTAMP"));
+        update.set("OWNER", "?");
+        update.filter("ID", 7);
+        CompiledQuery compiledQuery = update.compile();
+        assertEquals("UPDATE Car SET NAME = ?, MODIFIED = CURRENT_TIMESTAMP, OWNER = ? WHERE ID = ?", compiledQuery.getQuery());
+        assertEquals(3, compiledQuery.getParameterCount());
+        assertEquals(Arrays.<Object>asList("O'Brien", 7), compiledQuery.getParameterValues());
+
+        SQLUpdateBuilder named = new SQLQueryBuilder().parameterize(true).update("Car");
+        named.set("NAME", "Civic");
+        named.filter("ID", Parameter.named("id"));
+        CompiledBatch batch = named.compileBatch(Arrays.asList(Collections.singletonMap("id", 5), Collections.singletonMap("id", 6)));
+        assertEquals("UPDATE Car SET NAME = ? WHERE ID = ?", batch.getQuery());
+        assertEquals("[Civic, 6]", batch.getBindings(1).toString());
+
+        SQLUpdateBuilder plain = new SQLQueryBuilder().update("Car").set("NAME", "O'Brien").set("MODIFIED", SQL.raw("CURRENT_TIMESTAMP"));
+        assertEquals("UPDATE Car SET NAME = 'O''Brien', MODIFIED = CURRENT_TIMESTAMP", plain.buildQuery());
+    }
+
+    @Test
+    public void testDelete() {
+        SQLDeleteBuilder delete = new SQLQueryBuilder().deleteFrom("Car");
+        assertEquals("DELETE FROM Car", delete.buildQuery());
+
+        delete.filter("ID", Parameter.named("id"));
+        assertEquals("DELETE FROM Car WHERE ID = ?", delete.buildQuery());
+
+        CompiledBatch batch = delete.compileBatch(Arrays.asList(Collections.singletonMap("id", 5), Collections.singletonMap("id", 6)));
+        assertEquals(2, batch.size());
+        assertEquals("[6]", batch.getBindings(1).toString());
+    }
+
+    @Test
+    public void testUpsert() {
+        assertEquals("INSERT INTO Car (ID, NAME, WHEELS) VALUES (?, ?, ?) ON CONFLICT (ID) DO UPDATE SET NAME = EXCLUDED.NAME, WHEELS = EXCLUDED.WHEELS",
+                createUpsert(new PostgresqlQueryBuilder()).buildQuery());
+        assertEquals("INSERT INTO Car (ID, NAME, WHEELS) VALUES (?, ?, ?) ON DUPLICATE KEY UPDATE NAME = VALUES(NAME), WHEELS = VALUES(WHEELS)",
+                createUpsert(new MysqlQueryBuilder()).buildQuery());
+        assertEquals("MERGE INTO Car dst USING (SELECT ? AS ID, ? AS NAME, ? AS WHEELS FROM DUAL) src ON (dst.ID = src.ID)"
+                        + " WHEN MATCHED THEN UPDATE SET dst.NAME = src.NAME, dst.WHEELS = src.WHEELS"
+                        + " WHEN NOT MATCHED THEN INSERT (ID, NAME, WHEELS) VALUES (src.ID, src.NAME, src.WHEELS)",
+                createUpsert(new OracleQueryBuilder()).buildQuery());
+        assertEquals("UPDATE OR INSERT INTO Car (ID, NAME, WHEELS) VALUES (?, ?, ?) MATCHING (ID)",
+                createUpsert(new FirebirdQueryBuilder()).buildQuery());
+
+        // Derby writes the values where they are used
+        SQLUpsertBuilder derbyUpsert = new DerbyQueryBuilder().parameterize(true).upsertInto("Car");
+        derbyUpsert.columns("ID", "NAME", "WHEELS").values(7, "Civic", 4).key("ID").update("WHEELS");
+        CompiledQuery compiledQuery = derbyUpsert.compile();
+        assertEquals("MERGE INTO Car dst USING SYSIBM.SYSDUMMY1 ON dst.ID = ? WHEN MATCHED THEN UPDATE SET WHEELS = ?"
+                + " WHEN NOT MATCHED THEN INSERT (ID, NAME, WHEELS) VALUES (?, ?, ?)", compiledQuery.getQuery());
+        assertEquals(Arrays.<Object>asList(7, 4, 7, "Civic", 4), compiledQuery.getParameterValues());
+
+        // nothing to update
+        SQLUpsertBuilder keysOnly = new PostgresqlQueryBuilder().upsertInto("CarOwner").columns("CAR_ID", "OWNER_ID").values("?", "?").key("CAR_ID", "OWNER_ID");
+        assertEquals("INSERT INTO CarOwner (CAR_ID, OWNER_ID) VALUES (?, ?) ON CONFLICT (CAR_ID, OWNER_ID) DO NOTHING", keysOnly.buildQuery());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUpsertWithoutKey() {
+        new SQLUpsertBuilder("Car").columns("ID").values(1).buildQuery();
+    }
+
+    private static SQLUpsertBuilder createUpsert(SQLQueryBuilder dialect) {
+        return dialect.upsertInto("Car").columns("ID", "NAME", "WHEELS").values("?", "?", "?").key("ID");
+    }
+}
@@ -0,0 +1,122 @@
+package org.dbtools.query.shared;
+
+import org.dbtools.query.sql.PostgresqlQueryBuilder;
+import org.dbtools.query.sql.SQLQueryBuilder;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class BindingsTest {
+
+    @Test
+    public void testBind() throws Exception {
+        Bindings bindings = new Bindings(2)
+                .addLong(5000000000L)
+                .addInt(7)
+                .addDouble(1.5)
+                .addBoolean(true)
+                .addString("Ford")
+                .addNull(Types.INTEGER)
+                .add(new BigDecimal("2.50"))
+                .addLongs(new long[]{1, 2});
+
+        List<String> calls = new ArrayList<String>();
+        assertEquals(10, bindings.bind(recordingStatement(calls), 1));
+        assertEquals(Arrays.asList("setLong(1, 5000000000)", "setInt(2, 7)", "setDouble(3, 1.5)", "setBoolean(4, true)",
+                "setString(5, Ford)", "setNull(6, 4)", "setObject(7, 2.50)", "setLong(8, 1)", "setLong(9, 2)"), calls);
+    }
+
+    @Test
+    public void testBoxedValues() throws Exception {
+        Bindings bindings = Bindings.of(Arrays.asList(1L, 2, 3.0, false, "A", null));
+        assertEquals(6, bindings.size());
+        assertEquals(Arrays.<Object>asList(1L, 2, 3.0, false, "A", null),
+                Arrays.asList(bindings.get(0), bindings.get(1), bindings.get(2), bindings.get(3), bindings.get(4), bindings.get(5)));
+        assertArrayEquals(new String[]{"1", "2", "3.0", "false", "A", "null"}, bindings.toSelectionArgs());
+
+        // copies do not share storage
+        Bindings copy = new Bindings(bindings).addInt(9);
+        assertEquals(6, bindings.size());
+        assertEquals(7, copy.size());
+        copy.add(bindings, 4);
+        assertEquals("A", copy.get(7));
+
+        bindings.clear();
+        assertEquals(0, bindings.size());
+        assertEquals(8, copy.size());
+    }
+
+    @Test
+    public void testCompiledQueryBindings() throws Exception {
+        CompiledQuery compiledQuery = new CompiledQuery("SELECT * FROM Car WHERE ID = ? AND WHEELS = ?", 8, "?", Arrays.asList(10L, 4));
+        assertEquals(Arrays.<Object>asList(10L, 4), compiledQuery.getParameterValues());
+
+        List<String> calls = new ArrayList<String>();
+        assertEquals(3, compiledQuery.bindParameters(recordingStatement(calls)));
+        assertEquals(Arrays.asList("setLong(1, 10)", "setInt(2, 4)"), calls);
+
+        // changes to a copy do not change the compiled query
+        compiledQuery.getBindings().addInt(1);
+        assertEquals(2, compiledQuery.getParameterValues().size());
+    }
+
+    @Test
+    public void testCompiledQueryRawSql() throws Exception {
+        // escaped ? operators and comments in raw SQL are not query parameters
+        SQLQueryBuilder sql = new PostgresqlQueryBuilder().parameterize(true);
+        sql.table("Car");
+        sql.filter("Car.DATA ??| array['a', 'b'] /* owner? */");
+        sql.filter("Car.WHEELS", 4);
+        sql.filter("Car.NAME <> '?' -- name?\n");
+        sql.filter("Car.ID", 10L);
+        CompiledQuery compiledQuery = sql.compile();
+        assertEquals(2, compiledQuery.getParameterCount());
+        assertEquals(sql.buildQuery().indexOf("Car.WHEELS = ?") + 13, compiledQuery.getParameterOffset(0));
+
+        List<String> calls = new ArrayList<String>();
+        compiledQuery.bindParameters(recordingStatement(calls));
+        assertEquals(Arrays.asList("setInt(1, 4)", "setLong(2, 10)"), calls);
+
+        // an unescaped ? operator is a query parameter (as it is for the JDBC driver)... it has no value
+        sql = new PostgresqlQueryBuilder().parameterize(true);
+        sql.table("Car");
+        sql.filter("Car.DATA ? 'a'");
+        sql.filter("Car.WHEELS", 4);
+        compiledQuery = sql.compile();
+        assertEquals(2, compiledQuery.getParameterCount());
+        try {
+            compiledQuery.bindParameters(recordingStatement(calls));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("No value for query parameter 1", e.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCompiledQueryValueCount() throws Exception {
+        new CompiledQuery("SELECT * FROM Car WHERE DATA ? 'a' AND ID = ?", 8, "?", Arrays.asList(10L));
+    }
+
+    private static PreparedStatement recordingStatement(final List<String> calls) {
+        return (PreparedStatement) Proxy.newProxyInstance(BindingsTest.class.getClassLoader(), new Class[]{PreparedStatement.class},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        calls.add(method.getName() + "(" + args[0] + ", " + args[1] + ")");
+                        return null;
+                    }
+                });
+    }
+}
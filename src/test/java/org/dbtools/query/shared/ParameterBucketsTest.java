@@ -0,0 +1,40 @@
+package org.dbtools.query.shared;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ParameterBucketsTest {
+
+    @Test
+    public void testBucketSize() throws Exception {
+        ParameterBuckets buckets = ParameterBuckets.POWERS_OF_TWO;
+        assertEquals(1, buckets.bucketSize(1));
+        assertEquals(2, buckets.bucketSize(2));
+        assertEquals(4, buckets.bucketSize(3));
+        assertEquals(8, buckets.bucketSize(5));
+        assertEquals(1024, buckets.bucketSize(1000));
+
+        buckets = ParameterBuckets.of(100, 10, 1);
+        assertEquals(1, buckets.bucketSize(1));
+        assertEquals(10, buckets.bucketSize(2));
+        assertEquals(100, buckets.bucketSize(100));
+        assertEquals(300, buckets.bucketSize(201));
+    }
+
+    @Test
+    public void testPad() throws Exception {
+        ParameterBuckets buckets = ParameterBuckets.POWERS_OF_TWO;
+        assertArrayEquals(new long[]{1, 2, 3, 3}, buckets.pad(new long[]{1, 2, 3}));
+        assertArrayEquals(new int[]{7}, buckets.pad(new int[]{7}));
+        assertEquals(Arrays.asList("a", "b", "c", "c"), buckets.pad(Arrays.asList("a", "b", "c")));
+
+        List<Integer> values = Arrays.asList(1, 2);
+        assertSame(values, buckets.pad(values));
+    }
+}
@@ -127,4 +127,20 @@ public class AndFilterTest {
 
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAppendTo() throws Exception {
+        RawFilter a = RawFilter.create("A");
+        RawFilter b = RawFilter.create("B");
+        RawFilter c = RawFilter.create("C");
+        QueryBuilder queryBuilder = new SQLQueryBuilder();
+
+        StringBuilder builder = new StringBuilder("WHERE ");
+        AndFilter.create(a, OrFilter.create(b, c)).appendTo(queryBuilder, builder);
+        assertEquals("WHERE A AND (B OR C)", builder.toString());
+
+        builder = new StringBuilder("WHERE ");
+        AndFilter.create(a, OrFilter.create(RawFilter.create(""))).appendTo(queryBuilder, builder);
+        assertEquals("Empty Or", "WHERE A AND ", builder.toString());
+    }
+}
@@ -7,6 +7,9 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class CompareFilterTest {
 
@@ -120,4 +123,56 @@ public class CompareFilterTest {
         assertEquals(filter.buildFilter(new SQLQueryBuilder()), clone.buildFilter(new SQLQueryBuilder()));
         assertNotEquals(filter.buildFilter(new SQLQueryBuilder()), clone.buildFilter(new FirebirdQueryBuilder()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSingleNode() throws Exception {
+        // each predicate is a single node until it is combined with and() / or()
+        CompareFilter filter = CompareFilter.create("A", "B");
+        assertNull(filter.filter);
+
+        AndFilter andFilter = AndFilter.create(filter, InFilter.create("C", "D"), RawFilter.create("E"));
+        assertNull(andFilter.filter);
+        assertEquals(3, andFilter.filters.size());
+        assertSame(filter, andFilter.filters.get(0));
+
+        filter.or("F", "G");
+        assertEquals("A = B OR F = G", filter.buildFilter(new SQLQueryBuilder()));
+        assertTrue(filter.filter instanceof OrFilter);
+    }
+
+    @Test
+    public void testSubclassCompareAndOr() throws Exception {
+        // and() / or() on a LIKE / IN compare must still create plain compares
+        CompareFilter like = CompareFilter.create("A", CompareType.LIKE, "B").or("C", "D");
+        assertEquals("A LIKE B OR C = D", like.buildFilter(new SQLQueryBuilder()));
+
+        CompareFilter in = CompareFilter.create("A", CompareType.IN, "B").and("C", "D");
+        assertEquals("A IN (B) AND C = D", in.buildFilter(new SQLQueryBuilder()));
+    }
+
+    @Test
+    public void testEquals() throws Exception {
+        CompareFilter filter1 = CompareFilter.create("A", CompareType.GREATERTHAN, 4).or("B", "C");
+        CompareFilter filter2 = CompareFilter.create("A", CompareType.GREATERTHAN, 4).or("B", "C");
+        assertEquals(filter1, filter2);
+        assertEquals(filter1.hashCode(), filter2.hashCode());
+        assertEquals(filter1, filter1.clone());
+
+        assertNotEquals(filter1, CompareFilter.create("A", CompareType.GREATERTHAN, 4).and("B", "C"));
+        assertNotEquals(CompareFilter.create("A", CompareType.LIKE, "B"), CompareFilter.create("A", CompareType.LIKE_IGNORECASE, "B"));
+
+        // changing a filter changes its equality (the cached hash of a predicate is not used once it is combined)
+        filter2.and("D", "E");
+        assertNotEquals(filter1, filter2);
+        assertNotEquals(filter1.hashCode(), filter2.hashCode());
+        CompareFilter single = CompareFilter.create("A", "B");
+        int singleHash = single.hashCode();
+        single.and("C", "D");
+        assertNotEquals(singleHash, single.hashCode());
+        assertEquals(CompareFilter.create("A", "B").and("C", "D").hashCode(), single.hashCode());
+
+        // array values are compared by content
+        assertEquals(InFilter.create("A", new Object[]{1, 2}), InFilter.create("A", new Object[]{1, 2}));
+        assertEquals(InFilter.create("A", new Object[]{1, 2}).hashCode(), InFilter.create("A", new Object[]{1, 2}).hashCode());
+    }
+}
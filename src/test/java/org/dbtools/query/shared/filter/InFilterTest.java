@@ -1,14 +1,26 @@
 package org.dbtools.query.shared.filter;
 
 import org.dbtools.query.jpa.JPAQueryBuilder;
+import org.dbtools.query.shared.CompiledQuery;
+import org.dbtools.query.shared.ParameterBuckets;
+import org.dbtools.query.shared.PersistentList;
 import org.dbtools.query.shared.QueryBuilder;
+import org.dbtools.query.shared.SqlArray;
+import org.dbtools.query.sql.OracleQueryBuilder;
+import org.dbtools.query.sql.PostgresqlQueryBuilder;
 import org.dbtools.query.sql.SQLQueryBuilder;
 import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 
 public class InFilterTest {
 
@@ -82,4 +94,92 @@ public class InFilterTest {
         assertEquals(filter.buildFilter(new JPAQueryBuilder()), clone.buildFilter(new JPAQueryBuilder()));
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void testBuckets() throws Exception {
+        SQLQueryBuilder queryBuilder = new SQLQueryBuilder().parameterize(true);
+        queryBuilder.table("Car");
+        queryBuilder.filter(InFilter.create("Car.ID", Arrays.asList(10L, 20L, 30L), ParameterBuckets.POWERS_OF_TWO));
+
+        CompiledQuery compiledQuery = queryBuilder.compile();
+        assertEquals("SELECT * FROM Car WHERE Car.ID IN (?, ?, ?, ?)", compiledQuery.getQuery());
+        assertEquals(Arrays.<Object>asList(10L, 20L, 30L, 30L), compiledQuery.getParameterValues());
+    }
+
+    @Test
+    public void testInListStrategy() throws Exception {
+        List<Long> ids = new ArrayList<Long>();
+        for (long i = 1; i <= 2001; i++) {
+            ids.add(i);
+        }
+
+        // Oracle: OR'd IN lists of at most 1000 values
+        String oracle = InFilter.create("A", ids).buildFilter(new OracleQueryBuilder());
+        assertTrue(oracle.startsWith("(A IN (1, 2, "));
+        assertTrue(oracle.contains(", 1000) OR A IN (1001, "));
+        assertTrue(oracle.endsWith(", 2000) OR A IN (2001))"));
+        String oracleNotIn = InFilter.create("A", false, ids).buildFilter(new OracleQueryBuilder());
+        assertTrue(oracleNotIn.contains(", 1000) AND A NOT IN (1001, "));
+        assertEquals("A IN (1, 2)", InFilter.create("A", Arrays.asList(1L, 2L)).buildFilter(new OracleQueryBuilder()));
+
+        // Postgres: one array bind
+        SQLQueryBuilder postgres = new PostgresqlQueryBuilder().parameterize(true);
+        postgres.table("Car");
+        postgres.filter(InFilter.create("Car.ID", ids));
+        CompiledQuery compiledQuery = postgres.compile();
+        assertEquals("SELECT * FROM Car WHERE Car.ID = ANY(?)", compiledQuery.getQuery());
+        assertEquals(1, compiledQuery.getParameterValues().size());
+        assertEquals(new SqlArray("int8", ids.toArray()), compiledQuery.getParameterValues().get(0));
+        postgres.filter(InFilter.create("Car.ID", false, Arrays.asList(1, 2L)));
+        assertEquals("SELECT * FROM Car WHERE Car.ID = ANY(?) AND Car.ID <> ALL(?)", postgres.buildQuery());
+
+        // any other dialect: VALUES table for large lists
+        String values = InFilter.create("A", ids).buildFilter(new SQLQueryBuilder());
+        assertTrue(values.startsWith("A IN (VALUES (1), (2), "));
+        assertTrue(values.endsWith(", (2001))"));
+        assertEquals("A IN (1, 2)", InFilter.create("A", Arrays.asList(1L, 2L)).buildFilter(new SQLQueryBuilder()));
+    }
+
+    @Test
+    public void testCollectionsAndArrays() throws Exception {
+        assertEquals("A IN (1, 2, 3)", InFilter.create("A", new LinkedList<Long>(Arrays.asList(1L, 2L, 3L))).buildFilter(new SQLQueryBuilder()));
+        assertEquals("A IN (1, 2, 3)", InFilter.create("A", new LinkedHashSet<Long>(Arrays.asList(1L, 2L, 3L))).buildFilter(new SQLQueryBuilder()));
+        assertEquals("A IN (1, 2, 3)", InFilter.create("A", PersistentList.<Long>empty().add(1L).add(2L).add(3L)).buildFilter(new SQLQueryBuilder()));
+        assertEquals("A IN (1, 2, 3)", InFilter.create("A", new long[]{1, 2, 3}).buildFilter(new SQLQueryBuilder()));
+        assertEquals("A NOT IN (1, 2, 3)", InFilter.create("A", false, new int[]{1, 2, 3}).buildFilter(new SQLQueryBuilder()));
+        assertEquals("A IN ('x', 'y')", InFilter.create("A", new String[]{"'x'", "'y'"}).buildFilter(new SQLQueryBuilder()));
+        assertEquals(InFilter.create("A", new long[]{1, 2}), InFilter.create("A", new long[]{1, 2}));
+
+        SQLQueryBuilder queryBuilder = new SQLQueryBuilder().parameterize(true);
+        queryBuilder.table("Car");
+        queryBuilder.filter(InFilter.create("Car.ID", new long[]{10, 20, 30}, ParameterBuckets.POWERS_OF_TWO));
+        CompiledQuery compiledQuery = queryBuilder.compile();
+        assertEquals("SELECT * FROM Car WHERE Car.ID IN (?, ?, ?, ?)", compiledQuery.getQuery());
+        assertEquals(Arrays.<Object>asList(10L, 20L, 30L, 30L), compiledQuery.getParameterValues());
+
+        SQLQueryBuilder postgres = new PostgresqlQueryBuilder().parameterize(true);
+        postgres.table("Car");
+        postgres.filter(InFilter.create("Car.ID", new int[]{10, 20}));
+        compiledQuery = postgres.compile();
+        assertEquals("SELECT * FROM Car WHERE Car.ID = ANY(?)", compiledQuery.getQuery());
+        assertEquals(new SqlArray("int4", new Object[]{10, 20}), compiledQuery.getParameterValues().get(0));
+        assertEquals(new SqlArray("int4", new Object[]{10, 20}).hashCode(), compiledQuery.getParameterValues().get(0).hashCode());
+        assertEquals(new SqlArray("int8", new long[]{1, 2}), new SqlArray("int8", new long[]{1, 2}));
+        assertEquals(new SqlArray("int8", new long[]{1, 2}).hashCode(), new SqlArray("int8", new Object[]{1L, 2L}).hashCode());
+        assertNotEquals(new SqlArray("int8", new long[]{1, 2}), new SqlArray("int8", new long[]{1, 3}));
+    }
+
+    @Test
+    public void testHasSubQuery() {
+        QueryBuilder subQuery = new SQLQueryBuilder().field("Z").table("Y");
+        assertTrue(InFilter.create("A", subQuery).hasSubQuery());
+        assertTrue(CompareFilter.create("B", "C").or("D", "E").and(InFilter.create("A", false, subQuery)).hasSubQuery());
+        assertFalse(InFilter.create("A", Arrays.asList("B", "C")).hasSubQuery());
+        assertFalse(InFilter.create("A", "B").or("A", false, Arrays.asList("B", "C")).hasSubQuery());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyArray() throws Exception {
+        InFilter.create("A", new long[0]);
+    }
+}
@@ -1,5 +1,6 @@
 package org.dbtools.query.shared.filter;
 
+import org.dbtools.query.shared.ParameterBuckets;
 import org.dbtools.query.sql.SQLQueryBuilder;
 import org.junit.Test;
 
@@ -54,4 +55,11 @@ public class InParameterizedFilterTest {
         InParameterizedFilter clone = filter.clone();
         assertEquals(filter.buildFilter(new SQLQueryBuilder()), clone.buildFilter(new SQLQueryBuilder()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBuckets() throws Exception {
+        assertEquals("A IN (?)", InParameterizedFilter.create("A", 1, ParameterBuckets.POWERS_OF_TWO).buildFilter(new SQLQueryBuilder()));
+        assertEquals("A IN (?, ?, ?, ?)", InParameterizedFilter.create("A", 3, ParameterBuckets.POWERS_OF_TWO).buildFilter(new SQLQueryBuilder()));
+        assertEquals("A NOT IN (?, ?, ?, ?, ?)", InParameterizedFilter.create("A", false, 2, ParameterBuckets.of(5, 10)).buildFilter(new SQLQueryBuilder()));
+    }
+}
@@ -4,6 +4,8 @@ import org.dbtools.query.sql.SQLQueryBuilder;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class RawFilterTest {
 
@@ -42,4 +44,12 @@ public class RawFilterTest {
         assertEquals(filter.buildFilter(new SQLQueryBuilder()), clone.buildFilter(new SQLQueryBuilder()));
     }
 
+    @Test
+    public void testHasSubQuery() {
+        assertTrue(RawFilter.create("EXISTS (select 1 FROM B WHERE B.ID = A.B_ID)").hasSubQuery());
+        assertTrue(RawFilter.create("A = B").or("C IN (SELECT ID FROM D)").hasSubQuery());
+        assertFalse(RawFilter.create("A = B").and("C = D").hasSubQuery());
+        assertFalse(RawFilter.create("SELECTED = 1 AND UNSELECT_DATE IS NULL").hasSubQuery());
+    }
+
 }
\ No newline at end of file